@@ -0,0 +1,554 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.client;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Session;
+
+import org.glassfish.tyrus.core.ErrorCollector;
+import org.glassfish.tyrus.core.TyrusEndpointWrapper;
+import org.glassfish.tyrus.core.TyrusFuture;
+
+/**
+ * Opens many connections of one client endpoint to one or more URIs.
+ * <p/>
+ * Number of handshakes in progress is limited by {@link Builder#maxConcurrentHandshakes(int)} and the rate of opening
+ * new connections can be limited by {@link Builder#connectionsPerSecond(int)}. No thread is blocked while waiting for
+ * the handshake responses; next connection is started when some of the in-progress handshakes completes or when the
+ * rate limit allows it.
+ * <p/>
+ * Endpoint is validated and its metadata (annotated methods, encoders, decoders, configuration) is computed once per
+ * URI and shared by all connections to that URI. Connections are opened by the {@link ClientManager} which created the
+ * builder, so they share its transport and thread pools.
+ * <p/>
+ * Example:
+ * <pre>
+ * BulkConnector connector = client.bulkConnector(MyEndpoint.class)
+ *                                 .uri(URI.create("ws://localhost:8025/echo"))
+ *                                 .connections(1000)
+ *                                 .maxConcurrentHandshakes(50)
+ *                                 .connectionsPerSecond(200)
+ *                                 .connect();
+ *
+ * connector.await(30, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * @author agent (agent at local)
+ * @see ClientManager#bulkConnector(Object)
+ */
+public class BulkConnector {
+
+    /**
+     * Default limit of concurrently running handshakes.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_HANDSHAKES = 64;
+
+    private static final Logger LOGGER = Logger.getLogger(BulkConnector.class.getName());
+
+    private final ClientManager clientManager;
+    private final List<URI> uris;
+    private final Map<URI, TyrusEndpointWrapper> clientEndpoints;
+    private final Map<String, Object> properties;
+    private final int connections;
+    private final int maxConcurrentHandshakes;
+    private final int connectionsPerSecond;
+    private final Listener listener;
+
+    private final Queue<Session> sessions = new ConcurrentLinkedQueue<Session>();
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+    private final AtomicInteger connected = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+
+    // guarded by this
+    private long startTime;
+    private int started = 0;
+    private int inProgress = 0;
+    private boolean cancelled = false;
+    private boolean tickScheduled = false;
+    private boolean done = false;
+
+    private BulkConnector(ClientManager clientManager, List<URI> uris, Map<URI, TyrusEndpointWrapper> clientEndpoints,
+                          int connections, int maxConcurrentHandshakes, int connectionsPerSecond, Listener listener) {
+        this.clientManager = clientManager;
+        this.uris = uris;
+        this.clientEndpoints = clientEndpoints;
+        this.properties = new HashMap<String, Object>(clientManager.getProperties());
+        this.connections = connections;
+        this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+        this.connectionsPerSecond = connectionsPerSecond;
+        this.listener = listener;
+    }
+
+    /**
+     * Get number of requested connections.
+     *
+     * @return number of requested connections.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Get number of successfully opened connections.
+     *
+     * @return number of successfully opened connections.
+     */
+    public int getConnectedCount() {
+        return connected.get();
+    }
+
+    /**
+     * Get number of connections which failed to open.
+     *
+     * @return number of failed connections.
+     */
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Get number of connections which were not completed yet, including the ones not started yet.
+     * <p/>
+     * Connections which will not be started because of {@link #cancel()} are not counted.
+     *
+     * @return number of pending connections.
+     */
+    public synchronized int getPendingCount() {
+        return (cancelled ? started : connections) - connected.get() - failed.get();
+    }
+
+    /**
+     * Get sessions opened so far.
+     *
+     * @return list of opened sessions.
+     */
+    public List<Session> getSessions() {
+        return new ArrayList<Session>(sessions);
+    }
+
+    /**
+     * Get failures of the connections which failed so far.
+     *
+     * @return list of failures.
+     */
+    public List<Throwable> getFailures() {
+        return new ArrayList<Throwable>(failures);
+    }
+
+    /**
+     * Check whether all connections are completed (opened or failed).
+     *
+     * @return {@code true} when all connections are completed, {@code false} otherwise.
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Stop opening new connections.
+     * <p/>
+     * Handshakes already in progress are not interrupted and they are reported as usual.
+     */
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        dispatch();
+    }
+
+    /**
+     * Wait until all connections are completed.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public void await() throws InterruptedException {
+        doneLatch.await();
+    }
+
+    /**
+     * Wait until all connections are completed or the timeout elapses.
+     *
+     * @param timeout maximum time to wait.
+     * @param unit    time unit of the timeout argument.
+     * @return {@code true} when all connections are completed, {@code false} if the timeout elapsed before.
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return doneLatch.await(timeout, unit);
+    }
+
+    private void start() {
+        synchronized (this) {
+            startTime = System.currentTimeMillis();
+        }
+        dispatch();
+    }
+
+    /**
+     * Start as many connections as limits allow.
+     */
+    private void dispatch() {
+        final List<URI> toStart = new ArrayList<URI>();
+        boolean completed = false;
+
+        synchronized (this) {
+            while (!cancelled && started < connections && inProgress < maxConcurrentHandshakes) {
+                if (connectionsPerSecond > 0) {
+                    final long elapsed = System.currentTimeMillis() - startTime;
+                    if (started >= (elapsed * connectionsPerSecond / 1000) + 1) {
+                        if (!tickScheduled) {
+                            tickScheduled = true;
+                            final long delay = (started * 1000L / connectionsPerSecond) - elapsed;
+                            clientManager.getScheduledExecutorService().schedule(new Runnable() {
+                                @Override
+                                public void run() {
+                                    synchronized (BulkConnector.this) {
+                                        tickScheduled = false;
+                                    }
+                                    dispatch();
+                                }
+                            }, Math.max(delay, 1), TimeUnit.MILLISECONDS);
+                        }
+                        break;
+                    }
+                }
+
+                toStart.add(uris.get(started % uris.size()));
+                started++;
+                inProgress++;
+            }
+
+            if (!done && inProgress == 0 && (cancelled || started == connections)) {
+                done = true;
+                completed = true;
+            }
+        }
+
+        for (final URI uri : toStart) {
+            clientManager.getExecutorService().execute(new Runnable() {
+                @Override
+                public void run() {
+                    clientManager.connect(clientEndpoints.get(uri), uri.toString(), properties, new ConnectionFuture(uri));
+                }
+            });
+        }
+
+        if (completed) {
+            doneLatch.countDown();
+            if (listener != null) {
+                try {
+                    listener.onCompleted(this);
+                } catch (Throwable t) {
+                    LOGGER.log(Level.WARNING, "Bulk connection listener threw an exception.", t);
+                }
+            }
+        }
+    }
+
+    private void onConnected(URI uri, Session session) {
+        sessions.add(session);
+        connected.incrementAndGet();
+
+        if (listener != null) {
+            try {
+                listener.onConnected(uri, session);
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Bulk connection listener threw an exception.", t);
+            }
+        }
+
+        onHandshakeFinished();
+    }
+
+    private void onFailed(URI uri, Throwable throwable) {
+        failures.add(throwable);
+        failed.incrementAndGet();
+
+        if (listener != null) {
+            try {
+                listener.onFailed(uri, throwable);
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Bulk connection listener threw an exception.", t);
+            }
+        }
+
+        onHandshakeFinished();
+    }
+
+    private void onHandshakeFinished() {
+        synchronized (this) {
+            inProgress--;
+        }
+        dispatch();
+    }
+
+    /**
+     * Future which reports the outcome of a single connection to the {@link BulkConnector}.
+     */
+    private class ConnectionFuture extends TyrusFuture<Session> {
+
+        private final URI uri;
+        private final AtomicBoolean reported = new AtomicBoolean(false);
+
+        private ConnectionFuture(URI uri) {
+            this.uri = uri;
+        }
+
+        @Override
+        public void setResult(Session result) {
+            super.setResult(result);
+            if (reported.compareAndSet(false, true)) {
+                onConnected(uri, result);
+            }
+        }
+
+        @Override
+        public void setFailure(Throwable throwable) {
+            super.setFailure(throwable);
+            if (reported.compareAndSet(false, true)) {
+                onFailed(uri, throwable);
+            }
+        }
+    }
+
+    /**
+     * Receives progress of the {@link BulkConnector}.
+     * <p/>
+     * Methods are invoked from the client container threads, so they should not block.
+     */
+    public static interface Listener {
+
+        /**
+         * Invoked when a connection is opened.
+         *
+         * @param uri     URI of the connection.
+         * @param session opened session.
+         */
+        void onConnected(URI uri, Session session);
+
+        /**
+         * Invoked when a connection fails to open.
+         *
+         * @param uri       URI of the connection.
+         * @param throwable reason of the failure.
+         */
+        void onFailed(URI uri, Throwable throwable);
+
+        /**
+         * Invoked once, when all connections are completed (opened or failed).
+         *
+         * @param connector completed bulk connector.
+         */
+        void onCompleted(BulkConnector connector);
+    }
+
+    /**
+     * {@link BulkConnector} builder.
+     */
+    public static class Builder {
+
+        private final ClientManager clientManager;
+        private final Object endpoint;
+        private final List<URI> uris = new ArrayList<URI>();
+
+        private ClientEndpointConfig config = null;
+        private int connections = -1;
+        private int maxConcurrentHandshakes = DEFAULT_MAX_CONCURRENT_HANDSHAKES;
+        private int connectionsPerSecond = 0;
+        private Listener listener = null;
+
+        /**
+         * Create new builder.
+         *
+         * @param clientManager client manager used for opening the connections.
+         * @param endpoint      the endpoint - {@link javax.websocket.Endpoint} instance or class, annotated instance or
+         *                      class.
+         */
+        Builder(ClientManager clientManager, Object endpoint) {
+            this.clientManager = clientManager;
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * Set configuration of programmatic endpoint. Ignored for annotated endpoints.
+         *
+         * @param config client endpoint configuration.
+         * @return updated builder.
+         */
+        public Builder config(ClientEndpointConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        /**
+         * Add URI to connect to.
+         *
+         * @param uri the complete path to the server endpoint.
+         * @return updated builder.
+         */
+        public Builder uri(URI uri) {
+            this.uris.add(uri);
+            return this;
+        }
+
+        /**
+         * Add URIs to connect to.
+         *
+         * @param uris complete paths to the server endpoints.
+         * @return updated builder.
+         */
+        public Builder uris(Collection<URI> uris) {
+            this.uris.addAll(uris);
+            return this;
+        }
+
+        /**
+         * Set total number of connections to open. Connections are distributed among the URIs in round-robin fashion.
+         * <p/>
+         * Default value is one connection per URI.
+         *
+         * @param connections number of connections.
+         * @return updated builder.
+         */
+        public Builder connections(int connections) {
+            this.connections = connections;
+            return this;
+        }
+
+        /**
+         * Set maximal number of handshakes in progress.
+         * <p/>
+         * Default value is {@value #DEFAULT_MAX_CONCURRENT_HANDSHAKES}.
+         *
+         * @param maxConcurrentHandshakes maximal number of handshakes in progress.
+         * @return updated builder.
+         */
+        public Builder maxConcurrentHandshakes(int maxConcurrentHandshakes) {
+            this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+            return this;
+        }
+
+        /**
+         * Set maximal number of connections started per second.
+         * <p/>
+         * Value {@code 0} (default) means no limit.
+         *
+         * @param connectionsPerSecond maximal number of started connections per second.
+         * @return updated builder.
+         */
+        public Builder connectionsPerSecond(int connectionsPerSecond) {
+            this.connectionsPerSecond = connectionsPerSecond;
+            return this;
+        }
+
+        /**
+         * Set listener for connection progress.
+         *
+         * @param listener progress listener.
+         * @return updated builder.
+         */
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Validate the endpoint and URIs and start opening connections.
+         * <p/>
+         * Method returns immediately; connections are opened asynchronously.
+         *
+         * @return started bulk connector.
+         * @throws DeploymentException if the endpoint or some of the URIs is not valid.
+         */
+        public BulkConnector connect() throws DeploymentException {
+            if (uris.isEmpty()) {
+                throw new DeploymentException("At least one URI has to be set.");
+            }
+            if (maxConcurrentHandshakes < 1) {
+                throw new IllegalArgumentException("maxConcurrentHandshakes has to be positive.");
+            }
+            if (connectionsPerSecond < 0) {
+                throw new IllegalArgumentException("connectionsPerSecond cannot be negative.");
+            }
+
+            final Map<URI, TyrusEndpointWrapper> clientEndpoints = new HashMap<URI, TyrusEndpointWrapper>();
+
+            for (URI uri : uris) {
+                if (clientEndpoints.containsKey(uri)) {
+                    continue;
+                }
+
+                clientManager.validateUri(uri.toString());
+
+                final ErrorCollector collector = new ErrorCollector();
+                final TyrusEndpointWrapper clientEndpoint = clientManager.createClientEndpoint(endpoint, config, uri.toString(), collector);
+                if (!collector.isEmpty()) {
+                    throw collector.composeComprehensiveException();
+                }
+
+                clientEndpoints.put(uri, clientEndpoint);
+            }
+
+            final BulkConnector connector = new BulkConnector(clientManager, Collections.unmodifiableList(new ArrayList<URI>(uris)),
+                    clientEndpoints, connections < 0 ? uris.size() : connections, maxConcurrentHandshakes,
+                    connectionsPerSecond, listener);
+            connector.start();
+            return connector;
+        }
+    }
+}
@@ -47,12 +47,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.AbstractExecutorService;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
 import javax.websocket.ClientEndpoint;
@@ -70,6 +73,7 @@ import org.glassfish.tyrus.core.ErrorCollector;
 import org.glassfish.tyrus.core.ReflectionHelper;
 import org.glassfish.tyrus.core.TyrusEndpointWrapper;
 import org.glassfish.tyrus.core.TyrusFuture;
+import org.glassfish.tyrus.core.TyrusWebSocketEngine;
 import org.glassfish.tyrus.spi.ClientContainer;
 import org.glassfish.tyrus.spi.ClientEngine;
 
@@ -88,6 +92,52 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
      */
     public static final String HANDSHAKE_TIMEOUT = "org.glassfish.tyrus.client.ClientManager.ContainerTimeout";
 
+    /**
+     * Property usable in {@link #getProperties()}.
+     * <p/>
+     * Value must be {@link ReconnectHandler} instance. When set, sessions closed by the server or lost due to network
+     * failure are reconnected as decided by the handler. Sessions closed locally - by the application or by the
+     * container (idle timeout, heartbeat) - are not reconnected. Every reconnected session is reported to the endpoint
+     * by another invocation of onOpen method. Not set by default.
+     *
+     * @see #stopReconnecting(Session)
+     */
+    public static final String RECONNECT_HANDLER = "org.glassfish.tyrus.client.ClientManager.ReconnectHandler";
+
+    /**
+     * Property usable in {@link #getProperties()}.
+     * <p/>
+     * Value must be {@code int} and represents maximal number of asynchronously sent messages kept per connection for
+     * replay after reconnect. Messages which were not written before the session was closed are sent to the reconnected
+     * session after its onOpen method returns. Applies only when {@link #RECONNECT_HANDLER} is set. Default value is 0
+     * (replay disabled).
+     */
+    public static final String REPLAY_BUFFER_SIZE = "org.glassfish.tyrus.client.ClientManager.ReplayBufferSize";
+
+    /**
+     * Property usable in {@link #getProperties()}.
+     * <p/>
+     * Value must be {@code int} and represents maximal age in milliseconds of message replayed after reconnect, see
+     * {@link #REPLAY_BUFFER_SIZE}. Older messages are dropped. Default value is 10000 (10 seconds).
+     */
+    public static final String REPLAY_MAX_AGE = "org.glassfish.tyrus.client.ClientManager.ReplayMaxAge";
+
+    /**
+     * Session user property key of resume token.
+     * <p/>
+     * When a session with this {@link String} user property is reconnected, the token is sent in
+     * {@link #RESUME_TOKEN_HEADER} handshake request header and set as the same user property of the new session before
+     * its onOpen method is invoked, so the endpoint can resume the previous conversation.
+     *
+     * @see #RECONNECT_HANDLER
+     */
+    public static final String RESUME_TOKEN = "org.glassfish.tyrus.client.ClientManager.ResumeToken";
+
+    /**
+     * Handshake request header carrying the {@link #RESUME_TOKEN}.
+     */
+    public static final String RESUME_TOKEN_HEADER = "Tyrus-Resume-Token";
+
     /**
      * Default {@link org.glassfish.tyrus.spi.ServerContainerFactory} class name.
      * <p/>
@@ -99,6 +149,9 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
     private final ClientContainer container;
     private final ComponentProviderService componentProvider;
     private final Map<String, Object> properties = new HashMap<String, Object>();
+    // sessions of reconnected connections, see stopReconnecting(Session).
+    private final Map<Session, ReconnectContext> reconnectContexts =
+            Collections.synchronizedMap(new WeakHashMap<Session, ReconnectContext>());
 
     private volatile long defaultAsyncSendTimeout;
     private volatile long defaultMaxSessionIdleTimeout;
@@ -323,6 +376,20 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
         return connectToServer(obj, null, path.toString(), getExecutorService());
     }
 
+    /**
+     * Create {@link BulkConnector} builder for opening many connections of the provided endpoint.
+     * <p/>
+     * Connections are opened asynchronously with bounded number of concurrent handshakes and optional rate limit.
+     * Endpoint metadata is computed only once per URI and shared by all connections.
+     *
+     * @param endpoint the endpoint - {@link Endpoint} instance or class, annotated instance or class. Annotated class
+     *                 is instantiated for each connection.
+     * @return new {@link BulkConnector.Builder}.
+     */
+    public BulkConnector.Builder bulkConnector(Object endpoint) {
+        return new BulkConnector.Builder(this, endpoint);
+    }
+
     /**
      * Connects client endpoint o to the specified url.
      *
@@ -336,6 +403,58 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
         final Map<String, Object> copiedProperties = new HashMap<String, Object>(properties);
         final TyrusFuture<Session> future = new TyrusFuture<Session>();
 
+        validateUri(url);
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final ErrorCollector collector = new ErrorCollector();
+                final TyrusEndpointWrapper clientEndpoint;
+
+                try {
+                    clientEndpoint = createClientEndpoint(o, configuration, url, collector);
+                } catch (DeploymentException e) {
+                    future.setFailure(e);
+                    return;
+                }
+
+                // fail fast when there is some issue with client endpoint.
+                if (!collector.isEmpty()) {
+                    future.setFailure(collector.composeComprehensiveException());
+                    return;
+                }
+
+                connect(clientEndpoint, url, copiedProperties, future);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Stop reconnecting the connection represented by given session, see {@link #RECONNECT_HANDLER}.
+     * <p/>
+     * Any session of the connection can be passed, including already closed one. Scheduled reconnect attempt is
+     * cancelled and no other attempt is made; session opened by an attempt which was already in progress is closed.
+     * Open session is not closed by this method. Sessions closed by the application are never reconnected, so there is
+     * no need to invoke this method before {@link Session#close()}.
+     *
+     * @param session session created by this client manager.
+     */
+    public void stopReconnecting(Session session) {
+        final ReconnectContext reconnectContext = reconnectContexts.get(session);
+        if (reconnectContext != null) {
+            reconnectContext.stop();
+        }
+    }
+
+    /**
+     * Check that given url is valid WebSocket endpoint URI.
+     *
+     * @param url url to be checked.
+     * @throws DeploymentException when the url is not valid.
+     */
+    void validateUri(String url) throws DeploymentException {
         try {
             URI uri = new URI(url);
             String scheme = uri.getScheme();
@@ -345,134 +464,241 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
         } catch (URISyntaxException e) {
             throw new DeploymentException("Incorrect WebSocket endpoint URI=" + url, e);
         }
+    }
+
+    /**
+     * Create client endpoint representation.
+     * <p/>
+     * Returned {@link TyrusEndpointWrapper} can be used for creating more connections to the same url; annotated
+     * endpoint class is instantiated for each connection.
+     *
+     * @param o             the endpoint - {@link Endpoint} instance or class, annotated instance or class.
+     * @param configuration of the endpoint, ignored for annotated endpoints.
+     * @param url           to which the client will connect.
+     * @param collector     error collector.
+     * @return client endpoint or {@code null} when it cannot be created, collector contains the reason.
+     * @throws DeploymentException when the endpoint wrapper cannot be created.
+     */
+    TyrusEndpointWrapper createClientEndpoint(Object o, ClientEndpointConfig configuration, String url, ErrorCollector collector)
+            throws DeploymentException {
+        ClientEndpointConfig config;
+        Endpoint endpoint;
+
+        if (o instanceof Endpoint) {
+            endpoint = (Endpoint) o;
+            config = configuration == null ? ClientEndpointConfig.Builder.create().build() : configuration;
+        } else if (o instanceof Class) {
+            if (Endpoint.class.isAssignableFrom((Class<?>) o)) {
+                //noinspection unchecked
+                endpoint = ReflectionHelper.getInstance(((Class<Endpoint>) o), collector);
+                config = configuration == null ? ClientEndpointConfig.Builder.create().build() : configuration;
+            } else if ((((Class<?>) o).getAnnotation(ClientEndpoint.class) != null)) {
+                endpoint = AnnotatedEndpoint.fromClass((Class) o, componentProvider, false, collector);
+                config = (ClientEndpointConfig) ((AnnotatedEndpoint) endpoint).getEndpointConfig();
+            } else {
+                collector.addException(new DeploymentException(String.format("Class %s in not Endpoint descendant and does not have @ClientEndpoint", ((Class<?>) o).getName())));
+                endpoint = null;
+                config = null;
+            }
+        } else {
+            endpoint = AnnotatedEndpoint.fromInstance(o, componentProvider, false, collector);
+            config = (ClientEndpointConfig) ((AnnotatedEndpoint) endpoint).getEndpointConfig();
+        }
 
-        final int handshakeTimeout = getHandshakeTimeout();
+        if (endpoint == null) {
+            return null;
+        }
 
-        executorService.submit(new Runnable() {
-            @Override
-            public void run() {
+        return new TyrusEndpointWrapper(endpoint, config, componentProvider,
+                webSocketContainer == null ? ClientManager.this : webSocketContainer, url, null);
+    }
 
-                ClientEndpointConfig config;
-                Endpoint endpoint;
-                final ErrorCollector collector = new ErrorCollector();
-                TyrusEndpointWrapper clientEndpoint;
+    /**
+     * Connect client endpoint to the specified url.
+     * <p/>
+     * Calling thread is used for opening the connection, handshake response is processed asynchronously. Provided future
+     * is completed when the handshake is completed, fails or times out.
+     *
+     * @param clientEndpoint client endpoint, see {@link #createClientEndpoint(Object, ClientEndpointConfig, String, ErrorCollector)}.
+     * @param url            to which the client will connect.
+     * @param properties     copy of container properties.
+     * @param future         future to be completed.
+     */
+    void connect(TyrusEndpointWrapper clientEndpoint, String url, Map<String, Object> properties, final TyrusFuture<Session> future) {
+        connect(clientEndpoint, url, properties, future, ReconnectContext.create(this, clientEndpoint, url, properties));
+    }
 
-                final CountDownLatch responseLatch = new CountDownLatch(1);
-                ClientManagerHandshakeListener listener;
-                TyrusClientEngine clientEngine;
+    /**
+     * Connect client endpoint to the specified url.
+     *
+     * @param clientEndpoint   client endpoint.
+     * @param url              to which the client will connect.
+     * @param properties       copy of container properties.
+     * @param future           future to be completed.
+     * @param reconnectContext reconnect state of the connection, {@code null} when the connection is not reconnected.
+     */
+    void connect(TyrusEndpointWrapper clientEndpoint, String url, Map<String, Object> properties, final TyrusFuture<Session> future,
+                 final ReconnectContext reconnectContext) {
+        final int handshakeTimeoutMs = getHandshakeTimeout(properties);
+        configureHeartbeat(properties);
 
-                try {
-                    if (o instanceof Endpoint) {
-                        endpoint = (Endpoint) o;
-                        config = configuration == null ? ClientEndpointConfig.Builder.create().build() : configuration;
-                    } else if (o instanceof Class) {
-                        if (Endpoint.class.isAssignableFrom((Class<?>) o)) {
-                            //noinspection unchecked
-                            endpoint = ReflectionHelper.getInstance(((Class<Endpoint>) o), collector);
-                            config = configuration == null ? ClientEndpointConfig.Builder.create().build() : configuration;
-                        } else if ((((Class<?>) o).getAnnotation(ClientEndpoint.class) != null)) {
-                            endpoint = AnnotatedEndpoint.fromClass((Class) o, componentProvider, false, collector);
-                            config = (ClientEndpointConfig) ((AnnotatedEndpoint) endpoint).getEndpointConfig();
-                        } else {
-                            collector.addException(new DeploymentException(String.format("Class %s in not Endpoint descendant and does not have @ClientEndpoint", ((Class<?>) o).getName())));
-                            endpoint = null;
-                            config = null;
-                        }
+        // handshake outcome is reported by the first of listener and timeout task, the other one is ignored.
+        final HandshakeTimeout handshakeTimeout = new HandshakeTimeout(future);
+
+        final TyrusClientEngine.ClientHandshakeListener listener = new TyrusClientEngine.ClientHandshakeListener() {
+
+            @Override
+            public void onSessionCreated(Session session) {
+                if (handshakeTimeout.complete()) {
+                    if (session.isOpen()) {
+                        session.setMaxBinaryMessageBufferSize(maxBinaryMessageBufferSize);
+                        session.setMaxTextMessageBufferSize(maxTextMessageBufferSize);
+                        session.setMaxIdleTimeout(defaultMaxSessionIdleTimeout);
+                    }
+                    if (reconnectContext != null) {
+                        reconnectContexts.put(session, reconnectContext);
+                        reconnectContext.onSessionOpened(session);
+                    }
+                    future.setResult(session);
+                }
+            }
+
+            @Override
+            public void onError(Throwable exception) {
+                if (handshakeTimeout.complete()) {
+                    // connection failures reported by the container are passed as they are.
+                    if (exception instanceof IOException || exception instanceof DeploymentException) {
+                        future.setFailure(exception);
                     } else {
-                        endpoint = AnnotatedEndpoint.fromInstance(o, componentProvider, false, collector);
-                        config = (ClientEndpointConfig) ((AnnotatedEndpoint) endpoint).getEndpointConfig();
+                        future.setFailure(new DeploymentException("Handshake error.", exception));
                     }
+                }
+            }
+        };
 
+        final TyrusClientEngine clientEngine = new TyrusClientEngine(clientEndpoint, listener, reconnectContext, properties);
+        handshakeTimeout.setClientEngine(clientEngine, reconnectContext);
 
-                    clientEndpoint = new TyrusEndpointWrapper(endpoint, config, componentProvider,
-                            webSocketContainer == null ? ClientManager.this : webSocketContainer, url, null);
+        try {
+            container.openClientSocket(url, (ClientEndpointConfig) clientEndpoint.getEndpointConfig(), properties, clientEngine);
+        } catch (IOException e) {
+            if (handshakeTimeout.complete()) {
+                future.setFailure(e);
+            }
+            return;
+        } catch (DeploymentException e) {
+            if (handshakeTimeout.complete()) {
+                future.setFailure(e);
+            }
+            return;
+        }
 
-                    // fail fast when there is some issue with client endpoint.
-                    if (!collector.isEmpty()) {
-                        future.setFailure(collector.composeComprehensiveException());
-                        return;
-                    }
+        // no thread waits for the handshake response; the future is completed by the listener or by the
+        // timeout task.
+        handshakeTimeout.schedule(getScheduledExecutorService(), handshakeTimeoutMs);
+    }
 
-                    listener = new ClientManagerHandshakeListener() {
+    /**
+     * Fails the connect future when the handshake is not completed in time.
+     * <p/>
+     * Task is cancelled and releases the connection when the handshake is completed, so connections are not retained by
+     * the scheduled executor until the timeout elapses.
+     */
+    private static class HandshakeTimeout implements Runnable {
 
-                        private volatile Session session;
-                        private volatile Throwable throwable;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
 
-                        @Override
-                        public void onSessionCreated(Session session) {
-                            this.session = session;
-                            responseLatch.countDown();
-                        }
+        private volatile TyrusFuture<Session> future;
+        private volatile TyrusClientEngine clientEngine = null;
+        private volatile ClientEngine.TimeoutHandler reconnectTimeoutHandler = null;
+        private volatile ScheduledFuture<?> scheduledFuture = null;
 
-                        @Override
-                        public void onError(Throwable exception) {
-                            throwable = exception;
-                            responseLatch.countDown();
-                        }
+        HandshakeTimeout(TyrusFuture<Session> future) {
+            this.future = future;
+        }
 
-                        @Override
-                        public Session getSession() {
-                            return session;
-                        }
+        /**
+         * Set the engine of the connection.
+         *
+         * @param clientEngine            engine; its {@link ClientEngine.TimeoutHandler} is invoked on timeout.
+         * @param reconnectTimeoutHandler invoked on timeout after the engine's handler, can be {@code null}.
+         */
+        void setClientEngine(TyrusClientEngine clientEngine, ClientEngine.TimeoutHandler reconnectTimeoutHandler) {
+            this.clientEngine = clientEngine;
+            this.reconnectTimeoutHandler = reconnectTimeoutHandler;
+        }
 
-                        @Override
-                        public Throwable getThrowable() {
-                            return throwable;
-                        }
-                    };
+        /**
+         * Schedule the timeout, unless the handshake was already completed.
+         *
+         * @param scheduledExecutorService executor used for scheduling.
+         * @param timeout                  handshake timeout in milliseconds.
+         */
+        void schedule(ScheduledExecutorService scheduledExecutorService, long timeout) {
+            if (completed.get()) {
+                return;
+            }
 
-                    clientEngine = new TyrusClientEngine(clientEndpoint, listener, copiedProperties);
+            scheduledFuture = scheduledExecutorService.schedule(this, timeout, TimeUnit.MILLISECONDS);
 
-                    container.openClientSocket(url, config, copiedProperties, clientEngine);
-                } catch (IOException e) {
-                    future.setFailure(e);
-                    return;
-                } catch (DeploymentException e) {
-                    future.setFailure(e);
-                    return;
-                }
+            // handshake might have been completed before the future was set.
+            if (completed.get()) {
+                scheduledFuture.cancel(false);
+            }
+        }
 
-                if (!collector.isEmpty()) {
-                    future.setFailure(collector.composeComprehensiveException());
-                    return;
-                }
+        /**
+         * Mark the handshake as completed and cancel the timeout.
+         *
+         * @return {@code true} when the handshake was not completed or timed out before; only the caller which gets
+         * {@code true} completes the connect future.
+         */
+        boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
 
-                try {
-                    final boolean countedDown = responseLatch.await(handshakeTimeout, TimeUnit.MILLISECONDS);
-                    if (countedDown) {
-                        assert config != null;
-                        final Throwable exception = listener.getThrowable();
-                        if (exception != null) {
-                            future.setFailure(new DeploymentException("Handshake error.", exception));
-                            return;
-                        }
-
-                        final Session session = listener.getSession();
-                        if (session.isOpen()) {
-                            session.setMaxBinaryMessageBufferSize(maxBinaryMessageBufferSize);
-                            session.setMaxTextMessageBufferSize(maxTextMessageBufferSize);
-                            session.setMaxIdleTimeout(defaultMaxSessionIdleTimeout);
-                        }
-                        future.setResult(session);
-                        return;
-                    } else {
-                        // timeout!
-                        final ClientEngine.TimeoutHandler timeoutHandler = clientEngine.getTimeoutHandler();
-                        if (timeoutHandler != null) {
-                            timeoutHandler.handleTimeout();
-                        }
-                    }
-                } catch (Exception e) {
-                    future.setFailure(new DeploymentException("Handshake response not received.", e));
+            final ScheduledFuture<?> scheduledFuture = this.scheduledFuture;
+            if (scheduledFuture != null) {
+                scheduledFuture.cancel(false);
+            }
+            future = null;
+            clientEngine = null;
+            reconnectTimeoutHandler = null;
+            return true;
+        }
+
+        @Override
+        public void run() {
+            final TyrusFuture<Session> future = this.future;
+            final TyrusClientEngine clientEngine = this.clientEngine;
+            final ClientEngine.TimeoutHandler reconnectTimeoutHandler = this.reconnectTimeoutHandler;
+
+            if (completed.compareAndSet(false, true)) {
+                final ClientEngine.TimeoutHandler timeoutHandler = clientEngine.getTimeoutHandler();
+                if (timeoutHandler != null) {
+                    timeoutHandler.handleTimeout();
+                }
+                if (reconnectTimeoutHandler != null) {
+                    reconnectTimeoutHandler.handleTimeout();
                 }
                 future.setFailure(new DeploymentException("Handshake response not received."));
             }
-        });
+        }
+    }
 
-        return future;
+    private void configureHeartbeat(Map<String, Object> properties) {
+        final Object interval = properties.get(TyrusWebSocketEngine.HEARTBEAT_INTERVAL);
+        if (interval instanceof Integer) {
+            final Object maxMissedPongs = properties.get(TyrusWebSocketEngine.HEARTBEAT_MAX_MISSED_PONGS);
+            final BaseContainer container = webSocketContainer instanceof BaseContainer ? (BaseContainer) webSocketContainer : this;
+
+            container.setHeartbeat((Integer) interval, maxMissedPongs instanceof Integer
+                    ? (Integer) maxMissedPongs : TyrusWebSocketEngine.DEFAULT_HEARTBEAT_MAX_MISSED_PONGS);
+        }
     }
 
-    private int getHandshakeTimeout() {
+    private static int getHandshakeTimeout(Map<String, Object> properties) {
         final Object o = properties.get(HANDSHAKE_TIMEOUT);
         if (o != null && o instanceof Integer) {
             return (Integer) o;
@@ -482,12 +708,6 @@ public class ClientManager extends BaseContainer implements WebSocketContainer {
         }
     }
 
-    private interface ClientManagerHandshakeListener extends TyrusClientEngine.ClientHandshakeListener {
-        Session getSession();
-
-        Throwable getThrowable();
-    }
-
     @Override
     public int getDefaultMaxBinaryMessageBufferSize() {
         if (webSocketContainer == null) {
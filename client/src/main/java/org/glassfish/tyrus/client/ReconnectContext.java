@@ -0,0 +1,306 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import org.glassfish.tyrus.core.TyrusEndpointWrapper;
+import org.glassfish.tyrus.core.TyrusFuture;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.spi.ClientEngine;
+
+/**
+ * State of one client connection which is reconnected by {@link ReconnectHandler}.
+ * <p/>
+ * Instance lives across all sessions which represent the same logical connection; it keeps the number of failed
+ * attempts, resume token and buffer of messages to be replayed. It is also the {@link ClientEngine.TimeoutHandler} of
+ * its connection attempts - reconnect attempt which timed out is reported to
+ * {@link ReconnectHandler#onConnectFailure(Exception)} as {@link TimeoutException}.
+ *
+ * @author agent (agent at local)
+ */
+class ReconnectContext implements TyrusClientEngine.SessionListener, ClientEngine.TimeoutHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(ReconnectContext.class.getName());
+
+    /**
+     * Default value of {@link ClientManager#REPLAY_MAX_AGE}.
+     */
+    private static final int DEFAULT_REPLAY_MAX_AGE = 10000;
+
+    private final ClientManager clientManager;
+    private final TyrusEndpointWrapper clientEndpoint;
+    private final String url;
+    private final Map<String, Object> properties;
+    private final ReconnectHandler handler;
+    private final ReplayBuffer replayBuffer;
+    private final AtomicInteger attempt = new AtomicInteger(0);
+
+    private volatile String resumeToken = null;
+    private volatile List<ReplayBuffer.Entry> toReplay = Collections.emptyList();
+    private volatile boolean stopped = false;
+    // set when the handshake of the current attempt timed out.
+    private volatile boolean timedOut = false;
+    private volatile ScheduledFuture<?> scheduledReconnect = null;
+
+    private ReconnectContext(ClientManager clientManager, TyrusEndpointWrapper clientEndpoint, String url,
+                             Map<String, Object> properties, ReconnectHandler handler, ReplayBuffer replayBuffer) {
+        this.clientManager = clientManager;
+        this.clientEndpoint = clientEndpoint;
+        this.url = url;
+        this.properties = properties;
+        this.handler = handler;
+        this.replayBuffer = replayBuffer;
+    }
+
+    /**
+     * Create context for new connection.
+     *
+     * @param clientManager  client manager used for reconnecting.
+     * @param clientEndpoint client endpoint.
+     * @param url            to which the client connects.
+     * @param properties     copy of container properties.
+     * @return new context or {@code null} when {@link ClientManager#RECONNECT_HANDLER} is not set.
+     */
+    static ReconnectContext create(ClientManager clientManager, TyrusEndpointWrapper clientEndpoint, String url,
+                                   Map<String, Object> properties) {
+        final Object handler = properties.get(ClientManager.RECONNECT_HANDLER);
+        if (!(handler instanceof ReconnectHandler)) {
+            return null;
+        }
+
+        final Object replayBufferSize = properties.get(ClientManager.REPLAY_BUFFER_SIZE);
+        final Object replayMaxAge = properties.get(ClientManager.REPLAY_MAX_AGE);
+
+        ReplayBuffer replayBuffer = null;
+        if (replayBufferSize instanceof Integer && (Integer) replayBufferSize > 0) {
+            replayBuffer = new ReplayBuffer((Integer) replayBufferSize,
+                    replayMaxAge instanceof Integer ? (Integer) replayMaxAge : DEFAULT_REPLAY_MAX_AGE);
+        }
+
+        return new ReconnectContext(clientManager, clientEndpoint, url, properties, (ReconnectHandler) handler, replayBuffer);
+    }
+
+    /**
+     * Prepare new session before the endpoint is notified about it.
+     *
+     * @param session created session.
+     */
+    @Override
+    public void onSessionOpening(Session session) {
+        final String token = resumeToken;
+        if (token != null) {
+            session.getUserProperties().put(ClientManager.RESUME_TOKEN, token);
+        }
+
+        if (replayBuffer != null && session instanceof TyrusSession) {
+            ((TyrusSession) session).setAsyncSendListener(replayBuffer);
+        }
+    }
+
+    /**
+     * Replay messages buffered before the previous session was closed.
+     *
+     * @param session opened session.
+     */
+    void onSessionOpened(Session session) {
+        attempt.set(0);
+
+        if (stopped) {
+            // attempt was in progress when reconnecting was stopped.
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Reconnecting was stopped."));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Session could not be closed.", e);
+            }
+            return;
+        }
+
+        if (replayBuffer == null) {
+            return;
+        }
+
+        final List<Object> messages = replayBuffer.getReplayable(toReplay);
+        toReplay = Collections.emptyList();
+
+        try {
+            final RemoteEndpoint.Async remote = session.getAsyncRemote();
+            for (Object message : messages) {
+                if (message instanceof String) {
+                    remote.sendText((String) message);
+                } else if (message instanceof ByteBuffer) {
+                    remote.sendBinary((ByteBuffer) message);
+                } else {
+                    remote.sendObject(message);
+                }
+            }
+        } catch (IllegalStateException e) {
+            LOGGER.log(Level.FINE, "Session closed during replay of buffered messages.", e);
+        }
+    }
+
+    /**
+     * Reconnect when the session was not closed locally and the {@link ReconnectHandler} allows it.
+     *
+     * @param session       closed session.
+     * @param closeReason   reason of the closure.
+     * @param closedLocally {@code true} when the session was closed by the application or by the container.
+     */
+    @Override
+    public void onSessionClosed(Session session, CloseReason closeReason, boolean closedLocally) {
+        if (closedLocally || stopped) {
+            return;
+        }
+
+        final Object token = session.getUserProperties().get(ClientManager.RESUME_TOKEN);
+        resumeToken = token instanceof String ? (String) token : null;
+
+        if (replayBuffer != null) {
+            toReplay = replayBuffer.drain();
+        }
+
+        if (handler.onDisconnect(closeReason)) {
+            scheduleReconnect();
+        }
+    }
+
+    /**
+     * Mark the handshake of the current attempt as timed out.
+     */
+    @Override
+    public void handleTimeout() {
+        timedOut = true;
+    }
+
+    /**
+     * Do not reconnect any more; scheduled attempt is cancelled.
+     */
+    void stop() {
+        stopped = true;
+
+        final ScheduledFuture<?> scheduledReconnect = this.scheduledReconnect;
+        if (scheduledReconnect != null) {
+            scheduledReconnect.cancel(false);
+        }
+    }
+
+    private void scheduleReconnect() {
+        if (stopped) {
+            return;
+        }
+
+        final int currentAttempt = attempt.incrementAndGet();
+        final int maxAttempts = handler.getMaxAttempts();
+
+        if (maxAttempts >= 0 && currentAttempt > maxAttempts) {
+            LOGGER.log(Level.FINE, String.format("Reconnect to %s abandoned after %d attempts.", url, maxAttempts));
+            return;
+        }
+
+        scheduledReconnect = clientManager.getScheduledExecutorService().schedule(new Runnable() {
+            @Override
+            public void run() {
+                // opening the connection may block, so it does not run in the scheduler thread.
+                clientManager.getExecutorService().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        reconnect();
+                    }
+                });
+            }
+        }, handler.getDelay(currentAttempt), TimeUnit.MILLISECONDS);
+
+        // stop() might have been invoked before the future was set.
+        if (stopped) {
+            scheduledReconnect.cancel(false);
+        }
+    }
+
+    private void reconnect() {
+        if (stopped) {
+            return;
+        }
+        timedOut = false;
+
+        final Map<String, Object> reconnectProperties = new HashMap<String, Object>(properties);
+        final String token = resumeToken;
+        if (token != null) {
+            reconnectProperties.put(ClientManager.RESUME_TOKEN, token);
+        } else {
+            reconnectProperties.remove(ClientManager.RESUME_TOKEN);
+        }
+
+        clientManager.connect(clientEndpoint, url, reconnectProperties, new TyrusFuture<Session>() {
+            @Override
+            public void setFailure(Throwable throwable) {
+                super.setFailure(throwable);
+
+                LOGGER.log(Level.FINE, String.format("Reconnect to %s failed.", url), throwable);
+
+                final Exception exception;
+                if (timedOut) {
+                    exception = new TimeoutException(throwable.getMessage());
+                    exception.initCause(throwable);
+                } else {
+                    exception = throwable instanceof Exception ? (Exception) throwable : new Exception(throwable);
+                }
+
+                if (handler.onConnectFailure(exception)) {
+                    scheduleReconnect();
+                }
+            }
+        }, this);
+    }
+}
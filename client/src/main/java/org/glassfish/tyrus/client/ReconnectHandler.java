@@ -0,0 +1,146 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.client;
+
+import java.util.Random;
+
+import javax.websocket.CloseReason;
+
+/**
+ * Decides whether and when closed client session should be reconnected.
+ * <p/>
+ * Registered using {@link ClientManager#RECONNECT_HANDLER} property. Sessions closed locally (by the application, idle
+ * timeout or heartbeat) are never reconnected and the handler is not consulted; reconnecting of a connection can be
+ * also stopped by {@link ClientManager#stopReconnecting(javax.websocket.Session)}. Default implementation reconnects
+ * after every closure except {@link CloseReason.CloseCodes#NORMAL_CLOSURE} and keeps trying until the connection is
+ * opened or maximal number of attempts is reached. Delay before each attempt uses exponential backoff with full jitter: the
+ * delay is a random value between zero and {@code min(maxDelay, baseDelay * 2^(attempt - 1))}, so clients
+ * disconnected at the same time (for example by server restart) do not reconnect at the same time.
+ * <p/>
+ * Methods are invoked from the client container threads and should not block.
+ *
+ * @author agent (agent at local)
+ */
+public class ReconnectHandler {
+
+    /**
+     * Default base delay in milliseconds.
+     */
+    public static final long DEFAULT_BASE_DELAY = 500;
+
+    /**
+     * Default maximal delay in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY = 30000;
+
+    private final Random random = new Random();
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int maxAttempts;
+
+    /**
+     * Create handler with default delays and unlimited number of attempts.
+     */
+    public ReconnectHandler() {
+        this(DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, -1);
+    }
+
+    /**
+     * Create handler.
+     *
+     * @param baseDelay   delay upper bound for the first attempt in milliseconds.
+     * @param maxDelay    maximal delay upper bound in milliseconds.
+     * @param maxAttempts maximal number of consecutive attempts, negative value means no limit.
+     */
+    public ReconnectHandler(long baseDelay, long maxDelay, int maxAttempts) {
+        if (baseDelay < 1) {
+            throw new IllegalArgumentException("baseDelay has to be positive.");
+        }
+        if (maxDelay < baseDelay) {
+            throw new IllegalArgumentException("maxDelay cannot be lower than baseDelay.");
+        }
+
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Invoked when the session is closed by the server or when the connection is lost.
+     *
+     * @param closeReason reason of the closure.
+     * @return {@code true} when the session should be reconnected, {@code false} otherwise.
+     */
+    public boolean onDisconnect(CloseReason closeReason) {
+        return closeReason.getCloseCode().getCode() != CloseReason.CloseCodes.NORMAL_CLOSURE.getCode();
+    }
+
+    /**
+     * Invoked when reconnect attempt fails.
+     *
+     * @param exception reason of the failure, {@link java.util.concurrent.TimeoutException} when the handshake timed out.
+     * @return {@code true} when another attempt should be made, {@code false} otherwise.
+     */
+    public boolean onConnectFailure(Exception exception) {
+        return true;
+    }
+
+    /**
+     * Get delay before reconnect attempt.
+     *
+     * @param attempt number of the attempt, starting with {@code 1}; reset when the connection is opened.
+     * @return delay in milliseconds.
+     */
+    public long getDelay(int attempt) {
+        // shift is limited to prevent overflow; maxDelay is reached long before.
+        final long ceiling = Math.min(maxDelay, baseDelay << Math.min(Math.max(attempt - 1, 0), 30));
+
+        return (long) (random.nextDouble() * (Math.max(ceiling, 0) + 1));
+    }
+
+    /**
+     * Get maximal number of consecutive reconnect attempts.
+     *
+     * @return maximal number of attempts, negative value means no limit.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
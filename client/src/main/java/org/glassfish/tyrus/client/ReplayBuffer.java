@@ -0,0 +1,144 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.websocket.SendResult;
+
+import org.glassfish.tyrus.core.AsyncSendListener;
+
+/**
+ * Bounded buffer of asynchronous messages which were not confirmed as sent.
+ * <p/>
+ * Messages are added when passed to the transport and removed when successfully written. When the buffer is full,
+ * oldest message is dropped.
+ *
+ * @author agent (agent at local)
+ */
+class ReplayBuffer implements AsyncSendListener {
+
+    private final int capacity;
+    private final long maxAge;
+
+    // guarded by this
+    private final ArrayDeque<Entry> entries;
+
+    /**
+     * Create new buffer.
+     *
+     * @param capacity maximal number of kept messages.
+     * @param maxAge   maximal age of replayed message in milliseconds.
+     */
+    ReplayBuffer(int capacity, long maxAge) {
+        this.capacity = capacity;
+        this.maxAge = maxAge;
+        this.entries = new ArrayDeque<Entry>();
+    }
+
+    @Override
+    public synchronized void onSend(Object message) {
+        if (entries.size() == capacity) {
+            entries.pollFirst();
+        }
+        entries.addLast(new Entry(message));
+    }
+
+    @Override
+    public synchronized void onResult(Object message, SendResult result) {
+        if (!result.isOK()) {
+            return;
+        }
+
+        // messages are written in order, so the confirmed one is usually the first.
+        final Iterator<Entry> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().message == message) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove all messages from the buffer.
+     *
+     * @return removed messages in the order they were sent.
+     */
+    synchronized List<Entry> drain() {
+        final List<Entry> result = new ArrayList<Entry>(entries);
+        entries.clear();
+        return result;
+    }
+
+    /**
+     * Get messages which are not older than configured maximal age.
+     *
+     * @param drained messages returned from {@link #drain()}.
+     * @return messages to be replayed.
+     */
+    List<Object> getReplayable(List<Entry> drained) {
+        final long now = System.currentTimeMillis();
+        final List<Object> result = new ArrayList<Object>(drained.size());
+
+        for (Entry entry : drained) {
+            if (now - entry.timestamp <= maxAge) {
+                result.add(entry.message);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Buffered message.
+     */
+    static class Entry {
+        private final Object message;
+        private final long timestamp = System.currentTimeMillis();
+
+        private Entry(Object message) {
+            this.message = message;
+        }
+    }
+}
@@ -43,9 +43,11 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,14 +59,17 @@ import javax.websocket.WebSocketContainer;
 import javax.websocket.server.HandshakeRequest;
 
 import org.glassfish.tyrus.core.ExtendedExtension;
+import org.glassfish.tyrus.core.ExtensionChain;
 import org.glassfish.tyrus.core.Frame;
 import org.glassfish.tyrus.core.FramingException;
 import org.glassfish.tyrus.core.Handshake;
+import org.glassfish.tyrus.core.HandshakeException;
 import org.glassfish.tyrus.core.ProtocolHandler;
 import org.glassfish.tyrus.core.RequestContext;
 import org.glassfish.tyrus.core.TyrusEndpoint;
 import org.glassfish.tyrus.core.TyrusEndpointWrapper;
 import org.glassfish.tyrus.core.TyrusExtension;
+import org.glassfish.tyrus.core.TyrusExtensionContext;
 import org.glassfish.tyrus.core.TyrusRemoteEndpoint;
 import org.glassfish.tyrus.core.TyrusWebSocket;
 import org.glassfish.tyrus.core.Utils;
@@ -81,7 +86,7 @@ import org.glassfish.tyrus.spi.Writer;
 /**
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
-public class TyrusClientEngine implements ClientEngine {
+public class TyrusClientEngine implements ClientEngine, ClientEngine.ConnectHandler {
 
     private static final Logger LOGGER = Logger.getLogger(TyrusClientEngine.class.getName());
     private static final int DEFAULT_INCOMING_BUFFER_SIZE = 4194315; // 4M (payload) + 11 (frame overhead)
@@ -92,6 +97,7 @@ public class TyrusClientEngine implements ClientEngine {
     private final ProtocolHandler protocolHandler = DEFAULT_VERSION.createHandler(true);
     private final TyrusEndpointWrapper endpointWrapper;
     private final ClientHandshakeListener listener;
+    private final SessionListener sessionListener;
     private final Map<String, Object> properties;
 
     private Handshake clientHandShake = null;
@@ -110,11 +116,35 @@ public class TyrusClientEngine implements ClientEngine {
      * @param properties      passed container properties, see {@link org.glassfish.tyrus.client.ClientManager#getProperties()}.
      */
     /* package */ TyrusClientEngine(TyrusEndpointWrapper endpointWrapper, ClientHandshakeListener listener, Map<String, Object> properties) {
+        this(endpointWrapper, listener, null, properties);
+    }
+
+    /**
+     * Create {@link org.glassfish.tyrus.spi.WebSocketEngine} instance which reports lifecycle of created session.
+     *
+     * @param endpointWrapper wrapped client endpoint.
+     * @param listener        used for reporting back the outcome of handshake.
+     * @param sessionListener notified when the session is being opened and when it is closed, can be {@code null}.
+     * @param properties      passed container properties, see {@link org.glassfish.tyrus.client.ClientManager#getProperties()}.
+     */
+    /* package */ TyrusClientEngine(TyrusEndpointWrapper endpointWrapper, ClientHandshakeListener listener,
+                                    SessionListener sessionListener, Map<String, Object> properties) {
         this.endpointWrapper = endpointWrapper;
         this.listener = listener;
+        this.sessionListener = sessionListener;
         this.properties = properties;
     }
 
+    @Override
+    public void onConnecting(TimeoutHandler timeoutHandler) {
+        this.timeoutHandler = timeoutHandler;
+    }
+
+    @Override
+    public void onConnectFailed(Throwable throwable) {
+        listener.onError(throwable);
+    }
+
     @Override
     public UpgradeRequest createUpgradeRequest(URI uri, TimeoutHandler timeoutHandler) {
         this.timeoutHandler = timeoutHandler;
@@ -126,6 +156,12 @@ public class TyrusClientEngine implements ClientEngine {
         clientHandShake.setSubProtocols(config.getPreferredSubprotocols());
 
         clientHandShake.prepareRequest();
+
+        final Object resumeToken = properties.get(ClientManager.RESUME_TOKEN);
+        if (resumeToken instanceof String) {
+            clientHandShake.getRequest().getHeaders().put(ClientManager.RESUME_TOKEN_HEADER, Collections.singletonList((String) resumeToken));
+        }
+
         config.getConfigurator().beforeRequest(clientHandShake.getRequest().getHeaders());
 
         return clientHandShake.getRequest();
@@ -137,24 +173,36 @@ public class TyrusClientEngine implements ClientEngine {
         try {
             clientHandShake.validateServerResponse(upgradeResponse);
 
-            final TyrusWebSocket tyrusWebSocket = new TyrusWebSocket(protocolHandler, new TyrusEndpoint(endpointWrapper));
+            final AtomicReference<Session> createdSession = new AtomicReference<Session>();
+            // set when the session is closed by the application or by the container (idle timeout, heartbeat).
+            final AtomicBoolean closedLocally = new AtomicBoolean(false);
+            final TyrusWebSocket tyrusWebSocket = new TyrusWebSocket(protocolHandler, new TyrusEndpoint(endpointWrapper) {
+                @Override
+                public void onClose(TyrusWebSocket socket, CloseReason closeReason) {
+                    super.onClose(socket, closeReason);
+                    final Session session = createdSession.get();
+                    if (session != null && sessionListener != null) {
+                        sessionListener.onSessionClosed(session, closeReason, closedLocally.get());
+                    }
+                }
+            });
             final List<Extension> handshakeResponseExtensions = TyrusExtension.fromHeaders(upgradeResponse.getHeaders().get(HandshakeRequest.SEC_WEBSOCKET_EXTENSIONS));
             final List<Extension> extensions = new ArrayList<Extension>();
 
-            final ExtendedExtension.ExtensionContext extensionContext = new ExtendedExtension.ExtensionContext() {
-
-                private final Map<String, Object> properties = new HashMap<String, Object>();
-
-                @Override
-                public Map<String, Object> getProperties() {
-                    return properties;
-                }
-            };
+            final ExtendedExtension.ExtensionContext extensionContext = new TyrusExtensionContext();
+            // reserved bits of the frame header used by already accepted extensions.
+            int reservedBits = 0;
 
             for (Extension responseExtension : handshakeResponseExtensions) {
                 for (Extension installedExtension : ((ClientEndpointConfig) endpointWrapper.getEndpointConfig()).getExtensions()) {
                     if (responseExtension.getName() != null && responseExtension.getName().equals(installedExtension.getName())) {
 
+                        final int extensionReservedBits = ExtensionChain.getReservedBits(installedExtension);
+                        if ((reservedBits & extensionReservedBits) != 0) {
+                            throw new HandshakeException(String.format("Extension '%s' uses the same reserved bits as another negotiated extension.", installedExtension.getName()));
+                        }
+                        reservedBits |= extensionReservedBits;
+
                         if (installedExtension instanceof ExtendedExtension) {
                             ((ExtendedExtension) installedExtension).onHandshakeResponse(extensionContext, responseExtension.getParameters());
                         }
@@ -165,16 +213,32 @@ public class TyrusClientEngine implements ClientEngine {
             }
 
             final Session sessionForRemoteEndpoint = endpointWrapper.createSessionForRemoteEndpoint(
-                    new TyrusRemoteEndpoint(tyrusWebSocket),
+                    new TyrusRemoteEndpoint(tyrusWebSocket) {
+                        @Override
+                        public void close(CloseReason closeReason) {
+                            closedLocally.set(true);
+                            super.close(closeReason);
+                        }
+                    },
                     upgradeResponse.getFirstHeaderValue(HandshakeRequest.SEC_WEBSOCKET_PROTOCOL),
                     extensions);
 
+            createdSession.set(sessionForRemoteEndpoint);
+            if (sessionListener != null) {
+                sessionListener.onSessionOpening(sessionForRemoteEndpoint);
+            }
+
             ((ClientEndpointConfig) endpointWrapper.getEndpointConfig()).getConfigurator().afterResponse(upgradeResponse);
 
+            final Object maxOutgoingFrameSize = properties.get(ClientContainer.MAX_OUTGOING_FRAME_SIZE);
+            if (maxOutgoingFrameSize instanceof Integer) {
+                protocolHandler.setMaxOutgoingFrameSize((Integer) maxOutgoingFrameSize);
+            }
+
             protocolHandler.setWriter(writer);
             protocolHandler.setWebSocket(tyrusWebSocket);
-            protocolHandler.setExtensions(extensions);
             protocolHandler.setExtensionContext(extensionContext);
+            protocolHandler.setExtensions(extensions);
 
             tyrusWebSocket.onConnect(this.clientHandShake.getRequest());
 
@@ -190,7 +254,7 @@ public class TyrusClientEngine implements ClientEngine {
 
             return new Connection() {
 
-                private final ReadHandler readHandler = new TyrusReadHandler(protocolHandler, tyrusWebSocket, incomingBufferSize, sessionForRemoteEndpoint.getNegotiatedExtensions(), extensionContext);
+                private final ReadHandler readHandler = new TyrusReadHandler(protocolHandler, tyrusWebSocket, incomingBufferSize);
 
                 @Override
                 public ReadHandler getReadHandler() {
@@ -216,13 +280,7 @@ public class TyrusClientEngine implements ClientEngine {
                     }
 
                     tyrusWebSocket.close(reason.getCloseCode().getCode(), reason.getReasonPhrase());
-
-                    for (Extension extension : sessionForRemoteEndpoint.getNegotiatedExtensions()) {
-                        if (extension instanceof ExtendedExtension) {
-                            ((ExtendedExtension) extension).destroy(extensionContext);
-                        }
-                    }
-
+                    protocolHandler.getExtensionChain().destroy();
                 }
             };
         } catch (Throwable e) {
@@ -256,31 +314,58 @@ public class TyrusClientEngine implements ClientEngine {
 
 
         /**
-         * Called when an error is found in handshake response.
+         * Called when an error is found in handshake response or when the connection cannot be established.
          *
-         * @param exception error found during handshake response check.
+         * @param exception error found during handshake response check or the reason of connection failure, see
+         *                  {@link ClientEngine.ConnectHandler#onConnectFailed(Throwable)}.
          */
         public void onError(Throwable exception);
     }
 
+    /**
+     * Notified about lifecycle of the session created by the engine.
+     *
+     * @see ReconnectContext
+     */
+    static interface SessionListener {
+
+        /**
+         * Invoked when the session is created, before {@link javax.websocket.Endpoint#onOpen(Session, javax.websocket.EndpointConfig)}
+         * is called.
+         *
+         * @param session created client session.
+         */
+        void onSessionOpening(Session session);
+
+        /**
+         * Invoked when the session is closed, after {@link javax.websocket.Endpoint#onClose(Session, CloseReason)}
+         * was called.
+         *
+         * @param session       closed client session.
+         * @param closeReason   reason of the closure.
+         * @param closedLocally {@code true} when the session was closed by this side - by the application or by the
+         *                      container (idle timeout, heartbeat), {@code false} when it was closed by the server or
+         *                      the connection was lost.
+         */
+        void onSessionClosed(Session session, CloseReason closeReason, boolean closedLocally);
+    }
+
     private static class TyrusReadHandler implements ReadHandler {
 
         private final int incomingBufferSize;
         private final ProtocolHandler handler;
         private final TyrusWebSocket webSocket;
-        private final List<Extension> negotiatedExtensions;
-        private final ExtendedExtension.ExtensionContext extensionContext;
+        private final ExtensionChain extensionChain;
+        private final boolean hasExtensionChain;
 
         private ByteBuffer buffer = null;
 
-        TyrusReadHandler(final ProtocolHandler protocolHandler, final TyrusWebSocket webSocket, int incomingBufferSize, List<Extension> negotiatedExtensions, ExtendedExtension.ExtensionContext extensionContext) {
+        TyrusReadHandler(final ProtocolHandler protocolHandler, final TyrusWebSocket webSocket, int incomingBufferSize) {
             this.handler = protocolHandler;
             this.webSocket = webSocket;
             this.incomingBufferSize = incomingBufferSize;
-            this.negotiatedExtensions = negotiatedExtensions;
-            this.extensionContext = extensionContext;
-
-            protocolHandler.setExtensionContext(extensionContext);
+            this.extensionChain = protocolHandler.getExtensionChain();
+            this.hasExtensionChain = !extensionChain.isEmpty();
         }
 
         @Override
@@ -308,14 +393,8 @@ public class TyrusClientEngine implements ClientEngine {
                             buffer = data;
                             break;
                         } else {
-                            for (Extension extension : negotiatedExtensions) {
-                                if (extension instanceof ExtendedExtension) {
-                                    try {
-                                        frame = ((ExtendedExtension) extension).processIncoming(extensionContext, frame);
-                                    } catch (Throwable t) {
-                                        LOGGER.log(Level.FINE, String.format("Extension '%s' threw an exception during processIncoming method invocation: \"%s\".", extension.getName(), t.getMessage()), t);
-                                    }
-                                }
+                            if (hasExtensionChain) {
+                                frame = extensionChain.processIncoming(frame);
                             }
 
                             handler.process(frame, webSocket);
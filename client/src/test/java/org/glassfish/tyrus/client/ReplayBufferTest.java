@@ -0,0 +1,118 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.client;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.websocket.SendResult;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ReplayBuffer} and {@link ReconnectHandler}.
+ *
+ * @author agent (agent at local)
+ */
+public class ReplayBufferTest {
+
+    @Test
+    public void testConfirmedMessagesAreRemoved() {
+        final ReplayBuffer buffer = new ReplayBuffer(10, 10000);
+
+        final String first = "first";
+        final String second = "second";
+        final String third = "third";
+
+        buffer.onSend(first);
+        buffer.onSend(second);
+        buffer.onSend(third);
+
+        buffer.onResult(first, new SendResult());
+        buffer.onResult(third, new SendResult(new IOException()));
+
+        final List<Object> replayable = buffer.getReplayable(buffer.drain());
+        assertEquals(2, replayable.size());
+        assertTrue(replayable.get(0) == second);
+        assertTrue(replayable.get(1) == third);
+
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    public void testOldestMessageIsDropped() {
+        final ReplayBuffer buffer = new ReplayBuffer(2, 10000);
+
+        buffer.onSend("1");
+        buffer.onSend("2");
+        buffer.onSend("3");
+
+        final List<Object> replayable = buffer.getReplayable(buffer.drain());
+        assertEquals(2, replayable.size());
+        assertEquals("2", replayable.get(0));
+        assertEquals("3", replayable.get(1));
+    }
+
+    @Test
+    public void testOldMessagesAreNotReplayed() throws InterruptedException {
+        final ReplayBuffer buffer = new ReplayBuffer(10, 50);
+
+        buffer.onSend("old");
+        final List<ReplayBuffer.Entry> drained = buffer.drain();
+
+        Thread.sleep(100);
+        assertTrue(buffer.getReplayable(drained).isEmpty());
+    }
+
+    @Test
+    public void testReconnectDelay() {
+        final ReconnectHandler handler = new ReconnectHandler(100, 1000, -1);
+
+        for (int attempt = 1; attempt < 100; attempt++) {
+            final long ceiling = Math.min(1000, 100L << Math.min(attempt - 1, 30));
+            for (int i = 0; i < 100; i++) {
+                final long delay = handler.getDelay(attempt);
+                assertTrue(delay >= 0 && delay <= ceiling);
+            }
+        }
+    }
+}
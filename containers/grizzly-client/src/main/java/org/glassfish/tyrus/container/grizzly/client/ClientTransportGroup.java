@@ -0,0 +1,101 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.container.grizzly.client;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+/**
+ * Transport shared by all connections created by one {@link GrizzlyClientContainer} (thus by one
+ * {@link javax.websocket.WebSocketContainer}).
+ * <p/>
+ * Selector threads act as event loops - connections are distributed among them by the transport - and the worker
+ * thread pool is shared by all connections. Transport is started when the first connection is being created and it
+ * is stopped when the last connection is closed.
+ *
+ * @author agent (agent at local)
+ */
+class ClientTransportGroup {
+
+    private static final Logger LOGGER = Logger.getLogger(ClientTransportGroup.class.getName());
+
+    private TCPNIOTransport transport;
+    private int connectionCount = 0;
+
+    /**
+     * Get the transport and register new connection. Every successful invocation must be followed by exactly one
+     * {@link #release()} invocation, when the connection is closed or cannot be established.
+     *
+     * @param workerThreadPoolConfig   worker thread pool config, used only when the transport is not running.
+     * @param selectorThreadPoolConfig selector thread pool config, used only when the transport is not running.
+     * @return started transport.
+     * @throws IOException when the transport cannot be started.
+     */
+    synchronized TCPNIOTransport acquire(ThreadPoolConfig workerThreadPoolConfig, ThreadPoolConfig selectorThreadPoolConfig) throws IOException {
+        if (transport == null) {
+            LOGGER.log(Level.FINE, "Starting client transport.");
+            final TCPNIOTransport newTransport = GrizzlyClientSocket.createTransport(workerThreadPoolConfig, selectorThreadPoolConfig, true);
+            newTransport.start();
+            transport = newTransport;
+        }
+
+        connectionCount++;
+        return transport;
+    }
+
+    /**
+     * Unregister connection; transport is stopped when there is no registered connection.
+     */
+    synchronized void release() {
+        if (--connectionCount == 0 && transport != null) {
+            LOGGER.log(Level.FINE, "Stopping client transport.");
+            try {
+                transport.shutdownNow();
+            } catch (IOException e) {
+                LOGGER.log(Level.INFO, "Exception thrown when closing Grizzly transport: " + e.getMessage(), e);
+            }
+            transport = null;
+        }
+    }
+}
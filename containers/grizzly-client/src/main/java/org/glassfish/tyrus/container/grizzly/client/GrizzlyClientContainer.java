@@ -73,8 +73,8 @@ public class GrizzlyClientContainer implements ClientContainer {
      */
     public static final String SHARED_CONTAINER_IDLE_TIMEOUT = "org.glassfish.tyrus.client.sharedContainerIdleTimeout";
 
-    //The same value Grizzly is using for socket timeout.
-    private static final long CLIENT_SOCKET_TIMEOUT = 30000;
+    // transport used by connections created by this container when the shared container is not enabled.
+    private final ClientTransportGroup transportGroup = new ClientTransportGroup();
 
     @Override
     public void openClientSocket(String url, ClientEndpointConfig cec,
@@ -89,6 +89,6 @@ public class GrizzlyClientContainer implements ClientContainer {
             throw new DeploymentException("Invalid URI.", e);
         }
 
-        new GrizzlyClientSocket(uri, CLIENT_SOCKET_TIMEOUT, clientEngine, properties).connect();
+        new GrizzlyClientSocket(uri, clientEngine, properties, transportGroup).connect();
     }
 }
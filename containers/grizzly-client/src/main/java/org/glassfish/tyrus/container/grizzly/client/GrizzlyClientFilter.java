@@ -105,7 +105,6 @@ class GrizzlyClientFilter extends BaseFilter {
     private final ClientEngine engine;
     private final URI uri;
     private final ClientEngine.TimeoutHandler timeoutHandler;
-    private final boolean sharedTransport;
 
     private final Queue<TaskProcessor.Task> taskQueue = new ConcurrentLinkedQueue<TaskProcessor.Task>();
 
@@ -119,14 +118,13 @@ class GrizzlyClientFilter extends BaseFilter {
      */
     /* package */ GrizzlyClientFilter(ClientEngine engine, boolean proxy,
                                       Filter sslFilter, HttpCodecFilter httpCodecFilter,
-                                      URI uri, ClientEngine.TimeoutHandler timeoutHandler, boolean sharedTransport) {
+                                      URI uri, ClientEngine.TimeoutHandler timeoutHandler) {
         this.engine = engine;
         this.proxy = proxy;
         this.sslFilter = sslFilter;
         this.httpCodecFilter = httpCodecFilter;
         this.uri = uri;
         this.timeoutHandler = timeoutHandler;
-        this.sharedTransport = sharedTransport;
     }
 
     // ----------------------------------------------------- Methods from Filter
@@ -184,7 +182,8 @@ class GrizzlyClientFilter extends BaseFilter {
 
         final org.glassfish.tyrus.spi.Connection connection = TYRUS_CONNECTION.get(ctx.getConnection());
         if (connection != null) {
-            taskQueue.add(new CloseTask(connection, new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null), ctx.getConnection()));
+            // connection closed without close frame exchange (RFC 6455, 7.1.5).
+            taskQueue.add(new CloseTask(connection, new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY, null), ctx.getConnection()));
             TaskProcessor.processQueue(taskQueue, null);
         }
         return ctx.getStopAction();
@@ -302,15 +301,8 @@ class GrizzlyClientFilter extends BaseFilter {
             @Override
             public void close() {
                 super.close();
-                try {
-                    if (sharedTransport) {
-                        connection.close();
-                    } else {
-                        connection.getTransport().shutdownNow();
-                    }
-                } catch (IOException e) {
-                    Logger.getLogger(GrizzlyClientFilter.class.getName()).log(Level.INFO, "Exception thrown during shutdown.", e);
-                }
+                // transport is stopped when its last connection is closed.
+                connection.close();
             }
         };
 
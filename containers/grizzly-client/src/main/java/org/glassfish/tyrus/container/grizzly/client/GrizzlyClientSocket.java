@@ -47,11 +47,11 @@ import java.net.SocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -60,8 +60,11 @@ import javax.websocket.DeploymentException;
 import org.glassfish.tyrus.core.Utils;
 import org.glassfish.tyrus.spi.ClientEngine;
 
+import org.glassfish.grizzly.CloseListener;
+import org.glassfish.grizzly.Closeable;
 import org.glassfish.grizzly.Connection;
-import org.glassfish.grizzly.GrizzlyFuture;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.ICloseType;
 import org.glassfish.grizzly.Processor;
 import org.glassfish.grizzly.filterchain.Filter;
 import org.glassfish.grizzly.filterchain.FilterChain;
@@ -120,7 +123,6 @@ public class GrizzlyClientSocket {
     private final List<Proxy> proxies = new ArrayList<Proxy>();
 
     private final URI uri;
-    private final long timeoutMs;
     private final SSLEngineConfigurator clientSSLEngineConfigurator;
     private final ThreadPoolConfig workerThreadPoolConfig;
     private final ThreadPoolConfig selectorThreadPoolConfig;
@@ -128,6 +130,7 @@ public class GrizzlyClientSocket {
     private final boolean sharedTransport;
     private final Integer sharedTransportTimeout;
     private final SocketAddress socketAddress;
+    private final ClientTransportGroup transportGroup;
 
     private static volatile TCPNIOTransport transport;
     private static final Object TRANSPORT_LOCK = new Object();
@@ -135,15 +138,17 @@ public class GrizzlyClientSocket {
     /**
      * Create new instance.
      *
-     * @param uri       endpoint address.
-     * @param timeoutMs TODO
-     * @param engine    engine used for this websocket communication
+     * @param uri            endpoint address.
+     * @param engine         engine used for this websocket communication
+     * @param properties     client properties.
+     * @param transportGroup transport used when the shared container is not enabled.
      */
-    GrizzlyClientSocket(URI uri, long timeoutMs,
+    GrizzlyClientSocket(URI uri,
                         ClientEngine engine,
-                        Map<String, Object> properties) {
+                        Map<String, Object> properties,
+                        ClientTransportGroup transportGroup) {
         this.uri = uri;
-        this.timeoutMs = timeoutMs;
+        this.transportGroup = transportGroup;
 
         SSLEngineConfigurator sslEngineConfigurator = (properties == null ? null : (SSLEngineConfigurator) properties.get(GrizzlyClientContainer.SSL_ENGINE_CONFIGURATOR));
         // if we are trying to access "wss" scheme and we don't have sslEngineConfigurator instance
@@ -185,13 +190,17 @@ public class GrizzlyClientSocket {
 
     /**
      * Connects to the given {@link URI}.
+     * <p/>
+     * Connection is opened asynchronously - this method returns as soon as the first connect attempt is started, no
+     * thread waits for the connection to be established. When the connection cannot be established with any proxy, the
+     * failure is reported to the engine, see {@link ClientEngine.ConnectHandler#onConnectFailed(Throwable)}.
+     *
+     * @throws IOException when the transport cannot be started.
      */
-    public void connect() throws IOException, DeploymentException {
-        TCPNIOTransport privateTransport = null;
-
+    public void connect() throws IOException {
         try {
             if (sharedTransport) {
-                privateTransport = getOrCreateSharedTransport(workerThreadPoolConfig, selectorThreadPoolConfig);
+                getOrCreateSharedTransport(workerThreadPoolConfig, selectorThreadPoolConfig);
             }
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Transport failed to start.", e);
@@ -201,95 +210,178 @@ public class GrizzlyClientSocket {
             throw e;
         }
 
-        for (Proxy proxy : proxies) {
+        final Connector connector = new Connector();
+        if (engine instanceof ClientEngine.ConnectHandler) {
+            ((ClientEngine.ConnectHandler) engine).onConnecting(connector);
+        }
+
+        connector.connectNext();
+    }
+
+    /**
+     * Connects to the remote endpoint directly or through the proxies from {@link #proxies}, one by one, until the
+     * connection is established.
+     * <p/>
+     * Also used as the {@link ClientEngine.TimeoutHandler} of the connection - when the handshake times out, the
+     * established connection is closed and connection established later is closed right away, so it does not leak.
+     */
+    private class Connector implements ClientEngine.TimeoutHandler {
+
+        private final Iterator<Proxy> proxyIterator = proxies.iterator();
+
+        // guarded by this
+        private Connection connection = null;
+        private boolean timedOut = false;
+
+        /**
+         * Start connect attempt using the next proxy.
+         *
+         * @throws IOException when the transport cannot be started.
+         */
+        private void connectNext() throws IOException {
+            final Proxy proxy = proxyIterator.next();
+
+            final TCPNIOTransport connectionTransport;
             try {
-                if (!sharedTransport) {
-                    privateTransport = createTransport(workerThreadPoolConfig, selectorThreadPoolConfig);
-                    privateTransport.start();
-                }
+                connectionTransport = sharedTransport ? transport : transportGroup.acquire(workerThreadPoolConfig, selectorThreadPoolConfig);
             } catch (IOException e) {
                 LOGGER.log(Level.SEVERE, "Transport failed to start.", e);
                 throw e;
             }
 
-            final TCPNIOConnectorHandler connectorHandler = new TCPNIOConnectorHandler(sharedTransport ? transport : privateTransport) {
-            };
-
-            connectorHandler.setSyncConnectTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+            // transport group has to be released exactly once per acquire.
+            final AtomicBoolean released = new AtomicBoolean(sharedTransport);
 
-            GrizzlyFuture<Connection> connectionGrizzlyFuture;
-
-            final TCPNIOTransport finalPrivateTransport = privateTransport;
-            final ClientEngine.TimeoutHandler timeoutHandler = new ClientEngine.TimeoutHandler() {
-                @Override
-                public void handleTimeout() {
-                    closeTransport(finalPrivateTransport);
-                }
+            final TCPNIOConnectorHandler connectorHandler = new TCPNIOConnectorHandler(connectionTransport) {
             };
 
+            final SocketAddress address;
             switch (proxy.type()) {
                 case DIRECT:
-                    connectorHandler.setProcessor(createFilterChain(engine, null, clientSSLEngineConfigurator, false, uri, timeoutHandler, sharedTransport, sharedTransportTimeout));
+                    connectorHandler.setProcessor(createFilterChain(engine, null, clientSSLEngineConfigurator, false, uri, this, sharedTransport, sharedTransportTimeout));
 
                     LOGGER.log(Level.CONFIG, String.format("Connecting to '%s' (no proxy).", uri));
-                    connectionGrizzlyFuture = connectorHandler.connect(socketAddress);
+                    address = socketAddress;
                     break;
                 default:
-                    connectorHandler.setProcessor(createFilterChain(engine, null, clientSSLEngineConfigurator, true, uri, timeoutHandler, sharedTransport, sharedTransportTimeout));
+                    connectorHandler.setProcessor(createFilterChain(engine, null, clientSSLEngineConfigurator, true, uri, this, sharedTransport, sharedTransportTimeout));
 
                     LOGGER.log(Level.CONFIG, String.format("Connecting to '%s' via proxy '%s'.", uri, proxy));
 
                     // default ProxySelector always returns proxies with unresolved addresses.
-                    SocketAddress address = proxy.address();
-                    if (address instanceof InetSocketAddress) {
-                        InetSocketAddress inetSocketAddress = (InetSocketAddress) address;
+                    SocketAddress proxyAddress = proxy.address();
+                    if (proxyAddress instanceof InetSocketAddress) {
+                        InetSocketAddress inetSocketAddress = (InetSocketAddress) proxyAddress;
                         if (inetSocketAddress.isUnresolved()) {
                             // resolve the address.
-                            address = new InetSocketAddress(inetSocketAddress.getHostName(), inetSocketAddress.getPort());
+                            proxyAddress = new InetSocketAddress(inetSocketAddress.getHostName(), inetSocketAddress.getPort());
                         }
                     }
-
-                    connectionGrizzlyFuture = connectorHandler.connect(address);
+                    address = proxyAddress;
                     break;
             }
 
+            connectorHandler.connect(address, new EmptyCompletionHandler<Connection>() {
+                @Override
+                public void completed(Connection result) {
+                    connected(result, released);
+                }
+
+                @Override
+                public void failed(Throwable throwable) {
+                    connectFailed(throwable, released);
+                }
+
+                @Override
+                public void cancelled() {
+                    connectFailed(new CancellationException("Connect attempt was cancelled."), released);
+                }
+            });
+        }
+
+        private void connected(Connection result, final AtomicBoolean released) {
+            result.addCloseListener(new CloseListener() {
+                @Override
+                public void onClosed(Closeable closeable, ICloseType type) {
+                    releaseTransport(released);
+                }
+            });
+
+            synchronized (this) {
+                if (!timedOut) {
+                    connection = result;
+                    LOGGER.log(Level.CONFIG, String.format("Connected to '%s'.", result.getPeerAddress()));
+                    return;
+                }
+            }
+
+            LOGGER.log(Level.CONFIG, String.format("Closing connection to '%s', handshake timed out.", result.getPeerAddress()));
+            result.closeSilently();
+        }
+
+        private void connectFailed(Throwable throwable, AtomicBoolean released) {
+            LOGGER.log(Level.CONFIG, String.format("Connection to '%s' failed.", uri), throwable);
+
             try {
-                final Connection connection = connectionGrizzlyFuture.get(timeoutMs, TimeUnit.MILLISECONDS);
-
-                LOGGER.log(Level.CONFIG, String.format("Connected to '%s'.", connection.getPeerAddress()));
-                return;
-            } catch (InterruptedException interruptedException) {
-                LOGGER.log(Level.CONFIG, String.format("Connection to '%s' failed.", uri), interruptedException);
-                closeTransport(privateTransport);
-            } catch (TimeoutException timeoutException) {
-                LOGGER.log(Level.CONFIG, String.format("Connection to '%s' failed.", uri), timeoutException);
-                closeTransport(privateTransport);
-            } catch (ExecutionException executionException) {
-                LOGGER.log(Level.CONFIG, String.format("Connection to '%s' failed.", uri), executionException);
-
-                IOException ioException = null;
-                final Throwable cause = executionException.getCause();
-                if ((cause != null) && (cause instanceof IOException)) {
-                    ioException = (IOException) cause;
-                    ProxySelector.getDefault().connectFailed(uri, socketAddress, ioException);
+                synchronized (this) {
+                    if (timedOut) {
+                        return;
+                    }
                 }
 
-                closeTransport(privateTransport);
+                if (throwable instanceof IOException) {
+                    ProxySelector.getDefault().connectFailed(uri, socketAddress, (IOException) throwable);
+                } else if (proxyIterator.hasNext()) {
+                    try {
+                        connectNext();
+                        return;
+                    } catch (IOException e) {
+                        throwable = e;
+                    }
+                }
 
-                if (ioException != null) {
-                    throw ioException;
+                final Throwable failure = throwable instanceof IOException
+                        ? throwable : new DeploymentException("Connection failed.", throwable);
+                if (engine instanceof ClientEngine.ConnectHandler) {
+                    ((ClientEngine.ConnectHandler) engine).onConnectFailed(failure);
                 }
+            } finally {
+                // next attempt already acquired the transport, it won't be stopped in between.
+                releaseTransport(released);
             }
         }
 
-        throw new DeploymentException("Connection failed.");
+        @Override
+        public void handleTimeout() {
+            final Connection established;
+
+            synchronized (this) {
+                timedOut = true;
+                established = connection;
+            }
+
+            if (established != null) {
+                established.close();
+            }
+        }
     }
 
-    private static TCPNIOTransport createTransport(ThreadPoolConfig workerThreadPoolConfig, ThreadPoolConfig selectorThreadPoolConfig) {
-        return createTransport(workerThreadPoolConfig, selectorThreadPoolConfig, false);
+    private void releaseTransport(AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            transportGroup.release();
+        }
     }
 
-    private static TCPNIOTransport createTransport(ThreadPoolConfig workerThreadPoolConfig, ThreadPoolConfig selectorThreadPoolConfig, boolean sharedTransport) {
+    /**
+     * Create new transport.
+     *
+     * @param workerThreadPoolConfig   worker thread pool config, can be {@code null}.
+     * @param selectorThreadPoolConfig selector thread pool config, can be {@code null}.
+     * @param sharedTransport          {@code true} when the transport is going to be used by more connections; thread
+     *                                 pools are not limited by default in that case.
+     * @return new transport.
+     */
+    static TCPNIOTransport createTransport(ThreadPoolConfig workerThreadPoolConfig, ThreadPoolConfig selectorThreadPoolConfig, boolean sharedTransport) {
 
         // TYRUS-188: lots of threads were created for every single client instance.
         TCPNIOTransportBuilder transportBuilder = TCPNIOTransportBuilder.newInstance();
@@ -308,7 +400,7 @@ public class GrizzlyClientSocket {
         if (selectorThreadPoolConfig == null) {
             if (sharedTransport) {
                 // if the container is shared, we don't want to limit thread pool size by default.
-                transportBuilder.setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig());
+                transportBuilder.setSelectorThreadPoolConfig(ThreadPoolConfig.defaultConfig());
             } else {
                 transportBuilder.setSelectorThreadPoolConfig(ThreadPoolConfig.defaultConfig().setMaxPoolSize(1).setCorePoolSize(1));
             }
@@ -430,21 +522,11 @@ public class GrizzlyClientSocket {
         clientFilterChainBuilder.add(httpCodecFilter);
 
         clientFilterChainBuilder.add(new GrizzlyClientFilter(engine, proxy,
-                sslFilter, httpCodecFilter, uri, timeoutHandler, sharedTransport));
+                sslFilter, httpCodecFilter, uri, timeoutHandler));
 
         return clientFilterChainBuilder.build();
     }
 
-    private void closeTransport(TCPNIOTransport transport) {
-        if (transport != null) {
-            try {
-                transport.shutdownNow();
-            } catch (IOException e) {
-                Logger.getLogger(GrizzlyClientSocket.class.getName()).log(Level.INFO, "Exception thrown when closing Grizzly transport: " + e.getMessage(), e);
-            }
-        }
-    }
-
     private static TCPNIOTransport getOrCreateSharedTransport(ThreadPoolConfig workerThreadPoolConfig, ThreadPoolConfig selectorThreadPoolConfig) throws IOException {
         synchronized (TRANSPORT_LOCK) {
             if (transport == null) {
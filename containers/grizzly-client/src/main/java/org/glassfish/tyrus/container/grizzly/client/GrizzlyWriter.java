@@ -40,11 +40,13 @@
 package org.glassfish.tyrus.container.grizzly.client;
 
 import java.nio.ByteBuffer;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.glassfish.tyrus.core.WriteQueue;
 import org.glassfish.tyrus.spi.CompletionHandler;
 import org.glassfish.tyrus.spi.Writer;
 import static org.glassfish.tyrus.container.grizzly.client.TaskProcessor.Task;
@@ -54,13 +56,40 @@ import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.EmptyCompletionHandler;
 import org.glassfish.grizzly.WriteHandler;
 import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
 
 /**
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
 public class GrizzlyWriter extends Writer {
 
-    private final Queue<Task> taskQueue = new ConcurrentLinkedQueue<Task>();
+    /**
+     * Maximal size of a write created by merging queued frames.
+     */
+    private static final int MAX_COALESCED_WRITE_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(GrizzlyWriter.class.getName());
+
+    // control frames and priority messages are written before data frames waiting for the connection to be writable.
+    private final WriteQueue<Task> taskQueue = new WriteQueue<Task>();
+
+    // only one thread processes the queue at a time, otherwise queued frames could be written out of order.
+    private final AtomicBoolean processing = new AtomicBoolean(false);
+
+    private volatile boolean closed = false;
+
+    private final WriteHandler writeHandler = new WriteHandler() {
+        @Override
+        public void onWritePossible() throws Exception {
+            processQueue();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.log(Level.WARNING, t.getMessage(), t);
+            failQueue(t);
+        }
+    };
 
     final org.glassfish.grizzly.Connection connection;
 
@@ -71,6 +100,11 @@ public class GrizzlyWriter extends Writer {
 
     @Override
     public void write(final ByteBuffer buffer, final CompletionHandler<ByteBuffer> completionHandler) {
+        write(buffer, completionHandler, false);
+    }
+
+    @Override
+    public void write(final ByteBuffer buffer, final CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
         if (!connection.isOpen()) {
             completionHandler.failed(new IllegalStateException("Connection is not open."));
             return;
@@ -101,51 +135,168 @@ public class GrizzlyWriter extends Writer {
             }
         };
 
-        taskQueue.add(new WriteTask(connection, message, emptyCompletionHandler));
-        TaskProcessor.processQueue(taskQueue, new WriterCondition(connection, taskQueue));
+        if (!taskQueue.offer(new WriteTask(connection, message, emptyCompletionHandler), buffer, priority)) {
+            emptyCompletionHandler.failed(new IllegalStateException("Close frame was already sent."));
+            return;
+        }
+        processQueue();
+    }
+
+    /**
+     * Process queued tasks while the connection can be written to.
+     * <p/>
+     * When the connection is not writable, processing is resumed by {@link #writeHandler}. When another thread is
+     * processing the queue, it will process also tasks added by the current thread.
+     */
+    private void processQueue() {
+        while (!taskQueue.isEmpty() && processing.compareAndSet(false, true)) {
+            final boolean writable;
+            try {
+                writable = drain();
+            } finally {
+                processing.set(false);
+            }
+
+            if (!writable && !closed) {
+                return;
+            }
+        }
     }
 
-    private static class WriterCondition implements TaskProcessor.Condition {
+    /**
+     * Execute queued tasks; consecutive writes are merged into one {@link CompositeBuffer} of at most
+     * {@link #MAX_COALESCED_WRITE_SIZE} bytes.
+     *
+     * When the writer was closed, tasks are executed even if the connection is not writable (Grizzly queues the writes
+     * internally), so the connection close is not postponed.
+     *
+     * @return {@code false} when the processing was stopped because the connection cannot be written to.
+     */
+    private boolean drain() {
+        Task task = null;
 
-        private final Connection connection;
-        private final Queue<Task> taskQueue;
+        while (true) {
+            if (!closed && !canWrite()) {
+                if (task != null) {
+                    // already removed from the queue, cannot be returned without breaking the order.
+                    task.execute();
+                }
+                return false;
+            }
 
-        private WriterCondition(Connection connection, Queue<Task> taskQueue) {
-            this.connection = connection;
-            this.taskQueue = taskQueue;
+            if (task == null) {
+                task = taskQueue.poll();
+                if (task == null) {
+                    return true;
+                }
+            }
+
+            if (!(task instanceof WriteTask)) {
+                task.execute();
+                task = null;
+                continue;
+            }
+
+            final WriteTask first = (WriteTask) task;
+            task = null;
+
+            List<WriteTask> batch = null;
+            int size = first.message.remaining();
+
+            while (size < MAX_COALESCED_WRITE_SIZE && taskQueue.peek() instanceof WriteTask) {
+                final Task next = taskQueue.poll();
+                if (!(next instanceof WriteTask) || size + ((WriteTask) next).message.remaining() > MAX_COALESCED_WRITE_SIZE) {
+                    task = next;
+                    break;
+                }
+
+                if (batch == null) {
+                    batch = new ArrayList<WriteTask>();
+                    batch.add(first);
+                }
+                batch.add((WriteTask) next);
+                size += ((WriteTask) next).message.remaining();
+            }
+
+            if (batch == null) {
+                first.execute();
+            } else {
+                write(batch);
+            }
+        }
+    }
+
+    /**
+     * Write multiple frames using single {@link Connection#write(Object, org.glassfish.grizzly.CompletionHandler)}.
+     *
+     * @param batch write tasks to be merged.
+     */
+    private void write(final List<WriteTask> batch) {
+        final CompositeBuffer compositeBuffer = CompositeBuffer.newBuffer(connection.getTransport().getMemoryManager());
+        for (WriteTask writeTask : batch) {
+            compositeBuffer.append(writeTask.message);
         }
 
-        @Override
-        public boolean isValid() {
-            if (!connection.canWrite()) {
-                try {
-                    connection.notifyCanWrite(new WriteHandler() {
-                        @Override
-                        public void onWritePossible() throws Exception {
-                            TaskProcessor.processQueue(taskQueue, WriterCondition.this);
-                        }
-
-                        @Override
-                        public void onError(Throwable t) {
-                            Logger.getLogger(GrizzlyWriter.class.getName()).log(Level.WARNING, t.getMessage(), t);
-                            // TODO: do what?
-                        }
-                    });
-                } catch (IllegalStateException e) {
-                    // ignore - WriteHandler was already registered.
+        //noinspection unchecked
+        connection.write(compositeBuffer, new EmptyCompletionHandler() {
+            @Override
+            public void cancelled() {
+                for (WriteTask writeTask : batch) {
+                    writeTask.completionHandler.cancelled();
                 }
+            }
 
-                return false;
+            @Override
+            public void completed(Object result) {
+                for (WriteTask writeTask : batch) {
+                    writeTask.completionHandler.completed(result);
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                for (WriteTask writeTask : batch) {
+                    writeTask.completionHandler.failed(throwable);
+                }
             }
+        });
+    }
 
-            return true;
+    /**
+     * Fail all queued writes, connection cannot be written to anymore. Queued close is still executed.
+     *
+     * @param t cause of the failure.
+     */
+    private void failQueue(Throwable t) {
+        Task task;
+        while ((task = taskQueue.poll()) != null) {
+            if (task instanceof WriteTask) {
+                ((WriteTask) task).completionHandler.failed(t);
+            } else {
+                task.execute();
+            }
         }
     }
 
+    private boolean canWrite() {
+        if (!connection.canWrite()) {
+            try {
+                connection.notifyCanWrite(writeHandler);
+            } catch (IllegalStateException e) {
+                // ignore - WriteHandler was already registered.
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
     @Override
     public void close() {
+        closed = true;
         taskQueue.add(new CloseTask(connection));
-        TaskProcessor.processQueue(taskQueue, null);
+        processQueue();
     }
 
     @Override
@@ -44,7 +44,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.logging.Logger;
 
+import javax.net.ssl.SSLSessionContext;
 import javax.websocket.DeploymentException;
 import javax.websocket.server.ServerEndpointConfig;
 
@@ -56,9 +58,14 @@ import org.glassfish.tyrus.spi.ServerContainer;
 import org.glassfish.tyrus.spi.ServerContainerFactory;
 import org.glassfish.tyrus.spi.WebSocketEngine;
 
+import org.glassfish.grizzly.Grizzly;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.StaticHttpHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
 import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
 
@@ -84,6 +91,120 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
      */
     public static final String SELECTOR_THREAD_POOL_CONFIG = "org.glassfish.tyrus.container.grizzly.server.selectorThreadPoolConfig";
 
+    /**
+     * Server-side property to enable low latency IO mode.
+     * <p/>
+     * When enabled, incoming data is parsed and delivered to endpoints directly on the selector threads
+     * ({@link SameThreadIOStrategy}), which removes the hand-off from selector thread to worker thread for every read.
+     * {@link #TCP_NO_DELAY} is enabled and number of selector threads is set to number of available processors, unless
+     * set explicitly by {@link #TCP_NO_DELAY} and {@link #SELECTOR_COUNT}.
+     * <p/>
+     * Endpoints must not block when this mode is enabled - blocking call (including blocking send of a large message
+     * to a slow client) stalls all connections served by the same selector thread. Worker thread pool configured by
+     * {@link #WORKER_THREAD_POOL_CONFIG} is not used. Streaming message handlers ({@link java.io.Reader} or
+     * {@link java.io.InputStream}) still run on the container executor, but parts of the message they did not read yet
+     * are buffered (up to {@link TyrusWebSocketEngine#INCOMING_BUFFER_SIZE}) instead of blocking the selector thread.
+     * <p/>
+     * Value is expected to be {@link Boolean}, default value is {@code false}.
+     */
+    public static final String LOW_LATENCY = "org.glassfish.tyrus.container.grizzly.server.lowLatency";
+
+    /**
+     * Server-side property to set {@code TCP_NODELAY} socket option of accepted connections.
+     * <p/>
+     * Value is expected to be {@link Boolean}. When not set, Grizzly default is used.
+     */
+    public static final String TCP_NO_DELAY = "org.glassfish.tyrus.container.grizzly.server.tcpNoDelay";
+
+    /**
+     * Server-side property to set size of socket receive buffer ({@code SO_RCVBUF}) of accepted connections.
+     * <p/>
+     * Value is expected to be positive {@link Integer}. When not set, Grizzly default is used.
+     */
+    public static final String SOCKET_RECEIVE_BUFFER_SIZE = "org.glassfish.tyrus.container.grizzly.server.socketReceiveBufferSize";
+
+    /**
+     * Server-side property to set size of socket send buffer ({@code SO_SNDBUF}) of accepted connections.
+     * <p/>
+     * Value is expected to be positive {@link Integer}. When not set, Grizzly default is used.
+     */
+    public static final String SOCKET_SEND_BUFFER_SIZE = "org.glassfish.tyrus.container.grizzly.server.socketSendBufferSize";
+
+    /**
+     * Server-side property to set number of selector threads.
+     * <p/>
+     * Value is expected to be positive {@link Integer}. When not set, Grizzly default is used, unless
+     * {@link #LOW_LATENCY} mode is enabled.
+     */
+    public static final String SELECTOR_COUNT = "org.glassfish.tyrus.container.grizzly.server.selectorCount";
+
+    /**
+     * Server-side property to enable TLS ({@code wss://} scheme).
+     * <p/>
+     * Value is expected to be instance of {@link SSLEngineConfigurator}; it is used in server mode regardless of its
+     * {@link SSLEngineConfigurator#isClientMode()} setting. When not set, TLS is not enabled.
+     * <p/>
+     * The configurator is copied, but its {@link javax.net.ssl.SSLContext} is shared with the caller; see
+     * {@link #SSL_SESSION_CACHE_SIZE} and {@link #SSL_SESSION_TIMEOUT}.
+     *
+     * @see #SSL_SESSION_CACHE_SIZE
+     * @see #SSL_SESSION_TIMEOUT
+     */
+    public static final String SSL_ENGINE_CONFIGURATOR = "org.glassfish.tyrus.container.grizzly.server.sslEngineConfigurator";
+
+    /**
+     * Server-side property to set maximal number of cached TLS sessions.
+     * <p/>
+     * Cached sessions are shared by all connections created using the same {@link javax.net.ssl.SSLContext}, returning
+     * clients can resume their session instead of performing full handshake. Value is expected to be {@link Integer},
+     * {@code 0} means no limit. When not set, JSSE default is used.
+     * <p/>
+     * The value is set on the server session context of the {@link javax.net.ssl.SSLContext} passed in
+     * {@link #SSL_ENGINE_CONFIGURATOR}, which is not owned by the container: the setting is kept after the container
+     * is stopped and affects every other server using the same {@code SSLContext}. Use a dedicated {@code SSLContext}
+     * when this is not desired.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionCacheSize(int)
+     */
+    public static final String SSL_SESSION_CACHE_SIZE = "org.glassfish.tyrus.container.grizzly.server.sslSessionCacheSize";
+
+    /**
+     * Server-side property to set timeout of cached TLS sessions in seconds.
+     * <p/>
+     * Value is expected to be {@link Integer}, {@code 0} means no limit. When not set, JSSE default is used.
+     * <p/>
+     * Like {@link #SSL_SESSION_CACHE_SIZE}, the value modifies the {@link javax.net.ssl.SSLContext} passed in
+     * {@link #SSL_ENGINE_CONFIGURATOR} and so applies to everything else using the same context.
+     *
+     * @see javax.net.ssl.SSLSessionContext#setSessionTimeout(int)
+     */
+    public static final String SSL_SESSION_TIMEOUT = "org.glassfish.tyrus.container.grizzly.server.sslSessionTimeout";
+
+    /**
+     * Server-side property to set number of independent acceptors listening on the server port.
+     * <p/>
+     * Every acceptor has its own transport - selector threads and worker thread pool (created from
+     * {@link #SELECTOR_THREAD_POOL_CONFIG} and {@link #WORKER_THREAD_POOL_CONFIG}, when set) - and all of them serve
+     * the same deployed endpoints. Acceptors are bound to the same port using {@code SO_REUSEPORT} socket option and the
+     * operating system distributes incoming connections among them, which increases the rate in which new connections
+     * can be accepted.
+     * <p/>
+     * {@code SO_REUSEPORT} is supported since JDK 9 and only on some platforms (Linux 3.9+, for example). When it is
+     * not available, warning is logged and single acceptor is used.
+     * <p/>
+     * Value is expected to be positive {@link Integer}, default value is {@code 1}.
+     */
+    public static final String ACCEPTOR_COUNT = "org.glassfish.tyrus.container.grizzly.server.acceptorCount";
+
+    /**
+     * Server-side property to set maximal length of the queue of incoming connections which were not yet accepted.
+     * <p/>
+     * Value is expected to be positive {@link Integer}. When not set, Grizzly default is used.
+     */
+    public static final String SERVER_CONNECTION_BACKLOG = "org.glassfish.tyrus.container.grizzly.server.serverConnectionBacklog";
+
+    private static final Logger LOGGER = Grizzly.logger(GrizzlyServerContainer.class);
+
     @Override
     public ServerContainer createContainer(Map<String, Object> properties) {
 
@@ -104,9 +225,14 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
             incomingBufferSize = null;
         }
 
+        final Integer maxOutgoingFrameSize = Utils.getProperty(localProperties, TyrusWebSocketEngine.MAX_OUTGOING_FRAME_SIZE, Integer.class);
+        final Integer heartbeatInterval = Utils.getProperty(localProperties, TyrusWebSocketEngine.HEARTBEAT_INTERVAL, Integer.class);
+        final Integer heartbeatMaxMissedPongs = Utils.getProperty(localProperties, TyrusWebSocketEngine.HEARTBEAT_MAX_MISSED_PONGS, Integer.class);
+        final boolean lowLatency = Boolean.TRUE.equals(Utils.getProperty(localProperties, LOW_LATENCY, Boolean.class));
+
         return new TyrusServerContainer((Set<Class<?>>) null) {
 
-            private final WebSocketEngine engine = new TyrusWebSocketEngine(this, incomingBufferSize);
+            private final TyrusWebSocketEngine engine = new TyrusWebSocketEngine(this, incomingBufferSize);
 
             private HttpServer server;
             private String contextPath;
@@ -131,6 +257,50 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
                 contextPath = rootPath;
                 server = HttpServer.createSimpleServer(rootPath, port);
 
+                if (maxOutgoingFrameSize != null) {
+                    engine.setMaxOutgoingFrameSize(maxOutgoingFrameSize);
+                }
+
+                if (heartbeatInterval != null) {
+                    engine.setHeartbeat(heartbeatInterval, heartbeatMaxMissedPongs == null
+                            ? TyrusWebSocketEngine.DEFAULT_HEARTBEAT_MAX_MISSED_PONGS : heartbeatMaxMissedPongs);
+                }
+
+                // selector threads must not wait for streaming message handlers.
+                engine.setBlockingStreaming(!lowLatency);
+
+                final NetworkListener listener = server.getListener("grizzly");
+                configureListener(listener);
+
+                final int acceptorCount = getAcceptorCount(listener.getTransport());
+                if (acceptorCount > 1) {
+                    listener.getTransport().setSelectorProvider(new ReusePortSelectorProvider(listener.getTransport().getSelectorProvider()));
+
+                    for (int i = 1; i < acceptorCount; i++) {
+                        final NetworkListener additionalListener = new NetworkListener("grizzly-" + i, listener.getHost(), port);
+                        configureListener(additionalListener);
+                        additionalListener.getTransport().setSelectorProvider(new ReusePortSelectorProvider(additionalListener.getTransport().getSelectorProvider()));
+                        server.addListener(additionalListener);
+                    }
+                }
+
+                final Object staticContentPath = localProperties.get(Server.STATIC_CONTENT_ROOT);
+                if (staticContentPath != null && !staticContentPath.toString().isEmpty()) {
+                    StaticHttpHandler staticHttpHandler = new StaticHttpHandler(staticContentPath.toString());
+                    server.getServerConfiguration().addHttpHandler(staticHttpHandler, "/");
+                }
+
+                server.start();
+                super.start(rootPath, port);
+            }
+
+            @Override
+            public void stop() {
+                super.stop();
+                server.shutdownNow();
+            }
+
+            private void configureListener(NetworkListener listener) {
                 ThreadPoolConfig workerThreadPoolConfig = Utils.getProperty(localProperties, WORKER_THREAD_POOL_CONFIG, ThreadPoolConfig.class);
                 ThreadPoolConfig selectorThreadPoolConfig = Utils.getProperty(localProperties, SELECTOR_THREAD_POOL_CONFIG, ThreadPoolConfig.class);
 
@@ -138,36 +308,100 @@ public class GrizzlyServerContainer extends ServerContainerFactory {
                 if (workerThreadPoolConfig != null || selectorThreadPoolConfig != null) {
                     TCPNIOTransportBuilder transportBuilder = TCPNIOTransportBuilder.newInstance();
                     if (workerThreadPoolConfig != null) {
-                        transportBuilder.setWorkerThreadPoolConfig(workerThreadPoolConfig);
+                        transportBuilder.setWorkerThreadPoolConfig(workerThreadPoolConfig.copy());
                     }
                     if (selectorThreadPoolConfig != null) {
-                        transportBuilder.setSelectorThreadPoolConfig(selectorThreadPoolConfig);
+                        transportBuilder.setSelectorThreadPoolConfig(selectorThreadPoolConfig.copy());
                     }
-                    transportBuilder.setIOStrategy(WorkerThreadIOStrategy.getInstance());
-                    server.getListener("grizzly").setTransport(transportBuilder.build());
+                    transportBuilder.setIOStrategy(lowLatency ? SameThreadIOStrategy.getInstance() : WorkerThreadIOStrategy.getInstance());
+                    listener.setTransport(transportBuilder.build());
                 } else {
-                    // if no configuration is set, just update IO Strategy to worker thread strat.
-                    server.getListener("grizzly").getTransport().setIOStrategy(WorkerThreadIOStrategy.getInstance());
+                    // if no configuration is set, just update IO Strategy to worker thread strat (or same thread
+                    // strat in low latency mode).
+                    listener.getTransport().setIOStrategy(lowLatency ? SameThreadIOStrategy.getInstance() : WorkerThreadIOStrategy.getInstance());
                 }
 
+                configureTransport(listener.getTransport(), lowLatency);
+
+                configureSsl(listener);
+
                 // idle timeout set to indefinite.
-                server.getListener("grizzly").getKeepAlive().setIdleTimeoutInSeconds(-1);
-                server.getListener("grizzly").registerAddOn(new WebSocketAddOn(this));
+                listener.getKeepAlive().setIdleTimeoutInSeconds(-1);
+                listener.registerAddOn(new WebSocketAddOn(this));
+            }
 
-                final Object staticContentPath = localProperties.get(Server.STATIC_CONTENT_ROOT);
-                if (staticContentPath != null && !staticContentPath.toString().isEmpty()) {
-                    StaticHttpHandler staticHttpHandler = new StaticHttpHandler(staticContentPath.toString());
-                    server.getServerConfiguration().addHttpHandler(staticHttpHandler, "/");
+            private int getAcceptorCount(TCPNIOTransport transport) {
+                final Integer acceptorCount = Utils.getProperty(localProperties, ACCEPTOR_COUNT, Integer.class);
+                if (acceptorCount == null || acceptorCount <= 1) {
+                    return 1;
                 }
 
-                server.start();
-                super.start(rootPath, port);
+                if (!ReusePortSelectorProvider.isSupported(transport.getSelectorProvider())) {
+                    LOGGER.warning(String.format("SO_REUSEPORT socket option is not supported, %s property is ignored.", ACCEPTOR_COUNT));
+                    return 1;
+                }
+
+                return acceptorCount;
             }
 
-            @Override
-            public void stop() {
-                super.stop();
-                server.shutdownNow();
+            private void configureSsl(NetworkListener listener) {
+                final SSLEngineConfigurator sslEngineConfigurator = Utils.getProperty(localProperties, SSL_ENGINE_CONFIGURATOR, SSLEngineConfigurator.class);
+                if (sslEngineConfigurator == null) {
+                    return;
+                }
+
+                // SSLContext is owned by the caller - session cache settings are applied to all its users.
+                final SSLSessionContext sessionContext = sslEngineConfigurator.getSslContext().getServerSessionContext();
+                if (sessionContext != null) {
+                    final Integer sessionCacheSize = Utils.getProperty(localProperties, SSL_SESSION_CACHE_SIZE, Integer.class);
+                    if (sessionCacheSize != null && sessionCacheSize >= 0) {
+                        sessionContext.setSessionCacheSize(sessionCacheSize);
+                    }
+
+                    final Integer sessionTimeout = Utils.getProperty(localProperties, SSL_SESSION_TIMEOUT, Integer.class);
+                    if (sessionTimeout != null && sessionTimeout >= 0) {
+                        sessionContext.setSessionTimeout(sessionTimeout);
+                    }
+                }
+
+                listener.setSecure(true);
+                listener.setSSLEngineConfig(sslEngineConfigurator.copy().setClientMode(false));
+            }
+
+            private void configureTransport(TCPNIOTransport transport, boolean lowLatency) {
+                Boolean tcpNoDelay = Utils.getProperty(localProperties, TCP_NO_DELAY, Boolean.class);
+                Integer selectorCount = Utils.getProperty(localProperties, SELECTOR_COUNT, Integer.class);
+
+                if (lowLatency) {
+                    if (tcpNoDelay == null) {
+                        tcpNoDelay = true;
+                    }
+                    if (selectorCount == null) {
+                        selectorCount = Runtime.getRuntime().availableProcessors();
+                    }
+                }
+
+                if (tcpNoDelay != null) {
+                    transport.setTcpNoDelay(tcpNoDelay);
+                }
+                if (selectorCount != null && selectorCount > 0) {
+                    transport.setSelectorRunnersCount(selectorCount);
+                }
+
+                final Integer receiveBufferSize = Utils.getProperty(localProperties, SOCKET_RECEIVE_BUFFER_SIZE, Integer.class);
+                if (receiveBufferSize != null && receiveBufferSize > 0) {
+                    transport.setReadBufferSize(receiveBufferSize);
+                }
+
+                final Integer sendBufferSize = Utils.getProperty(localProperties, SOCKET_SEND_BUFFER_SIZE, Integer.class);
+                if (sendBufferSize != null && sendBufferSize > 0) {
+                    transport.setWriteBufferSize(sendBufferSize);
+                }
+
+                final Integer serverConnectionBacklog = Utils.getProperty(localProperties, SERVER_CONNECTION_BACKLOG, Integer.class);
+                if (serverConnectionBacklog != null && serverConnectionBacklog > 0) {
+                    transport.setServerConnectionBackLog(serverConnectionBacklog);
+                }
             }
         };
     }
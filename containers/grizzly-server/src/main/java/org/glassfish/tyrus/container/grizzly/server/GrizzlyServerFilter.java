@@ -47,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -57,6 +58,8 @@ import org.glassfish.tyrus.container.grizzly.client.TaskProcessor;
 import org.glassfish.tyrus.core.RequestContext;
 import org.glassfish.tyrus.core.TyrusUpgradeResponse;
 import org.glassfish.tyrus.core.Utils;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.CompositeReadHandler;
 import org.glassfish.tyrus.spi.ReadHandler;
 import org.glassfish.tyrus.spi.ServerContainer;
 import org.glassfish.tyrus.spi.UpgradeRequest;
@@ -101,9 +104,10 @@ class GrizzlyServerFilter extends BaseFilter {
     private static final Attribute<org.glassfish.tyrus.spi.Connection> TYRUS_CONNECTION = Grizzly.DEFAULT_ATTRIBUTE_BUILDER
             .createAttribute(GrizzlyServerFilter.class.getName() + ".Connection");
 
-    private final ServerContainer serverContainer;
+    private static final Attribute<ConnectionTaskQueue> TASK_QUEUE = Grizzly.DEFAULT_ATTRIBUTE_BUILDER
+            .createAttribute(GrizzlyServerFilter.class.getName() + ".TaskQueue");
 
-    private final Queue<TaskProcessor.Task> taskQueue = new ConcurrentLinkedQueue<TaskProcessor.Task>();
+    private final ServerContainer serverContainer;
 
     // ------------------------------------------------------------ Constructors
 
@@ -133,8 +137,7 @@ class GrizzlyServerFilter extends BaseFilter {
 
         final org.glassfish.tyrus.spi.Connection connection = getConnection(ctx);
         if (connection != null) {
-            taskQueue.add(new CloseTask(connection, new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null), ctx.getConnection()));
-            TaskProcessor.processQueue(taskQueue, null);
+            execute(ctx.getConnection(), new CloseTask(connection, new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, null), ctx.getConnection()));
         }
         return ctx.getStopAction();
     }
@@ -194,29 +197,86 @@ class GrizzlyServerFilter extends BaseFilter {
         if (message.getContent().hasRemaining()) {
             // get the frame(s) content
 
-            Buffer buffer = message.getContent();
+            final Buffer buffer = message.getContent();
             message.recycle();
             final ReadHandler readHandler = tyrusConnection.getReadHandler();
-            if (!buffer.isComposite()) {
-                taskQueue.add(new ProcessTask(buffer.toByteBuffer(), readHandler));
+            final ConnectionTaskQueue taskQueue = TASK_QUEUE.get(ctx.getConnection());
+
+            if (taskQueue == null || taskQueue.enter()) {
+                // uncontended - no need to create a task.
+                try {
+                    handle(readHandler, buffer);
+                } finally {
+                    if (taskQueue != null) {
+                        taskQueue.exit();
+                    }
+                }
             } else {
-                final ByteBufferArray byteBufferArray = buffer.toByteBufferArray();
-                final ByteBuffer[] array = byteBufferArray.getArray();
+                taskQueue.execute(new ProcessTask(buffer, readHandler));
+            }
+        }
+        return ctx.getStopAction();
+    }
+
+    private org.glassfish.tyrus.spi.Connection getConnection(FilterChainContext ctx) {
+        return TYRUS_CONNECTION.get(ctx.getConnection());
+    }
 
+    /**
+     * Pass the data to the {@link ReadHandler} and dispose the buffer once the data is consumed.
+     * <p/>
+     * Composite buffers are passed to {@link CompositeReadHandler} without merging them.
+     *
+     * @param readHandler read handler of the connection.
+     * @param buffer      data read from the connection.
+     */
+    private static void handle(ReadHandler readHandler, final Buffer buffer) {
+        if (!buffer.isComposite()) {
+            readHandler.handle(buffer.toByteBuffer());
+            buffer.tryDispose();
+        } else {
+            final ByteBufferArray byteBufferArray = buffer.toByteBufferArray();
+            final ByteBuffer[] array = byteBufferArray.getArray();
+
+            if (readHandler instanceof CompositeReadHandler) {
+                ((CompositeReadHandler) readHandler).handle(array, 0, byteBufferArray.size(), new CompletionHandler<ByteBuffer[]>() {
+                    @Override
+                    public void completed(ByteBuffer[] result) {
+                        byteBufferArray.recycle();
+                        buffer.tryDispose();
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable) {
+                        byteBufferArray.recycle();
+                        buffer.tryDispose();
+                    }
+                });
+            } else {
                 for (int i = 0; i < byteBufferArray.size(); i++) {
-                    taskQueue.add(new ProcessTask(array[i], readHandler));
+                    readHandler.handle(array[i]);
                 }
 
                 byteBufferArray.recycle();
+                buffer.tryDispose();
             }
-
-            TaskProcessor.processQueue(taskQueue, null);
         }
-        return ctx.getStopAction();
     }
 
-    private org.glassfish.tyrus.spi.Connection getConnection(FilterChainContext ctx) {
-        return TYRUS_CONNECTION.get(ctx.getConnection());
+    /**
+     * Execute the task in order with other tasks of the same connection.
+     *
+     * @param grizzlyConnection connection the task belongs to.
+     * @param task              task to be executed.
+     */
+    private static void execute(Connection grizzlyConnection, TaskProcessor.Task task) {
+        final ConnectionTaskQueue taskQueue = TASK_QUEUE.get(grizzlyConnection);
+        if (taskQueue != null) {
+            taskQueue.execute(task);
+        } else {
+            // connection was already closed and its queue removed.
+            task.execute();
+        }
     }
 
     // --------------------------------------------------------- Private Methods
@@ -246,6 +306,7 @@ class GrizzlyServerFilter extends BaseFilter {
                     }
                 });
 
+                TASK_QUEUE.set(grizzlyConnection, new ConnectionTaskQueue());
                 TYRUS_CONNECTION.set(grizzlyConnection, connection);
 
                 grizzlyConnection.addCloseListener(new CloseListener() {
@@ -254,6 +315,7 @@ class GrizzlyServerFilter extends BaseFilter {
                         connection.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Close detected on connection"));
                         // might not be necessary, connection is going to be recycled/freed anyway
                         TYRUS_CONNECTION.remove(grizzlyConnection);
+                        TASK_QUEUE.remove(grizzlyConnection);
                     }
                 });
 
@@ -309,17 +371,17 @@ class GrizzlyServerFilter extends BaseFilter {
     }
 
     private class ProcessTask extends TaskProcessor.Task {
-        private final ByteBuffer buffer;
+        private final Buffer buffer;
         private final ReadHandler readHandler;
 
-        private ProcessTask(ByteBuffer buffer, ReadHandler readHandler) {
+        private ProcessTask(Buffer buffer, ReadHandler readHandler) {
             this.buffer = buffer;
             this.readHandler = readHandler;
         }
 
         @Override
         public void execute() {
-            readHandler.handle(buffer);
+            handle(readHandler, buffer);
         }
     }
 
@@ -340,4 +402,63 @@ class GrizzlyServerFilter extends BaseFilter {
             TYRUS_CONNECTION.remove(grizllyConnection);
         }
     }
+
+    /**
+     * Ordered task queue of one connection.
+     * <p/>
+     * Tasks are executed by at most one thread at a time, in the order in which they were submitted. When there is
+     * no other task being executed, the task is executed directly by the submitting thread without being queued;
+     * otherwise it is queued and executed by the thread which is currently processing the queue.
+     */
+    private static class ConnectionTaskQueue {
+
+        private final Queue<TaskProcessor.Task> queue = new ConcurrentLinkedQueue<TaskProcessor.Task>();
+
+        // number of submitted tasks which were not executed yet (including the one being executed).
+        private final AtomicInteger pending = new AtomicInteger(0);
+
+        void execute(TaskProcessor.Task task) {
+            if (enter()) {
+                // uncontended - no need to touch the queue.
+                executeSafely(task);
+            } else {
+                queue.add(task);
+                if (pending.getAndIncrement() != 0) {
+                    // processed by another thread.
+                    return;
+                }
+                executeSafely(queue.poll());
+            }
+
+            exit();
+        }
+
+        /**
+         * Try to get exclusive access without creating a task. When successful, caller has to call {@link #exit()}
+         * after its work is done.
+         *
+         * @return {@code true} when no other task is being executed.
+         */
+        boolean enter() {
+            return pending.compareAndSet(0, 1);
+        }
+
+        /**
+         * Release exclusive access obtained by {@link #enter()}, executing tasks queued in the meantime.
+         */
+        void exit() {
+            while (pending.decrementAndGet() != 0) {
+                executeSafely(queue.poll());
+            }
+        }
+
+        private static void executeSafely(TaskProcessor.Task task) {
+            try {
+                task.execute();
+            } catch (RuntimeException e) {
+                // keep processing the queue, other tasks would be stuck otherwise.
+                logger.log(Level.WARNING, e.getMessage(), e);
+            }
+        }
+    }
 }
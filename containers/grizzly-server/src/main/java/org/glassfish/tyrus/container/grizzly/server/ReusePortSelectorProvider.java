@@ -0,0 +1,183 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.container.grizzly.server;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Grizzly;
+
+/**
+ * {@link SelectorProvider} which sets {@code SO_REUSEPORT} socket option on all opened {@link ServerSocketChannel}s.
+ * <p/>
+ * Grizzly does not provide a hook for configuring server socket before it is bound, so this provider is used to
+ * allow more independent transports to listen on the same port; the kernel then distributes incoming connections among
+ * them. Everything else is delegated to the wrapped provider.
+ * <p/>
+ * {@code SO_REUSEPORT} is available since JDK 9 and only on some platforms, it is accessed reflectively; see
+ * {@link #isSupported(SelectorProvider)}.
+ *
+ * @author agent (agent at local)
+ */
+class ReusePortSelectorProvider extends SelectorProvider {
+
+    private static final Logger LOGGER = Grizzly.logger(ReusePortSelectorProvider.class);
+
+    private static final Object SO_REUSEPORT;
+    private static final Method SET_OPTION;
+    private static final Method SUPPORTED_OPTIONS;
+
+    static {
+        Object soReusePort = null;
+        Method setOption = null;
+        Method supportedOptions = null;
+
+        try {
+            final Class<?> socketOptionClass = Class.forName("java.net.SocketOption");
+            soReusePort = Class.forName("java.net.StandardSocketOptions").getField("SO_REUSEPORT").get(null);
+            setOption = ServerSocketChannel.class.getMethod("setOption", socketOptionClass, Object.class);
+            supportedOptions = ServerSocketChannel.class.getMethod("supportedOptions");
+        } catch (Exception e) {
+            // pre JDK 9 runtime.
+            LOGGER.log(Level.FINE, "SO_REUSEPORT socket option is not available.", e);
+            soReusePort = null;
+        }
+
+        SO_REUSEPORT = soReusePort;
+        SET_OPTION = setOption;
+        SUPPORTED_OPTIONS = supportedOptions;
+    }
+
+    private final SelectorProvider delegate;
+
+    /**
+     * Create new provider.
+     *
+     * @param delegate provider used to open all channels and selectors.
+     */
+    ReusePortSelectorProvider(SelectorProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Check whether {@code SO_REUSEPORT} can be set on server sockets created by given provider.
+     *
+     * @param provider provider to be checked.
+     * @return {@code true} when the option is supported by the runtime and the platform, {@code false} otherwise.
+     */
+    static boolean isSupported(SelectorProvider provider) {
+        if (SO_REUSEPORT == null) {
+            return false;
+        }
+
+        ServerSocketChannel channel = null;
+        try {
+            channel = provider.openServerSocketChannel();
+            return ((Set<?>) SUPPORTED_OPTIONS.invoke(channel)).contains(SO_REUSEPORT);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Cannot determine whether SO_REUSEPORT is supported.", e);
+            return false;
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // do nothing.
+                }
+            }
+        }
+    }
+
+    @Override
+    public ServerSocketChannel openServerSocketChannel() throws IOException {
+        final ServerSocketChannel channel = delegate.openServerSocketChannel();
+
+        try {
+            SET_OPTION.invoke(channel, SO_REUSEPORT, Boolean.TRUE);
+        } catch (InvocationTargetException e) {
+            channel.close();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IllegalAccessException e) {
+            channel.close();
+            throw new IOException(e);
+        }
+
+        return channel;
+    }
+
+    @Override
+    public DatagramChannel openDatagramChannel() throws IOException {
+        return delegate.openDatagramChannel();
+    }
+
+    @Override
+    public DatagramChannel openDatagramChannel(ProtocolFamily family) throws IOException {
+        return delegate.openDatagramChannel(family);
+    }
+
+    @Override
+    public Pipe openPipe() throws IOException {
+        return delegate.openPipe();
+    }
+
+    @Override
+    public AbstractSelector openSelector() throws IOException {
+        return delegate.openSelector();
+    }
+
+    @Override
+    public SocketChannel openSocketChannel() throws IOException {
+        return delegate.openSocketChannel();
+    }
+}
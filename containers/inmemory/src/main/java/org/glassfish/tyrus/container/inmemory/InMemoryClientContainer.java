@@ -42,9 +42,17 @@ package org.glassfish.tyrus.container.inmemory;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.websocket.ClientEndpointConfig;
 import javax.websocket.DeploymentException;
@@ -71,34 +79,41 @@ public class InMemoryClientContainer implements ClientContainer {
 
     public static final String SERVER_CONFIG = "org.glassfish.tyrus.container.inmemory.ServerConfig";
 
+    private static final Logger LOGGER = Logger.getLogger(InMemoryClientContainer.class.getName());
+
+    /**
+     * Server containers shared by all open connections created with the same {@link ServerApplicationConfig}
+     * instance. Container is stopped and removed when its last connection is closed.
+     */
+    private static final Map<ServerApplicationConfig, SharedServerContainer> SERVER_CONTAINERS =
+            new IdentityHashMap<ServerApplicationConfig, SharedServerContainer>();
+
     @Override
     public void openClientSocket(String url, ClientEndpointConfig cec, Map<String, Object> properties, ClientEngine clientEngine) throws DeploymentException, IOException {
         final UpgradeRequest upgradeRequest = clientEngine.createUpgradeRequest(URI.create(url), null);
 
-        final ServerApplicationConfig serverApplicationConfig = getServerApplicationConfig(cec);
-        final TyrusServerContainer tyrusServerContainer = new TyrusServerContainer(serverApplicationConfig) {
-            private final WebSocketEngine webSocketEngine = new TyrusWebSocketEngine(getClientManager());
-
-            @Override
-            public void register(Class<?> endpointClass) throws DeploymentException {
-                webSocketEngine.register(endpointClass, "/");
-            }
+        final SharedServerContainer sharedServerContainer = acquire(getServerApplicationConfig(cec));
+        // server container is released once per connection - when the handshake fails or the server side is closed.
+        final AtomicBoolean released = new AtomicBoolean(false);
+        boolean connected = false;
 
-            @Override
-            public void register(ServerEndpointConfig serverEndpointConfig) throws DeploymentException {
-                webSocketEngine.register(serverEndpointConfig, "/");
+        try {
+            connected = connect(upgradeRequest, sharedServerContainer, released, clientEngine);
+        } finally {
+            if (!connected) {
+                sharedServerContainer.release(released);
             }
+        }
+    }
 
-            @Override
-            public WebSocketEngine getWebSocketEngine() {
-                return webSocketEngine;
-            }
-        };
-
-        tyrusServerContainer.doneDeployment();
-        // placeholder values, not used anywhere in this case.
-        tyrusServerContainer.start("/inmemory", 0);
-
+    /**
+     * Upgrade the connection using given server container.
+     *
+     * @return {@code true} when the connection was established.
+     */
+    private static boolean connect(UpgradeRequest upgradeRequest, final SharedServerContainer sharedServerContainer,
+                                   final AtomicBoolean released, ClientEngine clientEngine) throws DeploymentException {
+        final TyrusServerContainer tyrusServerContainer = sharedServerContainer.container;
         final TyrusUpgradeResponse upgradeResponse = new TyrusUpgradeResponse();
 
         StringBuilder sb = new StringBuilder();
@@ -121,8 +136,16 @@ public class InMemoryClientContainer implements ClientContainer {
                 throw new DeploymentException("");
             case SUCCESS:
 
-                final InMemoryWriter clientWriter = new InMemoryWriter();
-                final InMemoryWriter serverWriter = new InMemoryWriter();
+                // frames are delivered on the server container executor in both directions.
+                final ExecutorService executorService = tyrusServerContainer.getExecutorService();
+                final InMemoryWriter clientWriter = new InMemoryWriter(executorService);
+                final InMemoryWriter serverWriter = new InMemoryWriter(executorService) {
+                    @Override
+                    public void close() throws IOException {
+                        // server side is closed at the end of the closing handshake, no matter which side started it.
+                        sharedServerContainer.release(released);
+                    }
+                };
 
                 final Connection serverConnection = upgradeInfo.createConnection(serverWriter, null);
                 final Connection clientConnection = clientEngine.processResponse(upgradeResponse, clientWriter, null);
@@ -133,6 +156,99 @@ public class InMemoryClientContainer implements ClientContainer {
 
                 serverWriter.setReadHandler(clientConnection.getReadHandler());
                 clientWriter.setReadHandler(serverConnection.getReadHandler());
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Get server container for given {@link ServerApplicationConfig} and increase the number of its connections;
+     * container is created and started when there is no running container for that config instance.
+     * <p/>
+     * Every call has to be followed by {@link SharedServerContainer#release(AtomicBoolean)}.
+     *
+     * @param serverApplicationConfig server application config.
+     * @return started server container.
+     * @throws DeploymentException when the deployment of endpoints fails.
+     * @throws IOException         when the server container cannot be started.
+     */
+    private static SharedServerContainer acquire(ServerApplicationConfig serverApplicationConfig) throws DeploymentException, IOException {
+        synchronized (SERVER_CONTAINERS) {
+            SharedServerContainer sharedServerContainer = SERVER_CONTAINERS.get(serverApplicationConfig);
+            if (sharedServerContainer != null) {
+                sharedServerContainer.connections++;
+                return sharedServerContainer;
+            }
+
+            final TyrusServerContainer tyrusServerContainer = new TyrusServerContainer(serverApplicationConfig) {
+                private final WebSocketEngine webSocketEngine = new TyrusWebSocketEngine(getClientManager());
+
+                @Override
+                public void register(Class<?> endpointClass) throws DeploymentException {
+                    webSocketEngine.register(endpointClass, "/");
+                }
+
+                @Override
+                public void register(ServerEndpointConfig serverEndpointConfig) throws DeploymentException {
+                    webSocketEngine.register(serverEndpointConfig, "/");
+                }
+
+                @Override
+                public WebSocketEngine getWebSocketEngine() {
+                    return webSocketEngine;
+                }
+
+                @Override
+                public void stop() {
+                    super.stop();
+                    shutdownExecutors();
+                }
+            };
+
+            tyrusServerContainer.doneDeployment();
+            // placeholder values, not used anywhere in this case.
+            tyrusServerContainer.start("/inmemory", 0);
+
+            sharedServerContainer = new SharedServerContainer(serverApplicationConfig, tyrusServerContainer);
+            SERVER_CONTAINERS.put(serverApplicationConfig, sharedServerContainer);
+            return sharedServerContainer;
+        }
+    }
+
+    /**
+     * Server container with the number of connections which use it.
+     */
+    private static class SharedServerContainer {
+        private final ServerApplicationConfig serverApplicationConfig;
+        private final TyrusServerContainer container;
+        // guarded by SERVER_CONTAINERS.
+        private int connections = 1;
+
+        private SharedServerContainer(ServerApplicationConfig serverApplicationConfig, TyrusServerContainer container) {
+            this.serverApplicationConfig = serverApplicationConfig;
+            this.container = container;
+        }
+
+        /**
+         * Decrease the number of connections; container is stopped when it is not used by any connection.
+         *
+         * @param released flag of the released connection, the number of connections is decreased only when the flag
+         *                 was not set yet.
+         */
+        private void release(AtomicBoolean released) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+
+            synchronized (SERVER_CONTAINERS) {
+                if (--connections > 0) {
+                    return;
+                }
+                SERVER_CONTAINERS.remove(serverApplicationConfig);
+            }
+
+            container.stop();
         }
     }
 
@@ -145,23 +261,62 @@ public class InMemoryClientContainer implements ClientContainer {
         throw new DeploymentException("ServerApplicationConfig not present.");
     }
 
+    /**
+     * {@link Writer} which passes written buffers to the {@link ReadHandler} of the other side of the connection.
+     * <p/>
+     * Buffers are not copied; they are queued and passed to the read handler in the same order on the provided
+     * executor, so the writing thread is never blocked by processing of the data. Buffers written before the read
+     * handler is set are delivered after it is set.
+     */
+    private static class InMemoryWriter extends Writer implements Runnable {
 
-    private static class InMemoryWriter extends Writer {
-
-        private final List<ByteBuffer> cache = new ArrayList<ByteBuffer>();
+        private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<ByteBuffer>();
+        // number of queued buffers; plus one until the read handler is set.
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final Executor executor;
         private volatile ReadHandler readHandler = null;
+        // set when the executor rejected the task, no buffer can be delivered anymore.
+        private volatile RejectedExecutionException rejected = null;
+
+        private InMemoryWriter(Executor executor) {
+            this.executor = executor;
+        }
 
         @Override
         public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
-            synchronized (cache) {
-                if (readHandler == null) {
-                    cache.add(buffer);
-                } else {
-                    readHandler.handle(buffer);
-                }
+            final RejectedExecutionException localRejected = rejected;
+            if (localRejected != null) {
+                completionHandler.failed(localRejected);
+                return;
+            }
 
-                completionHandler.completed(buffer);
+            queue.offer(buffer);
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // server container was already stopped; pending counter is not decreased, so buffers written
+                    // concurrently are not delivered either, fail all following writes.
+                    rejected = e;
+                    queue.clear();
+                    completionHandler.failed(e);
+                    return;
+                }
             }
+
+            completionHandler.completed(buffer);
+        }
+
+        @Override
+        public void run() {
+            do {
+                final ByteBuffer buffer = queue.poll();
+                try {
+                    readHandler.handle(buffer);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, e.getMessage(), e);
+                }
+            } while (pending.decrementAndGet() > 0);
         }
 
         @Override
@@ -170,11 +325,9 @@ public class InMemoryClientContainer implements ClientContainer {
         }
 
         private void setReadHandler(ReadHandler readHandler) {
-            synchronized (cache) {
-                for (ByteBuffer buffer : cache) {
-                    readHandler.handle(buffer);
-                }
-                this.readHandler = readHandler;
+            this.readHandler = readHandler;
+            if (pending.decrementAndGet() > 0) {
+                executor.execute(this);
             }
         }
     }
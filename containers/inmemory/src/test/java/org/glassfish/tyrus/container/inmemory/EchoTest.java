@@ -41,11 +41,14 @@ package org.glassfish.tyrus.container.inmemory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.websocket.ClientEndpointConfig;
 import javax.websocket.ContainerProvider;
@@ -63,6 +66,7 @@ import javax.websocket.server.ServerEndpointConfig;
 import org.glassfish.tyrus.server.TyrusServerConfiguration;
 
 import org.junit.Test;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -106,6 +110,64 @@ public class EchoTest {
         assertTrue(messageLatch.await(1, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testSharedServerContainer() throws IOException, DeploymentException, InterruptedException {
+        final int connections = 100;
+        final CountDownLatch messageLatch = new CountDownLatch(connections);
+
+        final WebSocketContainer webSocketContainer = ContainerProvider.getWebSocketContainer();
+        final ServerApplicationConfig serverConfig = new TyrusServerConfiguration(new HashSet<Class<?>>(Arrays.<Class<?>>asList(SessionCountEndpoint.class)), Collections.<ServerEndpointConfig>emptySet());
+
+        ClientEndpointConfig cec = ClientEndpointConfig.Builder.create().build();
+        cec.getUserProperties().put(InMemoryClientContainer.SERVER_CONFIG, serverConfig);
+
+        final List<Session> sessions = new ArrayList<Session>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                sessions.add(webSocketContainer.connectToServer(new Endpoint() {
+                    @Override
+                    public void onOpen(Session session, EndpointConfig config) {
+                        session.addMessageHandler(new MessageHandler.Whole<String>() {
+                            @Override
+                            public void onMessage(String message) {
+                                messageLatch.countDown();
+                            }
+                        });
+                    }
+                }, cec, URI.create("ws://inmemory/sessioncount")));
+            }
+
+            // all connections are served by the same server container.
+            for (Session session : sessions) {
+                session.getAsyncRemote().sendText("count");
+            }
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            assertEquals(connections, SessionCountEndpoint.maxOpenSessions.get());
+        } finally {
+            // server container is stopped when the last session is closed.
+            for (Session session : sessions) {
+                session.close();
+            }
+        }
+    }
+
+    @ServerEndpoint("/sessioncount")
+    public static class SessionCountEndpoint {
+
+        static final AtomicInteger maxOpenSessions = new AtomicInteger(0);
+
+        @OnMessage
+        public String onMessage(String message, Session session) {
+            final int openSessions = session.getOpenSessions().size();
+            int max;
+            while ((max = maxOpenSessions.get()) < openSessions && !maxOpenSessions.compareAndSet(max, openSessions)) {
+                // retry.
+            }
+            return message;
+        }
+    }
+
     @ServerEndpoint("/echo")
     public static class EchoEndpoint {
         @OnMessage
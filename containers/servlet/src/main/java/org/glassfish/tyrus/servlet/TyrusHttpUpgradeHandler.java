@@ -42,7 +42,10 @@ package org.glassfish.tyrus.servlet;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -83,6 +86,20 @@ public class TyrusHttpUpgradeHandler implements HttpUpgradeHandler, ReadListener
 
     private static final Logger LOGGER = Logger.getLogger(TyrusHttpUpgradeHandler.class.getName());
 
+    /**
+     * Size of pooled read buffers. Buffer grows (up to {@link #incomingBufferSize}) only when it is full of data which
+     * cannot be processed yet.
+     */
+    private static final int READ_BUFFER_SIZE = 16384;
+
+    /**
+     * Maximal number of pooled read buffers.
+     */
+    private static final int READ_BUFFER_POOL_SIZE = 256;
+
+    private static final Queue<byte[]> READ_BUFFER_POOL = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger READ_BUFFER_POOL_COUNT = new AtomicInteger(0);
+
     private Connection connection;
     private WebSocketEngine.UpgradeInfo upgradeInfo;
     private Writer writer;
@@ -137,87 +154,115 @@ public class TyrusHttpUpgradeHandler implements HttpUpgradeHandler, ReadListener
 
         do {
             try {
-                int available = is.available();
-                if (available == 0) {
-                    // tomcat impl returns always 0
-                    available = 16384;
+                if (buf == null) {
+                    buf = acquireBuffer();
                 }
 
-                int toRead = (buf == null ?
-                        (available > incomingBufferSize ? incomingBufferSize : available) :
-                        buf.remaining() + available > incomingBufferSize ? incomingBufferSize - buf.remaining() : buf.remaining() + available
-                );
-
-                if (toRead == 0) {
+                if (!prepareBuffer()) {
                     throw new IOException(String.format("Tyrus input buffer exceeded. Current buffer size is %s bytes.",
                             incomingBufferSize));
                 }
 
-                available -= fillBuf(toRead);
+                // read directly to the free tail of the buffer.
+                final int len = is.read(buf.array(), buf.arrayOffset() + buf.limit(), buf.capacity() - buf.limit());
+                if (len == -1) {
+                    break;
+                }
 
-                if (buf != null) {
+                if (len > 0) {
+                    buf.limit(buf.limit() + len);
 
                     LOGGER.finest(String.format("Remaining Data = %d", buf.remaining()));
 
-                    if (buf.hasRemaining()) {
-                        connection.getReadHandler().handle(buf);
-                    }
+                    connection.getReadHandler().handle(buf);
                 }
             } catch (IOException e) {
                 connection.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, null));
             }
         } while (!closed && is.isReady());
+
+        // buffer is not retained by idle connections.
+        if (buf != null && !buf.hasRemaining()) {
+            releaseBuffer(buf);
+            buf = null;
+        }
+    }
+
+    /**
+     * Make sure there is some free space after the limit of {@link #buf}.
+     * <p/>
+     * Unprocessed data are moved to the beginning of the buffer when possible, new (bigger) buffer is allocated only
+     * when the buffer is full of unprocessed data.
+     *
+     * @return {@code true} when there is some free space in the buffer, {@code false} when the buffer cannot grow
+     * anymore (its size would exceed {@link #incomingBufferSize}).
+     */
+    private boolean prepareBuffer() {
+        if (buf.limit() < buf.capacity()) {
+            return true;
+        }
+
+        final int remaining = buf.remaining();
+
+        if (remaining < buf.capacity()) {
+            LOGGER.finest("Remaining data is moved to left.");
+            buf.compact();
+            buf.flip();
+            return true;
+        }
+
+        if (buf.capacity() >= incomingBufferSize) {
+            return false;
+        }
+
+        LOGGER.finest("Buffer is full of remaining data. Allocating bigger one.");
+        final int newCapacity = (int) Math.min((long) buf.capacity() * 2, incomingBufferSize);
+        final ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+        newBuffer.put(buf);
+        newBuffer.flip();
+
+        releaseBuffer(buf);
+        buf = newBuffer;
+        return true;
     }
 
     /**
-     * Fill the buf with some more websocket protocol data.
+     * Get empty read buffer - from the pool, if possible.
      *
-     * @param length length of data available to read.
-     * @return legth of actually read data.
-     * @throws IOException if some other I/O error occurs.
+     * @return empty buffer ({@code position == limit == 0}).
      */
-    private int fillBuf(int length) throws IOException {
-        byte[] data = new byte[length];
-        int len = is.read(data);
-        if (len == 0) {
-            return 0;
+    private ByteBuffer acquireBuffer() {
+        if (incomingBufferSize < READ_BUFFER_SIZE) {
+            return (ByteBuffer) ByteBuffer.allocate(incomingBufferSize).limit(0);
         }
-        if (buf == null) {
-            LOGGER.finest("No Buffer. Allocating new one");
-            buf = ByteBuffer.wrap(data);
-            buf.limit(len);
+
+        byte[] array = READ_BUFFER_POOL.poll();
+        if (array == null) {
+            LOGGER.finest("No pooled buffer. Allocating new one.");
+            array = new byte[READ_BUFFER_SIZE];
         } else {
-            int limit = buf.limit();
-            int capacity = buf.capacity();
-            int remaining = buf.remaining();
-
-            if (capacity - limit >= len) {
-                // Remaining data need not be changed. New data is just appended
-                LOGGER.finest("Remaining data need not be moved. New data is just appended");
-                buf.mark();
-                buf.position(limit);
-                buf.limit(capacity);
-                buf.put(data, 0, len);
-                buf.limit(limit + len);
-                buf.reset();
-            } else if (remaining + len < capacity) {
-                // Remaining data is moved to left. Then new data is appended
-                LOGGER.finest("Remaining data is moved to left. Then new data is appended");
-                buf.compact();
-                buf.put(data, 0, len);
-                buf.flip();
-            } else {
-                // Remaining data + new > capacity. So allocate new one
-                LOGGER.finest("Remaining data + new > capacity. So allocate new one");
-                byte[] array = new byte[remaining + len];
-                buf.get(array, 0, remaining);
-                System.arraycopy(data, 0, array, remaining, len);
-                buf = ByteBuffer.wrap(array);
-                buf.limit(remaining + len);
-            }
+            READ_BUFFER_POOL_COUNT.decrementAndGet();
         }
 
-        return len;
+        return (ByteBuffer) ByteBuffer.wrap(array).limit(0);
+    }
+
+    /**
+     * Return buffer to the pool. Only buffers of {@link #READ_BUFFER_SIZE} are pooled and the pool is bounded by
+     * {@link #READ_BUFFER_POOL_SIZE}, other buffers are just dropped.
+     *
+     * @param buffer buffer to be returned to the pool.
+     */
+    private static void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.capacity() != READ_BUFFER_SIZE || !buffer.hasArray()) {
+            return;
+        }
+
+        if (READ_BUFFER_POOL_COUNT.incrementAndGet() <= READ_BUFFER_POOL_SIZE) {
+            READ_BUFFER_POOL.offer(buffer.array());
+        } else {
+            READ_BUFFER_POOL_COUNT.decrementAndGet();
+        }
     }
 
     @Override
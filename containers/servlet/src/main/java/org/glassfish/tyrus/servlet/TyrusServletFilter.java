@@ -105,6 +105,18 @@ class TyrusServletFilter implements Filter, HttpSessionListener {
             engine.setIncomingBufferSize(Integer.parseInt(frameBufferSize));
         }
 
+        final String maxOutgoingFrameSize = filterConfig.getServletContext().getInitParameter(TyrusWebSocketEngine.MAX_OUTGOING_FRAME_SIZE);
+        if (maxOutgoingFrameSize != null) {
+            engine.setMaxOutgoingFrameSize(Integer.parseInt(maxOutgoingFrameSize));
+        }
+
+        final String heartbeatInterval = filterConfig.getServletContext().getInitParameter(TyrusWebSocketEngine.HEARTBEAT_INTERVAL);
+        if (heartbeatInterval != null) {
+            final String maxMissedPongs = filterConfig.getServletContext().getInitParameter(TyrusWebSocketEngine.HEARTBEAT_MAX_MISSED_PONGS);
+            engine.setHeartbeat(Integer.parseInt(heartbeatInterval), maxMissedPongs == null
+                    ? TyrusWebSocketEngine.DEFAULT_HEARTBEAT_MAX_MISSED_PONGS : Integer.parseInt(maxMissedPongs));
+        }
+
         this.serverContainer = (org.glassfish.tyrus.server.TyrusServerContainer) filterConfig.getServletContext().getAttribute(ServerContainer.class.getName());
 
         try {
@@ -42,25 +42,35 @@ package org.glassfish.tyrus.servlet;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 
+import org.glassfish.tyrus.core.WriteQueue;
 import org.glassfish.tyrus.spi.CompletionHandler;
 import org.glassfish.tyrus.spi.Writer;
 
 /**
  * {@link org.glassfish.tyrus.spi.Writer} implementation used in Servlet integration.
+ * <p/>
+ * Writes never block the calling thread - frames are queued and the queue is drained by the thread which wins the
+ * {@link #processing} flag, or by {@link #onWritePossible()} when the output stream was not ready. All frames which can
+ * be written are written before single {@link ServletOutputStream#flush()}.
  *
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
 class TyrusServletWriter extends Writer implements WriteListener {
 
     private final TyrusHttpUpgradeHandler tyrusHttpUpgradeHandler;
-    private final ArrayBlockingQueue<QueuedFrame> queue = new ArrayBlockingQueue<QueuedFrame>(32);
+    // control frames and priority messages are written before data frames waiting for the output stream to be ready.
+    private final WriteQueue<QueuedFrame> queue = new WriteQueue<QueuedFrame>();
+    // only one thread can write to the output stream at the time.
+    private final AtomicBoolean processing = new AtomicBoolean(false);
 
     private static final Logger LOGGER = Logger.getLogger(TyrusServletWriter.class.getName());
 
@@ -93,26 +103,12 @@ class TyrusServletWriter extends Writer implements WriteListener {
     public void onWritePossible() throws IOException {
         LOGGER.log(Level.FINEST, "OnWritePossible called");
 
-        QueuedFrame queuedFrame = queue.poll();
-
         // this might seem weird but it cannot be another way, at least not without further synchronization logic.
         // servletOutputStream cannot be touched without synchronizing access via outputStreamLock, but this method is
         // also called from #write(...) when servletOutputStream.setWriteListener is invoked, but from different thread.
         // Calling servletOutputStream.isReady() here would result in deadlock.
         isReady = true;
-        if (queuedFrame == null) {
-            return;
-        }
-
-        while (isReady && queuedFrame != null) {
-            _write(queuedFrame.dataFrame, queuedFrame.completionHandler);
-            synchronized (outputStreamLock) {
-                isReady = servletOutputStream.isReady();
-            }
-            if (isReady) {
-                queuedFrame = queue.poll();
-            }
-        }
+        processQueue();
     }
 
     @Override
@@ -122,6 +118,11 @@ class TyrusServletWriter extends Writer implements WriteListener {
 
     @Override
     public void write(final ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+        write(buffer, completionHandler, false);
+    }
+
+    @Override
+    public void write(final ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
 
         synchronized (outputStreamLock) {
             // first write
@@ -133,45 +134,108 @@ class TyrusServletWriter extends Writer implements WriteListener {
                     completionHandler.failed(e);
                     return;
                 }
+                offer(buffer, completionHandler, priority);
+                // queue will be processed when the container invokes onWritePossible.
                 servletOutputStream.setWriteListener(this);
-                isReady = servletOutputStream.isReady();
-            } else {
-                isReady = servletOutputStream.isReady();
+                return;
             }
         }
 
-        if (isReady) {
-            _write(buffer, completionHandler);
-        } else {
-            final QueuedFrame queuedFrame = new QueuedFrame(completionHandler, buffer);
+        if (offer(buffer, completionHandler, priority)) {
+            processQueue();
+        }
+    }
+
+    /**
+     * Add frame to the queue; the frame is failed when it cannot be written, because close frame was already queued.
+     *
+     * @return {@code true} when the frame was queued.
+     */
+    private boolean offer(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+        if (queue.offer(new QueuedFrame(completionHandler, buffer), buffer, priority)) {
+            return true;
+        }
+
+        if (completionHandler != null) {
+            completionHandler.failed(new IllegalStateException("Close frame was already sent."));
+        }
+        return false;
+    }
+
+    /**
+     * Process queued frames while the output stream is ready.
+     * <p/>
+     * When the output stream is not ready, processing is resumed by {@link #onWritePossible()}. When another thread is
+     * processing the queue, it will process also frames added by the current thread.
+     */
+    private void processQueue() {
+        while (isReady && !queue.isEmpty() && processing.compareAndSet(false, true)) {
             try {
-                queue.put(queuedFrame);
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.CONFIG, "Cannot enqueue frame", e);
-                completionHandler.failed(e);
+                drain();
+            } finally {
+                processing.set(false);
             }
         }
     }
 
-    public void _write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+    /**
+     * Write queued frames to the output stream until the queue is empty or the output stream is not ready. Output
+     * stream is flushed once, after the last frame; completion handlers are invoked after that.
+     */
+    private void drain() {
+        final List<QueuedFrame> written = new ArrayList<QueuedFrame>();
+        QueuedFrame queuedFrame = null;
 
         try {
-            final int remaining = buffer.remaining();
-            final byte[] array = new byte[remaining];
-            buffer.get(array);
-
             synchronized (outputStreamLock) {
-                servletOutputStream.write(array);
-                servletOutputStream.flush();
-            }
+                while (isReady && (queuedFrame = queue.poll()) != null) {
+                    write(queuedFrame.dataFrame);
+                    written.add(queuedFrame);
+                    queuedFrame = null;
+                    isReady = servletOutputStream.isReady();
+                }
 
-            if (completionHandler != null) {
-                completionHandler.completed(buffer);
+                // when not ready, the container writes out data it already accepted by itself.
+                if (isReady && !written.isEmpty()) {
+                    servletOutputStream.flush();
+                    isReady = servletOutputStream.isReady();
+                }
             }
         } catch (Exception e) {
-            if (completionHandler != null) {
-                completionHandler.failed(e);
+            LOGGER.log(Level.FINE, e.getMessage(), e);
+            if (queuedFrame != null) {
+                failed(queuedFrame, e);
+            }
+            for (QueuedFrame frame : written) {
+                failed(frame, e);
             }
+            return;
+        }
+
+        for (QueuedFrame frame : written) {
+            if (frame.completionHandler != null) {
+                frame.completionHandler.completed(frame.dataFrame);
+            }
+        }
+    }
+
+    /**
+     * Write frame to the output stream; heap buffers are written without copying.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            servletOutputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        } else {
+            final byte[] array = new byte[buffer.remaining()];
+            buffer.get(array);
+            servletOutputStream.write(array);
+        }
+    }
+
+    private static void failed(QueuedFrame frame, Exception e) {
+        if (frame.completionHandler != null) {
+            frame.completionHandler.failed(e);
         }
     }
 
@@ -60,6 +60,11 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
     private final ExecutorService executorService;
     private final ScheduledExecutorService scheduledExecutorService;
     private ThreadFactory threadFactory = null;
+    // executors created by this container, not provided by the application server.
+    private boolean ownExecutorService = false;
+    private boolean ownScheduledExecutorService = false;
+    private volatile HeartbeatService heartbeatService = null;
+    private volatile boolean blockingStreaming = true;
 
     public BaseContainer() {
         this.executorService = newExecutorService();
@@ -76,6 +81,71 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
         return scheduledExecutorService;
     }
 
+    /**
+     * Get heartbeat service of this container.
+     *
+     * @return heartbeat service or {@code null} when heartbeat is not enabled.
+     */
+    public HeartbeatService getHeartbeatService() {
+        return heartbeatService;
+    }
+
+    /**
+     * Enable heartbeat for sessions created after this call.
+     * <p/>
+     * Already enabled heartbeat is kept when called with the same configuration.
+     *
+     * @param interval       interval between pings in milliseconds, value lower than {@code 1} disables the heartbeat.
+     * @param maxMissedPongs number of consecutive unanswered pings after which the session is closed.
+     * @see HeartbeatService
+     */
+    public synchronized void setHeartbeat(long interval, int maxMissedPongs) {
+        if (interval < 1) {
+            heartbeatService = null;
+        } else if (heartbeatService == null || heartbeatService.getInterval() != interval
+                || heartbeatService.getMaxMissedPongs() != maxMissedPongs) {
+            heartbeatService = new HeartbeatService(scheduledExecutorService, interval, maxMissedPongs);
+        }
+    }
+
+    /**
+     * Get whether the thread reading frames can be blocked by streaming message handlers.
+     *
+     * @return {@code true} when parts of a streamed message are handed over with backpressure, {@code false} when
+     * they are buffered (up to the incoming buffer size) instead.
+     * @see #setBlockingStreaming(boolean)
+     */
+    public boolean isBlockingStreaming() {
+        return blockingStreaming;
+    }
+
+    /**
+     * Set whether the thread reading frames can be blocked by streaming ({@link java.io.Reader} or
+     * {@link java.io.InputStream}) message handlers which do not keep up with the incoming message.
+     * <p/>
+     * Must be set to {@code false} when frames are read on selector threads, which cannot wait for a handler.
+     * Applies to sessions created after this call.
+     *
+     * @param blockingStreaming {@code false} to buffer message parts instead of blocking the reading thread.
+     */
+    public void setBlockingStreaming(boolean blockingStreaming) {
+        this.blockingStreaming = blockingStreaming;
+    }
+
+    /**
+     * Shut down executors created by this container; executors provided by the application server are not touched.
+     * <p/>
+     * Already submitted tasks are executed, new tasks are rejected.
+     */
+    protected void shutdownExecutors() {
+        if (ownExecutorService) {
+            executorService.shutdown();
+        }
+        if (ownScheduledExecutorService) {
+            scheduledExecutorService.shutdown();
+        }
+    }
+
     private ExecutorService newExecutorService() {
         ExecutorService es = null;
 
@@ -94,6 +164,7 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
                 threadFactory = new DaemonThreadFactory();
             }
             es = Executors.newCachedThreadPool(threadFactory);
+            ownExecutorService = true;
         }
 
         return es;
@@ -117,6 +188,7 @@ public abstract class BaseContainer extends ExecutorServiceProvider implements W
             }
 
             service = Executors.newScheduledThreadPool(10, threadFactory);
+            ownScheduledExecutorService = true;
         }
 
         return service;
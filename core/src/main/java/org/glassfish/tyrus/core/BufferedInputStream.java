@@ -42,6 +42,7 @@ package org.glassfish.tyrus.core;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Passed to the (@link MessageHandler.Whole} in case that partial messages are being received.
@@ -50,24 +51,67 @@ import java.io.InputStream;
  * @author Stepan Kopriva (stepan.kopriva at oracle.com)
  */
 class BufferedInputStream extends InputStream {
-    private final InputStreamBuffer buffer;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final ChunkRing<ByteBuffer> ring;
+
+    private ByteBuffer chunk = EMPTY;
 
     /**
      * Constructor.
      *
-     * @param buffer underlying buffer.
+     * @param ring parts of the message.
      */
-    public BufferedInputStream(InputStreamBuffer buffer) {
-        this.buffer = buffer;
+    public BufferedInputStream(ChunkRing<ByteBuffer> ring) {
+        this.ring = ring;
     }
 
     @Override
     public int read() throws IOException {
-        return buffer.getNextByte();
+        if (!nextChunk()) {
+            return -1;
+        }
+        return chunk.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+
+        final int size = Math.min(len, chunk.remaining());
+        chunk.get(b, off, size);
+        return size;
+    }
+
+    @Override
+    public int available() {
+        return chunk.remaining();
     }
 
     @Override
     public void close() {
-        this.buffer.finishReading();
+        ring.close();
+        chunk = EMPTY;
+    }
+
+    /**
+     * Make sure the current chunk has remaining bytes, waiting for the next part of the message if needed.
+     *
+     * @return {@code false} when the end of the message was reached.
+     */
+    private boolean nextChunk() {
+        while (!chunk.hasRemaining()) {
+            final ByteBuffer next = ring.take();
+            if (next == null) {
+                return false;
+            }
+            chunk = next;
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -49,30 +49,45 @@ import java.io.Reader;
  * @author Stepan Kopriva (stepan.kopriva at oracle.com)
  */
 class BufferedStringReader extends Reader {
-    private final ReaderBuffer readerBuffer;
+    private final ChunkRing<String> ring;
+
+    private String chunk = "";
+    private int position = 0;
 
     /**
      * Constructor.
      *
-     * @param readerBuffer underlying buffer.
+     * @param ring parts of the message.
      */
-    public BufferedStringReader(ReaderBuffer readerBuffer) {
-        this.readerBuffer = readerBuffer;
+    public BufferedStringReader(ChunkRing<String> ring) {
+        this.ring = ring;
     }
 
     @Override
     public int read(char[] destination, int offsetToStart, int numberOfChars) {
-        char[] got = readerBuffer.getNextChars(numberOfChars);
-        if (got != null) {
-            System.arraycopy(got, 0, destination, offsetToStart, got.length);
-            return got.length;
-        } else {
-            return -1;
+        if (numberOfChars == 0) {
+            return 0;
+        }
+
+        while (position == chunk.length()) {
+            final String next = ring.take();
+            if (next == null) {
+                return -1;
+            }
+            chunk = next;
+            position = 0;
         }
+
+        final int size = Math.min(numberOfChars, chunk.length() - position);
+        chunk.getChars(position, position + size, destination, offsetToStart);
+        position += size;
+        return size;
     }
 
     @Override
     public void close() {
-        this.readerBuffer.finishReading();
+        ring.close();
+        chunk = "";
+        position = 0;
     }
-}
\ No newline at end of file
+}
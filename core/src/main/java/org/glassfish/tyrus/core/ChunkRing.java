@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring of message parts passed from the thread which reads frames to the thread which runs streaming
+ * {@link javax.websocket.MessageHandler.Whole} ({@link java.io.Reader} or {@link java.io.InputStream}).
+ * <p/>
+ * Parts are handed over without copying. When the ring is full, the producer blocks until the consumer takes a part
+ * (or closes the ring), so a slow handler slows down reading from the connection instead of buffering the whole
+ * message.
+ * <p/>
+ * Blocking producer must not be used when frames are read on a selector thread (e.g. low latency mode of Grizzly
+ * server container) - one slow handler would stall all connections served by that thread. Ring created with
+ * {@link #ChunkRing(int, boolean)} and {@code blocking} set to {@code false} grows instead of blocking; its size is
+ * then limited only by the incoming buffer size checked by the producer.
+ *
+ * @param <T> type of message part.
+ * @author agent (agent at local)
+ */
+class ChunkRing<T> {
+
+    /**
+     * Default number of parts which can be buffered.
+     */
+    static final int DEFAULT_CAPACITY = 16;
+
+    private final boolean blocking;
+    private Object[] chunks;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head = 0;
+    private int count = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * Create ring with {@link #DEFAULT_CAPACITY}.
+     */
+    ChunkRing() {
+        this(DEFAULT_CAPACITY, true);
+    }
+
+    /**
+     * Create blocking ring.
+     *
+     * @param capacity max number of buffered parts.
+     */
+    ChunkRing(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * Create ring.
+     *
+     * @param capacity max number of buffered parts, initial capacity when {@code blocking} is {@code false}.
+     * @param blocking {@code true} when {@link #put(Object, boolean)} should block while the ring is full,
+     *                 {@code false} when the ring should grow instead.
+     */
+    ChunkRing(int capacity, boolean blocking) {
+        this.chunks = new Object[capacity];
+        this.blocking = blocking;
+    }
+
+    /**
+     * Add message part, blocking while the ring is full (unless the ring was created as non-blocking).
+     *
+     * @param chunk message part.
+     * @param last  {@code true} when this is the last part of the message.
+     * @return {@code true} when the part was added, {@code false} when the consumer closed the ring and the part was
+     * discarded.
+     */
+    boolean put(T chunk, boolean last) {
+        lock.lock();
+        try {
+            boolean interrupted = false;
+            while (count == chunks.length && !closed) {
+                if (!blocking) {
+                    grow();
+                    break;
+                }
+                try {
+                    notFull.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (closed || finished) {
+                return false;
+            }
+
+            chunks[(head + count) % chunks.length] = chunk;
+            count++;
+            finished = last;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held.
+    private void grow() {
+        final Object[] grown = new Object[chunks.length * 2];
+        for (int i = 0; i < count; i++) {
+            grown[i] = chunks[(head + i) % chunks.length];
+        }
+        chunks = grown;
+        head = 0;
+    }
+
+    /**
+     * Mark the message as finished without adding any other part; consumer reads the remaining parts and then gets
+     * end of the message.
+     */
+    void finish() {
+        lock.lock();
+        try {
+            finished = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take next message part, blocking until it is available.
+     *
+     * @return next part or {@code null} when the whole message was taken or the ring was closed.
+     */
+    @SuppressWarnings("unchecked")
+    T take() {
+        lock.lock();
+        try {
+            boolean interrupted = false;
+            while (count == 0 && !finished && !closed) {
+                try {
+                    notEmpty.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (count == 0 || closed) {
+                return null;
+            }
+
+            final T chunk = (T) chunks[head];
+            chunks[head] = null;
+            head = (head + 1) % chunks.length;
+            count--;
+            notFull.signal();
+            return chunk;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the ring from the consumer side; buffered parts are released and parts added later are discarded, so
+     * the producer never waits for a consumer which stopped reading.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            for (int i = 0; i < count; i++) {
+                chunks[(head + i) % chunks.length] = null;
+            }
+            count = 0;
+            notFull.signal();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -42,6 +42,7 @@ package org.glassfish.tyrus.core;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.websocket.Extension;
 
@@ -148,6 +149,8 @@ public interface ExtendedExtension extends Extension {
      * call (server-side) or {@link #onHandshakeResponse(org.glassfish.tyrus.core.ExtendedExtension.ExtensionContext, java.util.List)} method call (client-side).
      * Last chance to access it is within {@link #destroy(org.glassfish.tyrus.core.ExtendedExtension.ExtensionContext)}
      * method invocation.
+     * <p/>
+     * Per-connection state should be preferably accessed using {@link ContextKey}, which avoids property map lookups.
      */
     interface ExtensionContext {
 
@@ -162,4 +165,91 @@ public interface ExtendedExtension extends Extension {
         Map<String, Object> getProperties();
 
     }
+
+    /**
+     * Typed key to per-connection extension state.
+     * <p/>
+     * Keys are meant to be created once per extension class (stored in {@code static final} field) and used in
+     * {@link ExtendedExtension} methods instead of {@link ExtensionContext#getProperties()} lookups. Each key gets
+     * its own slot index, so contexts created by Tyrus runtime store the value in plain array; other
+     * {@link ExtensionContext} implementations fall back to property map (key name is used as property name).
+     *
+     * @param <T> type of stored value.
+     */
+    final class ContextKey<T> {
+
+        private static final AtomicInteger SLOT_COUNTER = new AtomicInteger(0);
+
+        private final String name;
+        private final Class<T> type;
+        private final int slot;
+
+        /**
+         * Create new key.
+         *
+         * @param name key name, used when the {@link ExtensionContext} does not support slot-indexed state.
+         * @param type type of stored value.
+         */
+        public ContextKey(String name, Class<T> type) {
+            this.name = name;
+            this.type = type;
+            this.slot = SLOT_COUNTER.getAndIncrement();
+        }
+
+        /**
+         * Get value stored in given context.
+         *
+         * @param context extension context.
+         * @return stored value or {@code null} when there is no value stored.
+         */
+        public T get(ExtensionContext context) {
+            if (context instanceof TyrusExtensionContext) {
+                return type.cast(((TyrusExtensionContext) context).getSlot(slot));
+            }
+
+            return type.cast(context.getProperties().get(name));
+        }
+
+        /**
+         * Store value in given context.
+         *
+         * @param context extension context.
+         * @param value   value to be stored. {@code null} removes current value.
+         */
+        public void set(ExtensionContext context, T value) {
+            if (context instanceof TyrusExtensionContext) {
+                ((TyrusExtensionContext) context).setSlot(slot, value);
+            } else if (value == null) {
+                context.getProperties().remove(name);
+            } else {
+                context.getProperties().put(name, value);
+            }
+        }
+
+        /**
+         * Remove value from given context.
+         *
+         * @param context extension context.
+         * @return removed value or {@code null} when there was no value stored.
+         */
+        public T remove(ExtensionContext context) {
+            final T value = get(context);
+            set(context, null);
+            return value;
+        }
+
+        /**
+         * Get key name.
+         *
+         * @return key name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return "ContextKey{" + name + ", slot=" + slot + "}";
+        }
+    }
 }
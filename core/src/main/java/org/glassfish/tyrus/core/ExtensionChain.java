@@ -0,0 +1,222 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.Extension;
+
+/**
+ * Negotiated {@link ExtendedExtension}s of one connection, compiled at handshake time.
+ * <p/>
+ * Extensions which are not {@link ExtendedExtension}s are filtered out when the chain is created, so per-frame
+ * processing is reduced to iterating over fixed array of stages. Connections without any {@link ExtendedExtension}
+ * share {@link #EMPTY} instance; callers are expected to check {@link #isEmpty()} and skip processing altogether.
+ * <p/>
+ * Any exception thrown from {@link ExtendedExtension#processIncoming(ExtendedExtension.ExtensionContext, Frame)} or
+ * {@link ExtendedExtension#processOutgoing(ExtendedExtension.ExtensionContext, Frame)} is logged and the frame is
+ * passed to next stage unmodified.
+ *
+ * @author agent (agent at local)
+ */
+public final class ExtensionChain {
+
+    /**
+     * Chain without any stages.
+     */
+    public static final ExtensionChain EMPTY = new ExtensionChain(new ExtendedExtension[0], null);
+
+    private static final Logger LOGGER = Logger.getLogger(ExtensionChain.class.getName());
+
+    private final ExtendedExtension[] stages;
+    private final ExtendedExtension.ExtensionContext context;
+
+    private ExtensionChain(ExtendedExtension[] stages, ExtendedExtension.ExtensionContext context) {
+        this.stages = stages;
+        this.context = context;
+    }
+
+    /**
+     * Compile negotiated extensions into a chain.
+     *
+     * @param extensions negotiated extensions, in the order in which they appear in handshake response. Can be
+     *                   {@code null}.
+     * @param context    per-connection extension context.
+     * @return compiled chain, {@link #EMPTY} when there is no {@link ExtendedExtension} in passed list.
+     */
+    public static ExtensionChain create(List<Extension> extensions, ExtendedExtension.ExtensionContext context) {
+        if (extensions == null || extensions.isEmpty()) {
+            return EMPTY;
+        }
+
+        final List<ExtendedExtension> stages = new ArrayList<ExtendedExtension>(extensions.size());
+        for (Extension extension : extensions) {
+            if (extension instanceof ExtendedExtension) {
+                stages.add((ExtendedExtension) extension);
+            }
+        }
+
+        if (stages.isEmpty()) {
+            return EMPTY;
+        }
+
+        return new ExtensionChain(stages.toArray(new ExtendedExtension[stages.size()]), context);
+    }
+
+    /**
+     * Get reserved bits of the frame header used by the extension.
+     *
+     * @param extension extension.
+     * @return bits declared by {@link ReservedBitsExtension#getReservedBits()}, {@code 0} for other extensions.
+     */
+    public static int getReservedBits(Extension extension) {
+        return extension instanceof ReservedBitsExtension ? ((ReservedBitsExtension) extension).getReservedBits() : 0;
+    }
+
+    /**
+     * Returns {@code true} when there is nothing to process.
+     *
+     * @return {@code true} when this chain does not contain any stage.
+     */
+    public boolean isEmpty() {
+        return stages.length == 0;
+    }
+
+    /**
+     * Get per-connection context passed to all stages.
+     *
+     * @return extension context, {@code null} for {@link #EMPTY} chain.
+     */
+    public ExtendedExtension.ExtensionContext getContext() {
+        return context;
+    }
+
+    /**
+     * Pass incoming frame through all stages, in reverse order, so the last transformation applied by the peer is
+     * undone first.
+     *
+     * @param frame received frame.
+     * @return processed frame.
+     */
+    public Frame processIncoming(Frame frame) {
+        final ExtendedExtension[] localStages = stages;
+        for (int i = localStages.length - 1; i >= 0; i--) {
+            try {
+                frame = localStages[i].processIncoming(context, frame);
+            } catch (Throwable t) {
+                logFailure(localStages[i], "processIncoming", t);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Pass outgoing frame through all stages.
+     *
+     * @param frame frame to be sent.
+     * @return processed frame.
+     */
+    public Frame processOutgoing(Frame frame) {
+        final ExtendedExtension[] localStages = stages;
+        for (int i = 0; i < localStages.length; i++) {
+            try {
+                frame = localStages[i].processOutgoing(context, frame);
+            } catch (Throwable t) {
+                logFailure(localStages[i], "processOutgoing", t);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Invoke {@link ExtendedExtension#destroy(ExtendedExtension.ExtensionContext)} on all stages.
+     * <p/>
+     * Exceptions thrown from particular stage are ignored, rest of the chain is still destroyed.
+     */
+    public void destroy() {
+        for (ExtendedExtension stage : stages) {
+            try {
+                stage.destroy(context);
+            } catch (Throwable t) {
+                logFailure(stage, "destroy", t);
+            }
+        }
+    }
+
+    private static void logFailure(ExtendedExtension extension, String method, Throwable t) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, String.format("Extension '%s' threw an exception during %s method invocation: \"%s\".", extension.getName(), method, t.getMessage()), t);
+        }
+    }
+
+    /**
+     * {@link ExtendedExtension} which marks processed frames using reserved bits of the frame header.
+     * <p/>
+     * Extensions using the same bit must not be negotiated for one connection - the peer would not be able to tell
+     * which of them processed the frame.
+     */
+    public interface ReservedBitsExtension extends ExtendedExtension {
+
+        /**
+         * RSV1 bit of the first frame header byte.
+         */
+        int RSV1 = 0x40;
+
+        /**
+         * RSV2 bit of the first frame header byte.
+         */
+        int RSV2 = 0x20;
+
+        /**
+         * RSV3 bit of the first frame header byte.
+         */
+        int RSV3 = 0x10;
+
+        /**
+         * Get reserved bits used by this extension.
+         *
+         * @return combination of {@link #RSV1}, {@link #RSV2} and {@link #RSV3}.
+         */
+        int getReservedBits();
+    }
+}
@@ -190,6 +190,19 @@ public class Frame {
         return tmp;
     }
 
+    /**
+     * Get payload data without copying it.
+     * <p/>
+     * Returned array is shared with this instance and must not be modified. Only first {@link #getPayloadLength()}
+     * bytes are valid payload.
+     *
+     * @return payload data.
+     * @see #getPayloadData()
+     */
+    protected byte[] getSharedPayloadData() {
+        return payloadData;
+    }
+
     /**
      * Get information about frame type.
      *
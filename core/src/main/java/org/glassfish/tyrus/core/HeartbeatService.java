@@ -0,0 +1,284 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.websocket.CloseReason;
+
+/**
+ * Sends heartbeat pings to all sessions of a container and measures round trip time.
+ * <p/>
+ * All sessions are served by one periodic task scheduled on the container's {@link ScheduledExecutorService}; the task
+ * is started when the first session is registered and cancelled when the last one is unregistered. Each tick sends
+ * ping carrying a sequence number to every session and counts sessions which did not answer the previous ping. Session
+ * which missed configured number of pongs in a row is considered dead and is closed with
+ * {@link CloseReason.CloseCodes#CLOSED_ABNORMALLY}.
+ * <p/>
+ * Round trip time is measured from matching pongs, see {@link TyrusSession#getLastRoundTripTime(TimeUnit)} and
+ * {@link TyrusSession#getRoundTripTime(TimeUnit)}.
+ *
+ * @author agent (agent at local)
+ * @see TyrusWebSocketEngine#HEARTBEAT_INTERVAL
+ */
+public class HeartbeatService {
+
+    private static final Logger LOGGER = Logger.getLogger(HeartbeatService.class.getName());
+
+    /**
+     * Marks heartbeat ping payload, so pongs of application pings are not taken into account (and vice versa).
+     */
+    private static final int MAGIC = 0x54594842;
+    private static final int PAYLOAD_LENGTH = 12;
+
+    private final Map<TyrusSession, Heartbeat> sessions = new ConcurrentHashMap<TyrusSession, Heartbeat>();
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final long interval;
+    private final int maxMissedPongs;
+
+    // guarded by this
+    private ScheduledFuture<?> task = null;
+
+    /**
+     * Create new service.
+     *
+     * @param scheduledExecutorService executor used for the periodic task.
+     * @param interval                 interval between pings in milliseconds.
+     * @param maxMissedPongs           number of consecutive unanswered pings after which the session is closed; value
+     *                                 lower than {@code 1} means sessions are never closed.
+     */
+    public HeartbeatService(ScheduledExecutorService scheduledExecutorService, long interval, int maxMissedPongs) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Heartbeat interval has to be positive.");
+        }
+
+        this.scheduledExecutorService = scheduledExecutorService;
+        this.interval = interval;
+        this.maxMissedPongs = maxMissedPongs;
+    }
+
+    /**
+     * Get interval between pings.
+     *
+     * @return interval in milliseconds.
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Get number of consecutive unanswered pings after which the session is closed.
+     *
+     * @return maximal number of missed pongs.
+     */
+    public int getMaxMissedPongs() {
+        return maxMissedPongs;
+    }
+
+    /**
+     * Start sending heartbeat pings to the session.
+     *
+     * @param session session to be registered.
+     */
+    void register(TyrusSession session) {
+        final Heartbeat heartbeat = new Heartbeat(this);
+        session.setHeartbeat(heartbeat);
+        sessions.put(session, heartbeat);
+
+        synchronized (this) {
+            if (task == null) {
+                task = scheduledExecutorService.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        tick();
+                    }
+                }, interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop sending heartbeat pings to the session.
+     *
+     * @param session session to be unregistered.
+     */
+    void unregister(TyrusSession session) {
+        if (sessions.remove(session) == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (sessions.isEmpty() && task != null) {
+                task.cancel(false);
+                task = null;
+            }
+        }
+    }
+
+    /**
+     * Process received pong.
+     *
+     * @param session session which received the pong.
+     * @param payload application data of the pong.
+     * @return {@code true} when the pong answers heartbeat ping, {@code false} when it should be passed to the
+     * application.
+     */
+    boolean onPong(TyrusSession session, ByteBuffer payload) {
+        final Heartbeat heartbeat = sessions.get(session);
+        if (heartbeat == null || payload.remaining() != PAYLOAD_LENGTH || payload.getInt(payload.position()) != MAGIC) {
+            return false;
+        }
+
+        heartbeat.onPong(payload.getLong(payload.position() + 4), System.nanoTime());
+        return true;
+    }
+
+    private void tick() {
+        for (Map.Entry<TyrusSession, Heartbeat> entry : sessions.entrySet()) {
+            // exception thrown from the periodic task would suppress all its subsequent executions.
+            try {
+                tick(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, String.format("Heartbeat failed, session: '%s'.", entry.getKey()), e);
+            }
+        }
+    }
+
+    private void tick(TyrusSession session, Heartbeat heartbeat) {
+        if (!session.isOpen()) {
+            return;
+        }
+
+        final int missed = heartbeat.getMissedPongs();
+        if (maxMissedPongs > 0 && missed >= maxMissedPongs) {
+            LOGGER.log(Level.FINE, String.format("%d heartbeat pongs missed, closing session: '%s'.", missed, session));
+            sessions.remove(session);
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.CLOSED_ABNORMALLY, "Heartbeat timeout."));
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, e.getMessage(), e);
+            } catch (IllegalStateException e) {
+                // closed concurrently.
+            }
+            return;
+        }
+
+        final ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH);
+        payload.putInt(MAGIC).putLong(heartbeat.onPing(System.nanoTime()));
+        payload.flip();
+
+        session.sendHeartbeatPing(payload);
+    }
+
+    /**
+     * Heartbeat state of one session.
+     */
+    static class Heartbeat {
+
+        /**
+         * Weight of the last sample in round trip time average (same as RFC 6298 smoothed RTT).
+         */
+        private static final double ALPHA = 0.125;
+
+        private final HeartbeatService service;
+
+        // guarded by this
+        private long sequence = 0;
+        private long pingSentAt = 0;
+        private boolean answered = true;
+        private int missedPongs = 0;
+        private long lastRtt = -1;
+        private double rtt = -1;
+
+        private Heartbeat(HeartbeatService service) {
+            this.service = service;
+        }
+
+        /**
+         * Get service which sends pings to the session.
+         *
+         * @return heartbeat service.
+         */
+        HeartbeatService getService() {
+            return service;
+        }
+
+        private synchronized long onPing(long now) {
+            if (!answered) {
+                missedPongs++;
+            }
+
+            answered = false;
+            pingSentAt = now;
+            return ++sequence;
+        }
+
+        private synchronized void onPong(long pongSequence, long now) {
+            // any heartbeat pong proves the connection is alive, only the last ping is used for measurement.
+            missedPongs = 0;
+
+            if (pongSequence == sequence && !answered) {
+                answered = true;
+                lastRtt = now - pingSentAt;
+                rtt = rtt < 0 ? lastRtt : (1 - ALPHA) * rtt + ALPHA * lastRtt;
+            }
+        }
+
+        private synchronized int getMissedPongs() {
+            return missedPongs + (answered ? 0 : 1);
+        }
+
+        synchronized long getLastRtt() {
+            return lastRtt;
+        }
+
+        synchronized long getRtt() {
+            return (long) rtt;
+        }
+    }
+}
@@ -42,11 +42,6 @@ package org.glassfish.tyrus.core;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,7 +50,9 @@ import javax.websocket.MessageHandler;
 /**
  * Buffer used for the case when partial messages are received by the {@link MessageHandler.Whole}.
  * </p>
- * For the first received message {@link MessageHandler.Whole#onMessage(Object)} is called in a new {@link Thread} to allow blocking reading of passed {@link java.io.InputStream}.
+ * For the first received message {@link MessageHandler.Whole#onMessage(Object)} is called in the session
+ * {@link SessionTaskQueue} to allow blocking reading of passed {@link java.io.InputStream}. Message parts are passed to
+ * the stream through a bounded {@link ChunkRing}, without copying.
  *
  * @author Danny Coward (danny.coward at oracle.com)
  * @author Stepan Kopriva (stepan.kopriva at oracle.com)
@@ -63,115 +60,88 @@ import javax.websocket.MessageHandler;
  */
 class InputStreamBuffer {
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
-
-    private final List<ByteBuffer> bufferedFragments = new ArrayList<ByteBuffer>();
-    private final ExecutorService executorService;
-
     private static final Logger LOGGER = Logger.getLogger(InputStreamBuffer.class.getName());
 
-    private boolean receivedLast = false;
-    private BufferedInputStream inputStream = null;
-    private MessageHandler.Whole<InputStream> messageHandler;
+    private final SessionTaskQueue taskQueue;
+    private final boolean blocking;
+
     private int bufferSize;
     private int currentlyBuffered;
+    private boolean discarding = false;
+    private ChunkRing<ByteBuffer> ring = null;
+    private MessageHandler.Whole<InputStream> messageHandler;
 
     /**
      * Constructor.
-     */
-    public InputStreamBuffer(ExecutorService executorService) {
-        this.executorService = executorService;
-        currentlyBuffered = 0;
-    }
-
-    /**
-     * Get next received bytes.
      *
-     * @return next received bytes.
+     * @param taskQueue dispatch context of the session, used to invoke the message handler.
      */
-    public byte getNextByte() {
-        lock.lock();
-        try {
-            if (this.bufferedFragments.isEmpty()) {
-                if (receivedLast) {
-                    this.inputStream = null;
-                    this.currentlyBuffered = 0;
-                    return -1;
-                } else { // there's more to come...so wait here...
-                    boolean interrupted;
-                    do {
-                        interrupted = false;
-                        try {
-                            condition.await();
-                        } catch (InterruptedException e) {
-                            interrupted = true;
-                        }
-                    } while (interrupted);
-                }
-            }
-
-            if (bufferedFragments.size() == 1 && !bufferedFragments.get(0).hasRemaining() && receivedLast) {
-                this.inputStream = null;
-                this.currentlyBuffered = 0;
-                return -1;
-            }
-
-            ByteBuffer firstBuffer = bufferedFragments.get(0);
-            byte result = firstBuffer.get();
-
-            if (!firstBuffer.hasRemaining()) {
-                bufferedFragments.remove(0);
-            }
-
-            return result;
-        } finally {
-            lock.unlock();
-        }
+    public InputStreamBuffer(SessionTaskQueue taskQueue) {
+        this(taskQueue, true);
     }
 
     /**
-     * Finish reading of the buffer.
+     * Constructor.
+     *
+     * @param taskQueue dispatch context of the session, used to invoke the message handler.
+     * @param blocking  {@code false} when message parts should be buffered instead of blocking the caller of
+     *                  {@link #appendMessagePart}, see {@link ChunkRing}.
      */
-    public void finishReading() {
-        this.bufferedFragments.clear();
-        this.inputStream = null;
+    public InputStreamBuffer(SessionTaskQueue taskQueue, boolean blocking) {
+        this.taskQueue = taskQueue;
+        this.blocking = blocking;
+        currentlyBuffered = 0;
     }
 
     /**
      * Append next message part to the buffer.
+     * <p/>
+     * Blocks when the message handler does not keep up with reading of the message, unless the buffer was created as
+     * non-blocking.
      *
      * @param message the message.
      * @param last    should be {@code true} iff this is the last part of the message, {@code false} otherwise.
      */
     public void appendMessagePart(ByteBuffer message, boolean last) {
-        lock.lock();
-        try {
-            currentlyBuffered += message.remaining();
-            if (currentlyBuffered <= bufferSize) {
-                bufferedFragments.add(message);
-            } else {
-                final MessageTooBigException messageTooBigException = new MessageTooBigException("Partial message could not be delivered due to buffer overflow.");
-                LOGGER.log(Level.FINE, "Partial message could not be delivered due to buffer overflow.", messageTooBigException);
-                receivedLast = true;
-                throw messageTooBigException;
-            }
+        if (discarding) {
+            // rest of the message which was too big.
+            return;
+        }
 
-            this.receivedLast = last;
-            condition.signalAll();
-        } finally {
-            lock.unlock();
+        currentlyBuffered += message.remaining();
+        if (currentlyBuffered > bufferSize) {
+            discarding = true;
+            if (ring != null) {
+                ring.finish();
+                ring = null;
+            }
+            final MessageTooBigException messageTooBigException = new MessageTooBigException("Partial message could not be delivered due to buffer overflow.");
+            LOGGER.log(Level.FINE, "Partial message could not be delivered due to buffer overflow.", messageTooBigException);
+            throw messageTooBigException;
         }
 
-        if (this.inputStream == null) {
-            this.inputStream = new BufferedInputStream(this);
-            executorService.execute(new Runnable() {
+        if (ring == null) {
+            final ChunkRing<ByteBuffer> localRing = new ChunkRing<ByteBuffer>(ChunkRing.DEFAULT_CAPACITY, blocking);
+            final BufferedInputStream inputStream = new BufferedInputStream(localRing);
+            final MessageHandler.Whole<InputStream> localMessageHandler = messageHandler;
+            ring = localRing;
+            taskQueue.execute(new Runnable() {
                 @Override
                 public void run() {
-                    messageHandler.onMessage(inputStream);
+                    try {
+                        localMessageHandler.onMessage(inputStream);
+                    } finally {
+                        // the rest of the message is discarded when the handler does not read it.
+                        localRing.close();
+                    }
                 }
             });
         }
+
+        ring.put(message, last);
+        if (last) {
+            ring = null;
+        }
     }
 
     /**
@@ -185,12 +155,18 @@ class InputStreamBuffer {
 
     /**
      * Reset the buffer size.
+     * <p/>
+     * Called before the first part of the message is appended; previous message which was not finished is ended.
      *
      * @param bufferSize the size to be set.
      */
     public void resetBuffer(int bufferSize) {
         this.bufferSize = bufferSize;
         currentlyBuffered = 0;
-        bufferedFragments.clear();
+        discarding = false;
+        if (ring != null) {
+            ring.finish();
+            ring = null;
+        }
     }
 }
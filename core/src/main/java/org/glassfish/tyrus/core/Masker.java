@@ -81,11 +81,15 @@ class Masker {
     }
 
     public void mask(byte[] target, int location, byte[] bytes, int length) {
+        mask(target, location, bytes, 0, length);
+    }
+
+    public void mask(byte[] target, int location, byte[] bytes, int offset, int length) {
         if (bytes != null && target != null) {
             for (int i = 0; i < length; i++) {
                 target[location + i] = mask == null
-                        ? bytes[i]
-                        : (byte) (bytes[i] ^ mask[index++ % ProtocolHandler.MASK_SIZE]);
+                        ? bytes[offset + i]
+                        : (byte) (bytes[offset + i] ^ mask[index++ % ProtocolHandler.MASK_SIZE]);
             }
         }
     }
@@ -67,7 +67,7 @@ import javax.websocket.PongMessage;
  */
 class MessageHandlerManager {
 
-    private static final List<Class<?>> WHOLE_TEXT_HANDLER_TYPES = Arrays.<Class<?>>asList(String.class, Reader.class);
+    private static final List<Class<?>> WHOLE_TEXT_HANDLER_TYPES = Arrays.<Class<?>>asList(String.class, Reader.class, Utf8Text.class);
     private static final Class<?> PARTIAL_TEXT_HANDLER_TYPE = String.class;
     private static final List<Class<?>> WHOLE_BINARY_HANDLER_TYPES = Arrays.<Class<?>>asList(ByteBuffer.class, InputStream.class, byte[].class);
     private static final List<Class<?>> PARTIAL_BINARY_HANDLER_TYPES = Arrays.<Class<?>>asList(ByteBuffer.class, byte[].class);
@@ -80,6 +80,7 @@ class MessageHandlerManager {
     private boolean pongHandlerPresent = false;
     private boolean readerHandlerPresent = false;
     private boolean inputStreamHandlerPresent = false;
+    private boolean utf8TextHandlerPresent = false;
     private final Map<Class<?>, MessageHandler> registeredHandlers = new HashMap<Class<?>, MessageHandler>();
     private final List<Class<? extends Decoder>> decoders;
 
@@ -139,6 +140,8 @@ class MessageHandlerManager {
                 } else {
                     if (Reader.class.isAssignableFrom(handlerClass)) {
                         readerHandlerPresent = true;
+                    } else if (Utf8Text.class == handlerClass) {
+                        utf8TextHandlerPresent = true;
                     }
                     textHandlerPresent = true;
                     textWholeHandlerPresent = true;
@@ -254,6 +257,7 @@ class MessageHandlerManager {
             if (WHOLE_TEXT_HANDLER_TYPES.contains(handlerClass)) { // text
                 textHandlerPresent = false;
                 textWholeHandlerPresent = false;
+                utf8TextHandlerPresent = false;
 
             } else if (WHOLE_BINARY_HANDLER_TYPES.contains(handlerClass)) { // binary
                 binaryHandlerPresent = false;
@@ -361,6 +365,10 @@ class MessageHandlerManager {
         return inputStreamHandlerPresent;
     }
 
+    boolean isUtf8TextHandlerPresent() {
+        return utf8TextHandlerPresent;
+    }
+
     boolean isPongHandlerPresent() {
         return pongHandlerPresent;
     }
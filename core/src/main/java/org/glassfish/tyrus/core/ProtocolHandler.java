@@ -42,8 +42,12 @@ package org.glassfish.tyrus.core;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -75,6 +79,8 @@ public final class ProtocolHandler {
     private final AtomicBoolean onClosedCalled = new AtomicBoolean(false);
     private final boolean maskData;
     private final ParsingState state = new ParsingState();
+    private final Object writeLock = new Object();
+    private final Queue<PendingWrite> pendingWrites = new LinkedList<PendingWrite>();
 
     private TyrusWebSocket webSocket;
     private byte outFragmentedType;
@@ -84,11 +90,16 @@ public final class ProtocolHandler {
     private boolean sendingFragment = false;
     private List<Extension> extensions;
     private ExtendedExtension.ExtensionContext extensionContext;
-    private ByteBuffer remainder = null;
+    private volatile ExtensionChain extensionChain = ExtensionChain.EMPTY;
+    private final Utf8Decoder utf8Decoder = new Utf8Decoder();
+    private final SecureRandom maskingKeyRandom;
     private boolean hasExtensions = false;
+    private volatile int maxOutgoingFrameSize = 0;
+    private FragmentedWrite fragmentedWrite = null;
 
     ProtocolHandler(boolean maskData) {
         this.maskData = maskData;
+        this.maskingKeyRandom = maskData ? new SecureRandom() : null;
     }
 
     public Writer getWriter() {
@@ -109,6 +120,44 @@ public final class ProtocolHandler {
         return hasExtensions;
     }
 
+    /**
+     * Returns {@code true} when outgoing data frames are written as they are serialized - there is no negotiated
+     * {@link ExtendedExtension} and automatic fragmentation is disabled - so one serialized frame can be written to
+     * multiple connections using {@link #sendRawFrame(ByteBuffer)}.
+     *
+     * @return {@code true} when serialized frame can be shared with other connections.
+     * @see #setMaxOutgoingFrameSize(int)
+     */
+    boolean isSerializedFrameShareable() {
+        return extensionChain.isEmpty() && maxOutgoingFrameSize <= 0;
+    }
+
+    /**
+     * Get negotiated {@link ExtendedExtension}s compiled into {@link ExtensionChain}.
+     *
+     * @return extension chain, {@link ExtensionChain#EMPTY} when there is no {@link ExtendedExtension} negotiated.
+     */
+    public ExtensionChain getExtensionChain() {
+        return extensionChain;
+    }
+
+    /**
+     * Set maximal size of outgoing frame payload.
+     * <p/>
+     * Whole data messages with bigger payload are sent as a sequence of fragments (continuation frames). Fragments
+     * are written one after another, so ping and pong frames sent in the meantime are interleaved between them instead
+     * of waiting for the whole message; other data messages are queued until the fragmented message is written. When
+     * close frame is sent, remaining fragments and queued data messages are not written and their sending fails.
+     * When writing of a fragment fails, queued data messages fail too and the connection is closed, since the peer
+     * cannot accept any other data message after unfinished fragmented one.
+     *
+     * @param maxOutgoingFrameSize maximal payload size of outgoing frame. Value lower than or equal to {@code 0}
+     *                             disables automatic fragmentation.
+     */
+    public void setMaxOutgoingFrameSize(int maxOutgoingFrameSize) {
+        this.maxOutgoingFrameSize = maxOutgoingFrameSize;
+    }
+
     /**
      * Server side.
      *
@@ -124,6 +173,7 @@ public final class ProtocolHandler {
         this.extensionContext = extensionContext;
         this.extensions = tyrusEndpoint.getSupportedExtensions();
         hasExtensions = extensions != null && extensions.size() > 0;
+        extensionChain = ExtensionChain.create(extensions, extensionContext);
         return handshake;
     }
 
@@ -143,6 +193,7 @@ public final class ProtocolHandler {
      */
     public void setExtensionContext(ExtendedExtension.ExtensionContext extensionContext) {
         this.extensionContext = extensionContext;
+        this.extensionChain = ExtensionChain.create(extensions, extensionContext);
     }
 
     /**
@@ -153,6 +204,7 @@ public final class ProtocolHandler {
     public void setExtensions(List<Extension> extensions) {
         this.extensions = extensions;
         this.hasExtensions = extensions != null && extensions.size() > 0;
+        this.extensionChain = ExtensionChain.create(extensions, extensionContext);
     }
 
     /**
@@ -212,11 +264,11 @@ public final class ProtocolHandler {
     }
 
     public Future<Frame> send(String data) {
-        return send(new TextFrame(data, false, true));
+        return writeText(data, null, false);
     }
 
     public void send(final String data, final SendHandler handler) {
-        send(new TextFrame(data, false, true), new CompletionHandler<Frame>() {
+        writeText(data, new CompletionHandler<Frame>() {
             @Override
             public void failed(Throwable throwable) {
                 handler.onResult(new SendResult(throwable));
@@ -226,7 +278,67 @@ public final class ProtocolHandler {
             public void completed(Frame result) {
                 handler.onResult(new SendResult());
             }
-        }, true);
+        }, false);
+    }
+
+    /**
+     * Send text message which is already encoded.
+     *
+     * @param data UTF-8 encoded text to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     */
+    public Future<Frame> send(Utf8Text data) {
+        return writeText(data, null);
+    }
+
+    /**
+     * Send text message which is already encoded.
+     *
+     * @param data    UTF-8 encoded text to be sent.
+     * @param handler {@link SendHandler#onResult(javax.websocket.SendResult)} will be called when sending is complete.
+     */
+    public void send(final Utf8Text data, final SendHandler handler) {
+        writeText(data, new CompletionHandler<Frame>() {
+            @Override
+            public void failed(Throwable throwable) {
+                handler.onResult(new SendResult(throwable));
+            }
+
+            @Override
+            public void completed(Frame result) {
+                handler.onResult(new SendResult());
+            }
+        });
+    }
+
+    /**
+     * Send binary message; message will be written before data frames which are queued in the transport and were not
+     * written yet, when the transport supports it.
+     * <p/>
+     * Message is sent without priority when there is a negotiated {@link ExtendedExtension}; extensions can keep state
+     * which depends on the order of frames (compression with context takeover, delta encoding, ...).
+     *
+     * @param data data to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     * @see Writer#write(ByteBuffer, CompletionHandler, boolean)
+     */
+    public Future<Frame> sendPriority(byte[] data) {
+        return write(new BinaryFrame(data, false, true), null, true, true);
+    }
+
+    /**
+     * Send text message; message will be written before data frames which are queued in the transport and were not
+     * written yet, when the transport supports it.
+     * <p/>
+     * Message is sent without priority when there is a negotiated {@link ExtendedExtension}; extensions can keep state
+     * which depends on the order of frames (compression with context takeover, delta encoding, ...).
+     *
+     * @param data data to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     * @see Writer#write(ByteBuffer, CompletionHandler, boolean)
+     */
+    public Future<Frame> sendPriority(String data) {
+        return writeText(data, null, true);
     }
 
     public Future<Frame> sendRawFrame(ByteBuffer data) {
@@ -293,8 +405,13 @@ public final class ProtocolHandler {
         }, false);
     }
 
-    @SuppressWarnings({"unchecked"})
     private Future<Frame> write(final Frame frame, final CompletionHandler<Frame> completionHandler, boolean useTimeout) {
+        return write(frame, completionHandler, useTimeout, false);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private Future<Frame> write(final Frame frame, final CompletionHandler<Frame> completionHandler, boolean useTimeout,
+                                boolean priority) {
         final Writer localWriter = writer;
         final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
 
@@ -302,9 +419,99 @@ public final class ProtocolHandler {
             throw new IllegalStateException("Connection is null");
         }
 
-        final ByteBuffer byteBuffer = frame(frame);
-        localWriter.write(byteBuffer, new CompletionHandlerWrapper(completionHandler, future, frame));
+        final CompletionHandlerWrapper completionHandlerWrapper = new CompletionHandlerWrapper(completionHandler, future, frame);
+        final ExtensionChain localExtensionChain = extensionChain;
 
+        if (localExtensionChain.isEmpty() && maxOutgoingFrameSize <= 0) {
+            write(localWriter, serialize(frame), completionHandlerWrapper, priority);
+        } else {
+            // stateful extensions (compression with context takeover, delta encoding, ...) need to see frames in
+            // the same order in which they are written to the wire, so data frames cannot be reordered by the writer.
+            final boolean localPriority = priority && localExtensionChain.isEmpty();
+            List<CompletionHandler<ByteBuffer>> aborted = null;
+
+            synchronized (writeLock) {
+                final Frame processedFrame = localExtensionChain.isEmpty() ? frame : localExtensionChain.processOutgoing(frame);
+
+                if (fragmentedWrite != null && !processedFrame.isControlFrame()) {
+                    pendingWrites.add(new PendingWrite(localWriter, processedFrame, completionHandlerWrapper, localPriority));
+                } else {
+                    if (processedFrame.getOpcode() == 0x08) {
+                        // no data frame can be sent after the close frame.
+                        aborted = abortWrites();
+                    }
+                    doWrite(localWriter, processedFrame, completionHandlerWrapper, localPriority);
+                }
+            }
+
+            if (aborted != null) {
+                failAll(aborted, new IllegalStateException("Close frame was sent."));
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Write whole text message.
+     * <p/>
+     * When the frame does not need to be processed by extensions or fragmented, the text is encoded right into the
+     * serialized frame; {@link TextFrame} with separately encoded payload is not created and the returned future is
+     * completed with {@code null}.
+     */
+    private Future<Frame> writeText(String data, CompletionHandler<Frame> completionHandler, boolean priority) {
+        final Writer localWriter = writer;
+
+        if (localWriter == null) {
+            throw new IllegalStateException("Connection is null");
+        }
+
+        if (!extensionChain.isEmpty() || maxOutgoingFrameSize > 0) {
+            return write(new TextFrame(data, false, true), completionHandler, true, priority);
+        }
+
+        final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
+        final ByteBuffer serialized = serializeText(checkForLastFrame((byte) 0x01, true, false), data);
+
+        write(localWriter, serialized, new CompletionHandlerWrapper(completionHandler, future, null), priority);
+        return future;
+    }
+
+    /**
+     * Write whole text message from already encoded bytes.
+     * <p/>
+     * Bytes are copied (and masked) right into the serialized frame; when the frame needs to be processed by
+     * extensions or fragmented, {@link Frame} with a copy of the bytes is written instead.
+     */
+    private Future<Frame> writeText(Utf8Text data, CompletionHandler<Frame> completionHandler) {
+        final Writer localWriter = writer;
+
+        if (localWriter == null) {
+            throw new IllegalStateException("Connection is null");
+        }
+
+        final ByteBuffer bytes = data.getBuffer();
+
+        if (!extensionChain.isEmpty() || maxOutgoingFrameSize > 0) {
+            final Frame frame = Frame.builder().payloadData(Utils.getRemainingArray(bytes)).opcode((byte) 0x01).fin(true).build();
+            return write(frame, completionHandler, true);
+        }
+
+        final byte[] array;
+        final int offset;
+        if (bytes.hasArray()) {
+            array = bytes.array();
+            offset = bytes.arrayOffset() + bytes.position();
+        } else {
+            array = Utils.getRemainingArray(bytes);
+            offset = 0;
+        }
+
+        final TyrusFuture<Frame> future = new TyrusFuture<Frame>();
+        final ByteBuffer serialized = serialize(checkForLastFrame((byte) 0x01, true, false), array, offset,
+                data.getByteLength(), maskData ? maskingKeyRandom.nextInt() : 0);
+
+        write(localWriter, serialized, new CompletionHandlerWrapper(completionHandler, future, null), false);
         return future;
     }
 
@@ -368,8 +575,16 @@ public final class ProtocolHandler {
     }
 
     byte checkForLastFrame(Frame frame) {
-        byte local = frame.getOpcode();
-        if (!frame.isFin()) {
+        return checkForLastFrame(frame.getOpcode(), frame.isFin(), frame.isControlFrame());
+    }
+
+    private byte checkForLastFrame(byte opcode, boolean fin, boolean controlFrame) {
+        byte local = opcode;
+        if (controlFrame) {
+            // control frames can be interleaved with fragments of data message.
+            return (byte) (local | 0x80);
+        }
+        if (!fin) {
             if (outFragmentedType != 0) {
                 local = 0x00;
             } else {
@@ -399,20 +614,99 @@ public final class ProtocolHandler {
         }
     }
 
+    /**
+     * Process the frame by negotiated extensions and serialize it.
+     * <p/>
+     * Returned bytes are not written, so stateful extensions (delta encoding, compression with context takeover, ...)
+     * cannot rely on them reaching the wire in the order in which they were processed. Use {@link #send(Frame)} when
+     * the frame is going to be sent over this connection; this method is intended for frames which are not processed
+     * by extensions, e.g. a frame serialized once and shared by more connections.
+     *
+     * @param frame frame to be serialized.
+     * @return serialized frame.
+     */
     public ByteBuffer frame(Frame frame) {
 
-        if (extensions != null && extensions.size() > 0) {
-            for (Extension extension : extensions) {
-                if (extension instanceof ExtendedExtension) {
-                    try {
-                        frame = ((ExtendedExtension) extension).processOutgoing(extensionContext, frame);
-                    } catch (Throwable t) {
-                        LOGGER.log(Level.FINE, String.format("Extension '%s' threw an exception during processOutgoing method invocation: \"%s\".", extension.getName(), t.getMessage()), t);
-                    }
-                }
+        final ExtensionChain localExtensionChain = extensionChain;
+        if (!localExtensionChain.isEmpty()) {
+            // extensions are not thread safe, frames written by this handler are processed with writeLock held.
+            synchronized (writeLock) {
+                frame = localExtensionChain.processOutgoing(frame);
             }
         }
 
+        return serialize(frame);
+    }
+
+    /**
+     * Write already processed frame (extensions were applied). Must be called with {@link #writeLock} held.
+     */
+    private void doWrite(Writer writer, Frame frame, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+        final int localMaxOutgoingFrameSize = maxOutgoingFrameSize;
+
+        if (localMaxOutgoingFrameSize > 0 && frame.getPayloadLength() > localMaxOutgoingFrameSize
+                && !frame.isControlFrame() && frame.isFin() && frame.getOpcode() != 0x00
+                // fragmenting frames processed by extensions (compressed etc.) could break the peer.
+                && !frame.isRsv1() && !frame.isRsv2() && !frame.isRsv3()
+                && outFragmentedType == 0) {
+            fragmentedWrite = new FragmentedWrite(writer, frame, localMaxOutgoingFrameSize, completionHandler);
+            try {
+                fragmentedWrite.run();
+            } catch (RuntimeException e) {
+                fragmentedWrite = null;
+                throw e;
+            }
+        } else {
+            write(writer, serialize(frame), completionHandler, priority);
+        }
+    }
+
+    private static void write(Writer writer, ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+        if (priority) {
+            writer.write(buffer, completionHandler, true);
+        } else {
+            writer.write(buffer, completionHandler);
+        }
+    }
+
+    /**
+     * Write queued data frames until the queue is empty or another fragmented write is started. Must be called with
+     * {@link #writeLock} held.
+     */
+    private void writePending() {
+        PendingWrite pendingWrite;
+        while (fragmentedWrite == null && (pendingWrite = pendingWrites.poll()) != null) {
+            doWrite(pendingWrite.writer, pendingWrite.frame, pendingWrite.completionHandler, pendingWrite.priority);
+        }
+    }
+
+    /**
+     * Stop fragmented write and remove all queued data frames. Must be called with {@link #writeLock} held; returned
+     * completion handlers have to be notified after the lock is released.
+     */
+    private List<CompletionHandler<ByteBuffer>> abortWrites() {
+        final List<CompletionHandler<ByteBuffer>> aborted = new ArrayList<CompletionHandler<ByteBuffer>>();
+
+        if (fragmentedWrite != null) {
+            aborted.add(fragmentedWrite.completionHandler);
+            fragmentedWrite = null;
+        }
+
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            aborted.add(pendingWrite.completionHandler);
+        }
+
+        return aborted;
+    }
+
+    private static void failAll(List<CompletionHandler<ByteBuffer>> completionHandlers, Throwable throwable) {
+        for (CompletionHandler<ByteBuffer> completionHandler : completionHandlers) {
+            completionHandler.failed(throwable);
+        }
+    }
+
+    private ByteBuffer serialize(Frame frame) {
         byte opcode = checkForLastFrame(frame);
         if (frame.isRsv1()) {
             opcode |= 0x40;
@@ -424,26 +718,51 @@ public final class ProtocolHandler {
             opcode |= 0x10;
         }
 
-        final byte[] bytes = frame.getPayloadData();
-        final byte[] lengthBytes = encodeLength(frame.getPayloadLength());
-
         // TODO - length limited to int, it should be long (see RFC 9788, chapter 5.2)
         // TODO - in that case, we will need to NOT store dataframe inmemory - introduce maskingByteStream or
         // TODO   maskingByteBuffer
-        final int payloadLength = (int) frame.getPayloadLength();
+        return serialize(opcode, frame.getSharedPayloadData(), 0, (int) frame.getPayloadLength(), frame.getMaskingKey());
+    }
+
+    /**
+     * Serialize text frame; the text is encoded right after the frame header and masked in place.
+     */
+    private ByteBuffer serializeText(byte opcode, String text) {
+        final int payloadLength = Utf8Encoder.encodedLength(text);
+        final byte[] lengthBytes = encodeLength(payloadLength);
+
+        final int payloadStart = 1 + lengthBytes.length + (maskData ? MASK_SIZE : 0);
+        final byte[] packet = new byte[payloadStart + payloadLength];
+        packet[0] = opcode;
+        System.arraycopy(lengthBytes, 0, packet, 1, lengthBytes.length);
+        Utf8Encoder.encode(text, packet, payloadStart);
+
+        if (maskData) {
+            final Masker masker = new Masker(maskingKeyRandom.nextInt());
+            packet[1] |= 0x80;
+            masker.mask(packet, payloadStart, packet, payloadStart, payloadLength);
+            System.arraycopy(masker.getMask(), 0, packet, payloadStart - MASK_SIZE, MASK_SIZE);
+        }
+
+        return ByteBuffer.wrap(packet);
+    }
+
+    private ByteBuffer serialize(byte opcode, byte[] bytes, int offset, int payloadLength, int maskingKey) {
+        final byte[] lengthBytes = encodeLength(payloadLength);
+
         int length = 1 + lengthBytes.length + payloadLength + (maskData ? MASK_SIZE : 0);
         int payloadStart = 1 + lengthBytes.length + (maskData ? MASK_SIZE : 0);
         final byte[] packet = new byte[length];
         packet[0] = opcode;
         System.arraycopy(lengthBytes, 0, packet, 1, lengthBytes.length);
         if (maskData) {
-            Masker masker = new Masker(frame.getMaskingKey());
+            Masker masker = new Masker(maskingKey);
             packet[1] |= 0x80;
-            masker.mask(packet, payloadStart, bytes, payloadLength);
+            masker.mask(packet, payloadStart, bytes, offset, payloadLength);
             System.arraycopy(masker.getMask(), 0, packet, payloadStart - MASK_SIZE,
                     MASK_SIZE);
         } else {
-            System.arraycopy(bytes, 0, packet, payloadStart, payloadLength);
+            System.arraycopy(bytes, offset, packet, payloadStart, payloadLength);
         }
         return ByteBuffer.wrap(packet);
     }
@@ -552,6 +871,30 @@ public final class ProtocolHandler {
         }
     }
 
+    /**
+     * Get number of bytes which have to be available in the buffer passed to {@link #unframe(ByteBuffer)} to continue
+     * parsing of the current frame.
+     * <p/>
+     * Useful when {@link #unframe(ByteBuffer)} returned {@code null}; the caller can then collect only the bytes
+     * which are needed instead of all incoming data.
+     *
+     * @return number of required bytes.
+     */
+    long getRequiredBytes() {
+        switch (state.state) {
+            case 0:
+                return 2;
+            case 1:
+                return state.lengthCode <= 125 ? 0 : (state.lengthCode == 126 ? 2 : 8);
+            case 2:
+                return state.masked ? MASK_SIZE : 0;
+            case 3:
+                return state.length;
+            default:
+                throw new IllegalStateException("Unexpected state: " + state.state);
+        }
+    }
+
     /**
      * TODO.
      * <p/>
@@ -587,13 +930,7 @@ public final class ProtocolHandler {
             }
         }
 
-        TyrusFrame tyrusFrame = TyrusFrame.wrap(frame, inFragmentedType, remainder);
-
-        // TODO - utf8 decoder needs this state to be shared among decoded frames.
-        // TODO - investigate whether it can be removed; (this effectively denies lazy decoding)
-        if (tyrusFrame instanceof TextFrame) {
-            remainder = ((TextFrame) tyrusFrame).getRemainder();
-        }
+        TyrusFrame tyrusFrame = TyrusFrame.wrap(frame, inFragmentedType, utf8Decoder);
 
         tyrusFrame.respond(socket);
 
@@ -667,6 +1004,142 @@ public final class ProtocolHandler {
         }
     }
 
+    /**
+     * Data frame waiting for fragmented write to complete.
+     */
+    private static class PendingWrite {
+        private final Writer writer;
+        private final Frame frame;
+        private final CompletionHandler<ByteBuffer> completionHandler;
+        private final boolean priority;
+
+        private PendingWrite(Writer writer, Frame frame, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+            this.writer = writer;
+            this.frame = frame;
+            this.completionHandler = completionHandler;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Writes one data message as a sequence of fragments; next fragment is written when the previous one is completed.
+     * <p/>
+     * All state is guarded by {@link #writeLock}.
+     */
+    private class FragmentedWrite extends CompletionHandler<ByteBuffer> {
+
+        private final Writer writer;
+        private final byte opcode;
+        private final byte[] payload;
+        private final int payloadLength;
+        private final int maxFragmentSize;
+        private final CompletionHandler<ByteBuffer> completionHandler;
+
+        private int offset = 0;
+        private boolean writing = false;
+        private boolean completedWhileWriting = false;
+
+        private FragmentedWrite(Writer writer, Frame frame, int maxFragmentSize, CompletionHandler<ByteBuffer> completionHandler) {
+            this.writer = writer;
+            this.opcode = frame.getOpcode();
+            this.payload = frame.getSharedPayloadData();
+            this.payloadLength = (int) frame.getPayloadLength();
+            this.maxFragmentSize = maxFragmentSize;
+            this.completionHandler = completionHandler;
+        }
+
+        /**
+         * Write fragments until some write is not completed synchronously.
+         */
+        void run() {
+            writing = true;
+            try {
+                do {
+                    completedWhileWriting = false;
+
+                    final int length = Math.min(maxFragmentSize, payloadLength - offset);
+                    final boolean first = offset == 0;
+                    final boolean last = offset + length == payloadLength;
+
+                    final byte fragmentOpcode = (byte) ((first ? opcode : 0x00) | (last ? 0x80 : 0x00));
+                    final ByteBuffer fragment = serialize(fragmentOpcode, payload, offset, length,
+                            maskData ? maskingKeyRandom.nextInt() : 0);
+                    offset += length;
+
+                    writer.write(fragment, this);
+                } while (completedWhileWriting && offset < payloadLength);
+            } finally {
+                writing = false;
+            }
+        }
+
+        @Override
+        public void completed(ByteBuffer result) {
+            synchronized (writeLock) {
+                if (fragmentedWrite != this) {
+                    return;
+                }
+
+                if (offset < payloadLength) {
+                    if (writing) {
+                        completedWhileWriting = true;
+                    } else {
+                        run();
+                    }
+                    return;
+                }
+
+                fragmentedWrite = null;
+                writePending();
+            }
+
+            completionHandler.completed(result);
+        }
+
+        @Override
+        public void failed(Throwable throwable) {
+            if (abort()) {
+                completionHandler.failed(throwable);
+            }
+        }
+
+        @Override
+        public void cancelled() {
+            if (abort()) {
+                completionHandler.cancelled();
+            }
+        }
+
+        /**
+         * Fail queued data frames and close the connection; the fragmented message cannot be finished and the peer
+         * would treat any other data frame as a protocol error.
+         *
+         * @return {@code false} when this write was already aborted.
+         */
+        private boolean abort() {
+            final List<CompletionHandler<ByteBuffer>> aborted;
+
+            synchronized (writeLock) {
+                if (fragmentedWrite != this) {
+                    return false;
+                }
+
+                aborted = abortWrites();
+            }
+
+            // first one is this write.
+            failAll(aborted.subList(1, aborted.size()), new IllegalStateException("Fragmented message was not sent."));
+
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Connection close failed.", e);
+            }
+
+            return true;
+        }
+    }
+
     private static class ParsingState {
         int state = 0;
         byte opcode = (byte) -1;
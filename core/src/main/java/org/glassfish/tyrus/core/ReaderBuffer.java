@@ -41,10 +41,6 @@
 package org.glassfish.tyrus.core;
 
 import java.io.Reader;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -53,7 +49,9 @@ import javax.websocket.MessageHandler;
 /**
  * Buffer used for the case when partial messages are received by the {@link MessageHandler.Whole}.
  * </p>
- * For the first received message {@link MessageHandler.Whole#onMessage(Object)} is called within a new executor to allow blocking reading of passed {@link Reader}.
+ * For the first received message {@link MessageHandler.Whole#onMessage(Object)} is called in the session
+ * {@link SessionTaskQueue} to allow blocking reading of passed {@link Reader}. Message parts are passed to the reader
+ * through a bounded {@link ChunkRing}, without copying.
  *
  * @author Danny Coward (danny.coward at oracle.com)
  * @author Stepan Kopriva (stepan.kopriva at oracle.com)
@@ -61,119 +59,94 @@ import javax.websocket.MessageHandler;
  */
 class ReaderBuffer {
 
-    private final AtomicBoolean buffering = new AtomicBoolean(true);
-    private final ExecutorService executorService;
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition condition = lock.newCondition();
-
     private static final Logger LOGGER = Logger.getLogger(ReaderBuffer.class.getName());
 
-    private boolean receivedLast = false;
+    private final SessionTaskQueue taskQueue;
+    private final boolean blocking;
+
     private int bufferSize;
     private int currentlyBuffered;
-    private StringBuffer buffer;
-    private BufferedStringReader reader = null;
+    private boolean discarding = false;
+    private ChunkRing<String> ring = null;
     private MessageHandler.Whole<Reader> messageHandler;
 
     /**
      * Constructor.
-     */
-    public ReaderBuffer(ExecutorService executorService) {
-        this.buffer = new StringBuffer();
-        this.executorService = executorService;
-        currentlyBuffered = 0;
-    }
-
-    /**
-     * Get next received chars.
      *
-     * @return next received chars.
+     * @param taskQueue dispatch context of the session, used to invoke the message handler.
      */
-    public char[] getNextChars(int number) {
-        lock.lock();
-        try {
-            if (buffer.length() == 0) {
-                if (receivedLast) {
-                    this.reader = null;
-                    buffering.set(true);
-                    this.currentlyBuffered = 0;
-                    return null;
-                } else { // there's more to come...so wait here...
-                    boolean interrupted;
-                    do {
-                        interrupted = false;
-                        try {
-                            condition.await();
-                        } catch (InterruptedException e) {
-                            interrupted = true;
-                        }
-                    } while (interrupted);
-                }
-            }
-
-            int size = number > buffer.length() ? buffer.length() : number;
-
-            char[] result = new char[size];
-            buffer.getChars(0, size, result, 0);
-            buffer.delete(0, size);
-
-            return result;
-        } finally {
-            lock.unlock();
-        }
+    public ReaderBuffer(SessionTaskQueue taskQueue) {
+        this(taskQueue, true);
     }
 
     /**
-     * Finish reading of the buffer.
+     * Constructor.
+     *
+     * @param taskQueue dispatch context of the session, used to invoke the message handler.
+     * @param blocking  {@code false} when message parts should be buffered instead of blocking the caller of
+     *                  {@link #appendMessagePart}, see {@link ChunkRing}.
      */
-    public void finishReading() {
-        buffer = new StringBuffer();
-        reader = null;
+    public ReaderBuffer(SessionTaskQueue taskQueue, boolean blocking) {
+        this.taskQueue = taskQueue;
+        this.blocking = blocking;
+        currentlyBuffered = 0;
     }
 
     /**
      * Append next message part to the buffer.
+     * <p/>
+     * Blocks when the message handler does not keep up with reading of the message, unless the buffer was created as
+     * non-blocking.
      *
      * @param message the message.
      * @param last    should be {@code true} iff this is the last part of the message, {@code false} otherwise.
      */
     public void appendMessagePart(String message, boolean last) {
-        lock.lock();
-        try {
-            currentlyBuffered += message.length();
-            if (currentlyBuffered <= bufferSize) {
-                buffer.append(message);
-            } else {
-                if (buffering.get()) {
-                    buffering.set(false);
-                    final MessageTooBigException messageTooBigException = new MessageTooBigException("Partial message could not be delivered due to buffer overflow.");
-                    LOGGER.log(Level.FINE, "Partial message could not be delivered due to buffer overflow.", messageTooBigException);
-                    receivedLast = true;
-                    throw messageTooBigException;
-                }
-            }
+        if (discarding) {
+            // rest of the message which was too big.
+            return;
+        }
 
-            this.receivedLast = last;
-            condition.signalAll();
-        } finally {
-            lock.unlock();
+        currentlyBuffered += message.length();
+        if (currentlyBuffered > bufferSize) {
+            discarding = true;
+            if (ring != null) {
+                ring.finish();
+                ring = null;
+            }
+            final MessageTooBigException messageTooBigException = new MessageTooBigException("Partial message could not be delivered due to buffer overflow.");
+            LOGGER.log(Level.FINE, "Partial message could not be delivered due to buffer overflow.", messageTooBigException);
+            throw messageTooBigException;
         }
 
-        if (this.reader == null) {
-            this.reader = new BufferedStringReader(this);
-            executorService.execute(new Runnable() {
+        if (ring == null) {
+            final ChunkRing<String> localRing = new ChunkRing<String>(ChunkRing.DEFAULT_CAPACITY, blocking);
+            final BufferedStringReader reader = new BufferedStringReader(localRing);
+            final MessageHandler.Whole<Reader> localMessageHandler = messageHandler;
+            ring = localRing;
+            taskQueue.execute(new Runnable() {
                 @Override
                 public void run() {
-                    messageHandler.onMessage(reader);
+                    try {
+                        localMessageHandler.onMessage(reader);
+                    } finally {
+                        // the rest of the message is discarded when the handler does not read it.
+                        localRing.close();
+                    }
                 }
             });
         }
+
+        ring.put(message, last);
+        if (last) {
+            ring = null;
+        }
     }
 
     /**
-     * Set the {@link MessageHandler} that will consume the constructed {@link java.io.InputStream}.
+     * Set the {@link MessageHandler} that will consume the constructed {@link Reader}.
      *
-     * @param messageHandler {@link MessageHandler} that will consume the constructed {@link java.io.InputStream}.
+     * @param messageHandler {@link MessageHandler} that will consume the constructed {@link Reader}.
      */
     public void setMessageHandler(MessageHandler.Whole<Reader> messageHandler) {
         this.messageHandler = messageHandler;
@@ -181,13 +154,18 @@ class ReaderBuffer {
 
     /**
      * Reset the buffer size.
+     * <p/>
+     * Called before the first part of the message is appended; previous message which was not finished is ended.
      *
      * @param bufferSize the size to be set.
      */
     public void resetBuffer(int bufferSize) {
         this.bufferSize = bufferSize;
-        buffering.set(true);
         currentlyBuffered = 0;
-        buffer.delete(0, buffer.length());
+        discarding = false;
+        if (ring != null) {
+            ring.finish();
+            ring = null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -266,6 +266,22 @@ public abstract class RemoteEndpointWrapper implements javax.websocket.RemoteEnd
          * @return message sending callback {@link Future}
          */
         private Future<Void> sendAsync(final Object message, final AsyncMessageType type) {
+            if (session.getAsyncSendListener() != null) {
+                // listener needs to be notified about the result, so the handler variant is used.
+                final TyrusFuture<Void> future = new TyrusFuture<Void>();
+                sendAsync(message, new SendHandler() {
+                    @Override
+                    public void onResult(SendResult result) {
+                        if (result.isOK()) {
+                            future.setResult(null);
+                        } else {
+                            future.setFailure(result.getException());
+                        }
+                    }
+                }, type);
+                return future;
+            }
+
             Future<?> result = null;
 
             switch (type) {
@@ -325,17 +341,34 @@ public abstract class RemoteEndpointWrapper implements javax.websocket.RemoteEnd
          * @param type    message type
          */
         private void sendAsync(final Object message, final SendHandler handler, final AsyncMessageType type) {
+            final AsyncSendListener listener = session.getAsyncSendListener();
+            final SendHandler sendHandler;
+
+            if (listener == null) {
+                sendHandler = handler;
+            } else {
+                final Object observed = message instanceof ByteBuffer ? ((ByteBuffer) message).duplicate() : message;
+                listener.onSend(observed);
+                sendHandler = new SendHandler() {
+                    @Override
+                    public void onResult(SendResult result) {
+                        listener.onResult(observed, result);
+                        handler.onResult(result);
+                    }
+                };
+            }
+
             switch (type) {
                 case TEXT:
-                    remoteEndpoint.sendText((String) message, handler);
+                    remoteEndpoint.sendText((String) message, sendHandler);
                     break;
 
                 case BINARY:
-                    remoteEndpoint.sendBinary((ByteBuffer) message, handler);
+                    remoteEndpoint.sendBinary((ByteBuffer) message, sendHandler);
                     break;
 
                 case OBJECT:
-                    sendSyncObject(message, handler);
+                    sendSyncObject(message, sendHandler);
                     break;
             }
         }
@@ -351,6 +384,8 @@ public abstract class RemoteEndpointWrapper implements javax.websocket.RemoteEnd
     Future<?> sendSyncObject(Object o) {
         if (o instanceof String) {
             return remoteEndpoint.sendText((String) o);
+        } else if (o instanceof Utf8Text) {
+            return remoteEndpoint.sendText((Utf8Text) o);
         } else {
             Object toSend;
             try {
@@ -407,6 +442,8 @@ public abstract class RemoteEndpointWrapper implements javax.websocket.RemoteEnd
     void sendSyncObject(Object o, SendHandler handler) {
         if (o instanceof String) {
             remoteEndpoint.sendText((String) o, handler);
+        } else if (o instanceof Utf8Text) {
+            remoteEndpoint.sendText((Utf8Text) o, handler);
         } else {
             Object toSend = null;
             try {
@@ -0,0 +1,114 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatch context of one {@link TyrusSession}; runs tasks in submission order, one at a time, on the container
+ * {@link ExecutorService}.
+ * <p/>
+ * Used for streaming message handlers, which cannot be invoked on the thread reading frames of the connection. Tasks
+ * of one session never run concurrently and only one executor task is active per session at a time, no matter how
+ * many messages are queued.
+ *
+ * @author agent (agent at local)
+ */
+class SessionTaskQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionTaskQueue.class.getName());
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+    private final ExecutorService executorService;
+
+    // number of submitted tasks which were not executed yet (including the one being executed).
+    private final AtomicInteger pending = new AtomicInteger(0);
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            boolean more;
+            do {
+                final Runnable task = queue.poll();
+                boolean thrown = true;
+                try {
+                    task.run();
+                    thrown = false;
+                } catch (RuntimeException e) {
+                    // keep processing the queue, other tasks would be stuck otherwise.
+                    thrown = false;
+                    LOGGER.log(Level.WARNING, e.getMessage(), e);
+                } finally {
+                    more = pending.decrementAndGet() != 0;
+                    if (more && thrown) {
+                        // Error is propagated to the executor, remaining tasks are processed by a new drain task.
+                        executorService.execute(this);
+                    }
+                }
+            } while (more);
+        }
+    };
+
+    /**
+     * Create queue.
+     *
+     * @param executorService executor used to run the tasks.
+     */
+    SessionTaskQueue(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Submit a task. It will be executed after all previously submitted tasks are finished.
+     *
+     * @param task task to be executed.
+     */
+    void execute(Runnable task) {
+        queue.add(task);
+        if (pending.getAndIncrement() == 0) {
+            executorService.execute(drain);
+        }
+    }
+}
@@ -218,6 +218,37 @@ public class TyrusEndpoint {
         this.endpoint.onMessage(new TyrusRemoteEndpoint(socket), text);
     }
 
+    /**
+     * <p>
+     * Invoked when {@link TyrusWebSocket#onFragment(boolean, org.glassfish.tyrus.core.frame.TextFrame)} has been called
+     * on a particular {@link TyrusWebSocket} instance and {@link Utf8Text} message handler is registered.
+     * </p>
+     *
+     * @param socket   the {@link TyrusWebSocket} received the message fragment.
+     * @param fragment the validated UTF-8 encoded message fragment.
+     * @param last     flag indicating if this was the last fragment.
+     */
+    public void onUtf8Fragment(TyrusWebSocket socket, ByteBuffer fragment, boolean last) {
+        try {
+            this.endpoint.onPartialUtf8Text(new TyrusRemoteEndpoint(socket), fragment, last);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, t.getMessage(), t);
+        }
+    }
+
+    /**
+     * <p>
+     * Invoked when {@link TyrusWebSocket#onMessage(org.glassfish.tyrus.core.frame.TextFrame)} has been called on a
+     * particular {@link TyrusWebSocket} instance and {@link Utf8Text} message handler is registered.
+     * </p>
+     *
+     * @param socket the {@link TyrusWebSocket} that received a message.
+     * @param text   the message received.
+     */
+    public void onMessage(TyrusWebSocket socket, Utf8Text text) {
+        this.endpoint.onMessage(new TyrusRemoteEndpoint(socket), text);
+    }
+
     /**
      * <p>
      * Invoked when {@link TyrusWebSocket#onMessage(org.glassfish.tyrus.core.frame.BinaryFrame)} has been called on a
@@ -473,10 +473,20 @@ public class TyrusEndpointWrapper {
             final TyrusSession session = new TyrusSession(container, re, this, subprotocol, extensions, false,
                     getURI(contextPath, null), null, Collections.<String, String>emptyMap(), null, Collections.<String, List<String>>emptyMap());
             remoteEndpointToSession.put(re, session);
+            registerHeartbeat(session);
             return session;
         }
     }
 
+    private void registerHeartbeat(TyrusSession session) {
+        if (container instanceof BaseContainer) {
+            final HeartbeatService heartbeatService = ((BaseContainer) container).getHeartbeatService();
+            if (heartbeatService != null) {
+                heartbeatService.register(session);
+            }
+        }
+    }
+
     private TyrusSession getSession(TyrusRemoteEndpoint gs) {
         synchronized (remoteEndpointToSession) {
             return remoteEndpointToSession.get(gs);
@@ -508,6 +518,7 @@ public class TyrusEndpointWrapper {
                         getURI(upgradeRequest.getRequestURI().toString(), upgradeRequest.getQueryString()),
                         upgradeRequest.getQueryString(), templateValues, upgradeRequest.getUserPrincipal(), upgradeRequest.getParameterMap());
                 remoteEndpointToSession.put(gs, session);
+                registerHeartbeat(session);
             }
 
             ErrorCollector collector = new ErrorCollector();
@@ -678,8 +689,7 @@ public class TyrusEndpointWrapper {
                 switch (state) {
                     case RUNNING:
                         if (buffer == null) {
-                            // TODO:
-                            buffer = new ReaderBuffer(((BaseContainer) container).getExecutorService());
+                            buffer = new ReaderBuffer(session.getTaskQueue(), session.isBlockingStreaming());
                             session.setReaderBuffer(buffer);
                         }
                         buffer.resetBuffer(session.getMaxTextMessageBufferSize());
@@ -744,6 +754,120 @@ public class TyrusEndpointWrapper {
         }
     }
 
+    /**
+     * Called by the provider when the web socket connection
+     * has an incoming text message from the given remote endpoint and the message
+     * is delivered to {@link Utf8Text} message handler.
+     *
+     * @param gs   {@link org.glassfish.tyrus.core.TyrusRemoteEndpoint} who sent the message.
+     * @param text the message.
+     */
+    public void onMessage(TyrusRemoteEndpoint gs, Utf8Text text) {
+        TyrusSession session = getSession(gs);
+
+        if (session == null) {
+            LOGGER.log(Level.FINE, "Message received on already closed connection.");
+            return;
+        }
+
+        try {
+            session.restartIdleTimeoutExecutor();
+            final TyrusSession.State state = session.getState();
+            if (state == TyrusSession.State.RECEIVING_BINARY || state == TyrusSession.State.RECEIVING_TEXT) {
+                session.setState(TyrusSession.State.RUNNING);
+            }
+            if (session.isUtf8TextHandlerPresent()) {
+                session.notifyMessageHandlers(text);
+            } else {
+                throw new IllegalStateException(String.format("Text messageHandler not found. Session: '%s'.", session));
+            }
+        } catch (Throwable t) {
+            if (!processThrowable(t, session)) {
+                ErrorCollector collector = new ErrorCollector();
+                final Object toCall = endpoint != null ? endpoint :
+                        componentProvider.getInstance(endpointClass, session, collector);
+                if (toCall != null) {
+                    if (endpoint != null) {
+                        ((Endpoint) toCall).onError(session, t);
+                    } else {
+                        try {
+                            onError.invoke(toCall, session, t);
+                        } catch (Exception e) {
+                            LOGGER.log(Level.WARNING, t.getMessage(), t);
+                        }
+                    }
+                } else if (!collector.isEmpty()) {
+                    final DeploymentException deploymentException = collector.composeComprehensiveException();
+                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by the provider when the web socket connection
+     * has an incoming partial text message from the given remote endpoint and the message
+     * is delivered to {@link Utf8Text} message handler. Validated UTF-8 bytes are buffered
+     * and the whole message is passed to the handler when the last part is received.
+     *
+     * @param gs          {@link TyrusRemoteEndpoint} who sent the message.
+     * @param partialText UTF-8 encoded piece of the text message. Code point can be split between two parts.
+     * @param last        to indicate if this is the last partial text in the sequence
+     */
+    public void onPartialUtf8Text(TyrusRemoteEndpoint gs, ByteBuffer partialText, boolean last) {
+        TyrusSession session = getSession(gs);
+
+        if (session == null) {
+            LOGGER.log(Level.FINE, "Message received on already closed connection.");
+            return;
+        }
+
+        try {
+            session.restartIdleTimeoutExecutor();
+            final TyrusSession.State state = session.getState();
+            switch (state) {
+                case RUNNING:
+                    session.getUtf8TextBuffer().resetBuffer(session.getMaxTextMessageBufferSize());
+                    session.getUtf8TextBuffer().appendMessagePart(partialText);
+                    session.setState(TyrusSession.State.RECEIVING_TEXT);
+                    break;
+                case RECEIVING_TEXT:
+                    session.getUtf8TextBuffer().appendMessagePart(partialText);
+                    if (last) {
+                        final Utf8Text message = new Utf8Text(session.getUtf8TextBuffer().getBufferedContent());
+                        session.notifyMessageHandlers(message);
+                        session.setState(TyrusSession.State.RUNNING);
+                    }
+                    break;
+                default:
+                    if (state == TyrusSession.State.RECEIVING_BINARY) {
+                        session.setState(TyrusSession.State.RUNNING);
+                    }
+                    throw new IllegalStateException(String.format("Text message received out of order. Session: '%s'.", session));
+            }
+        } catch (Throwable t) {
+            if (!processThrowable(t, session)) {
+                ErrorCollector collector = new ErrorCollector();
+                final Object toCall = endpoint != null ? endpoint :
+                        componentProvider.getInstance(endpointClass, session, collector);
+                if (toCall != null) {
+                    if (endpoint != null) {
+                        ((Endpoint) toCall).onError(session, t);
+                    } else {
+                        try {
+                            onError.invoke(toCall, session, t);
+                        } catch (Exception e) {
+                            LOGGER.log(Level.WARNING, t.getMessage(), t);
+                        }
+                    }
+                } else if (!collector.isEmpty()) {
+                    final DeploymentException deploymentException = collector.composeComprehensiveException();
+                    LOGGER.log(Level.WARNING, deploymentException.getMessage(), deploymentException);
+                }
+            }
+        }
+    }
+
     /**
      * Called by the provider when the web socket connection
      * has an incoming partial binary message from the given remote endpoint. Partial
@@ -776,8 +900,7 @@ public class TyrusEndpointWrapper {
                 switch (state) {
                     case RUNNING:
                         if (buffer == null) {
-                            // TODO
-                            buffer = new InputStreamBuffer(((BaseContainer) container).getExecutorService());
+                            buffer = new InputStreamBuffer(session.getTaskQueue(), session.isBlockingStreaming());
                             session.setInputStreamBuffer(buffer);
                         }
                         buffer.resetBuffer(session.getMaxBinaryMessageBufferSize());
@@ -884,6 +1007,11 @@ public class TyrusEndpointWrapper {
 
         session.restartIdleTimeoutExecutor();
 
+        final HeartbeatService.Heartbeat heartbeat = session.getHeartbeat();
+        if (heartbeat != null && heartbeat.getService().onPong(session, bytes)) {
+            return;
+        }
+
         if (session.isPongHandlerPreset()) {
             session.notifyPongHandler(new PongMessage() {
                 @Override
@@ -970,6 +1098,11 @@ public class TyrusEndpointWrapper {
         } finally {
             session.setState(TyrusSession.State.CLOSED);
 
+            final HeartbeatService.Heartbeat heartbeat = session.getHeartbeat();
+            if (heartbeat != null) {
+                heartbeat.getService().unregister(session);
+            }
+
             synchronized (remoteEndpointToSession) {
                 remoteEndpointToSession.remove(gs);
                 componentProvider.removeSession(session);
@@ -993,44 +1126,28 @@ public class TyrusEndpointWrapper {
      * @return map of sessions and futures for user to get the information about status of the message.
      */
     public Map<Session, Future<?>> broadcast(final String message) {
+        return broadcast(new TextFrame(message, false, true));
+    }
 
-        final Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
-        byte[] frame = null;
-
-        for (Map.Entry<TyrusRemoteEndpoint, TyrusSession> e : remoteEndpointToSession.entrySet()) {
-            if (e.getValue().isOpen()) {
-
-                final TyrusRemoteEndpoint remoteEndpoint = e.getKey();
-                final ProtocolHandler protocolHandler = remoteEndpoint.getSocket().getProtocolHandler();
-
-                // we need to let protocol handler execute extensions if there are any
-                if (protocolHandler.hasExtensions()) {
-                    byte[] tempFrame;
-
-                    final Frame dataFrame = new TextFrame(message, false, true);
-                    final ByteBuffer byteBuffer = remoteEndpoint.getSocket().getProtocolHandler().frame(dataFrame);
-                    tempFrame = new byte[byteBuffer.remaining()];
-                    byteBuffer.get(tempFrame);
-
-                    final Future<Frame> frameFuture = remoteEndpoint.sendRawFrame(ByteBuffer.wrap(tempFrame));
-                    futures.put(e.getValue(), frameFuture);
-
-                } else {
-
-                    if (frame == null) {
-                        final Frame dataFrame = new TextFrame(message, false, true);
-                        final ByteBuffer byteBuffer = remoteEndpoint.getSocket().getProtocolHandler().frame(dataFrame);
-                        frame = new byte[byteBuffer.remaining()];
-                        byteBuffer.get(frame);
-                    }
+    /**
+     * Broadcasts text message which is already encoded to all connected clients.
+     * <p/>
+     * Bytes of the message are not copied when the text wraps whole array.
+     *
+     * @param message message to be broadcasted.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     */
+    public Map<Session, Future<?>> broadcast(final Utf8Text message) {
+        final ByteBuffer buffer = message.getBuffer();
 
-                    final Future<Frame> frameFuture = remoteEndpoint.sendRawFrame(ByteBuffer.wrap(frame));
-                    futures.put(e.getValue(), frameFuture);
-                }
-            }
+        final Frame.Builder builder = Frame.builder().opcode((byte) 0x01).fin(true);
+        if (buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0) {
+            builder.payloadData(buffer.array()).payloadLength(buffer.remaining());
+        } else {
+            builder.payloadData(Utils.getRemainingArray(buffer));
         }
 
-        return futures;
+        return broadcast(builder.build());
     }
 
     /**
@@ -1040,9 +1157,26 @@ public class TyrusEndpointWrapper {
      * @return map of sessions and futures for user to get the information about status of the message.
      */
     public Map<Session, Future<?>> broadcast(final ByteBuffer message) {
+        byte[] byteArrayMessage = new byte[message.remaining()];
+        message.get(byteArrayMessage);
+
+        return broadcast(new BinaryFrame(byteArrayMessage, false, true));
+    }
+
+    /**
+     * Send data frame to all connected clients.
+     * <p/>
+     * Frame is serialized once and the result is shared by all sessions which neither use any extension nor fragment
+     * outgoing frames. For other sessions the frame is sent like any other data frame, so it is processed by
+     * extensions and queued behind fragmented message in the order in which it is written.
+     *
+     * @param dataFrame frame to be sent.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     */
+    private Map<Session, Future<?>> broadcast(final Frame dataFrame) {
 
         final Map<Session, Future<?>> futures = new HashMap<Session, Future<?>>();
-        byte[] frame = null;
+        ByteBuffer frame = null;
 
         for (Map.Entry<TyrusRemoteEndpoint, TyrusSession> e : remoteEndpointToSession.entrySet()) {
             if (e.getValue().isOpen()) {
@@ -1050,35 +1184,19 @@ public class TyrusEndpointWrapper {
                 final TyrusRemoteEndpoint remoteEndpoint = e.getKey();
                 final ProtocolHandler protocolHandler = remoteEndpoint.getSocket().getProtocolHandler();
 
-                // we need to let protocol handler execute extensions if there are any
-                if (protocolHandler.hasExtensions()) {
-                    byte[] tempFrame;
-                    byte[] byteArrayMessage = new byte[message.remaining()];
-                    message.get(byteArrayMessage);
-
-                    final Frame dataFrame = new BinaryFrame(byteArrayMessage, false, true);
-                    final ByteBuffer byteBuffer = remoteEndpoint.getSocket().getProtocolHandler().frame(dataFrame);
-                    tempFrame = new byte[byteBuffer.remaining()];
-                    byteBuffer.get(tempFrame);
-
-                    final Future<Frame> frameFuture = remoteEndpoint.sendRawFrame(ByteBuffer.wrap(tempFrame));
-                    futures.put(e.getValue(), frameFuture);
-
-                } else {
+                final Future<Frame> frameFuture;
 
+                if (protocolHandler.isSerializedFrameShareable()) {
                     if (frame == null) {
-                        byte[] byteArrayMessage = new byte[message.remaining()];
-                        message.get(byteArrayMessage);
-
-                        final Frame dataFrame = new BinaryFrame(byteArrayMessage, false, true);
-                        final ByteBuffer byteBuffer = remoteEndpoint.getSocket().getProtocolHandler().frame(dataFrame);
-                        frame = new byte[byteBuffer.remaining()];
-                        byteBuffer.get(frame);
+                        frame = protocolHandler.frame(dataFrame);
                     }
-
-                    final Future<Frame> frameFuture = remoteEndpoint.sendRawFrame(ByteBuffer.wrap(frame));
-                    futures.put(e.getValue(), frameFuture);
+                    frameFuture = remoteEndpoint.sendRawFrame(frame.duplicate());
+                } else {
+                    // raw frame would bypass fragmented message being written and the close frame check.
+                    frameFuture = protocolHandler.send(dataFrame);
                 }
+
+                futures.put(e.getValue(), frameFuture);
             }
         }
 
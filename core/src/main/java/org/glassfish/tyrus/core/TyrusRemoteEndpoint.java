@@ -45,6 +45,8 @@ import java.util.concurrent.Future;
 import javax.websocket.CloseReason;
 import javax.websocket.SendHandler;
 
+import org.glassfish.tyrus.spi.CompletionHandler;
+
 /**
  * Subset of {@link javax.websocket.RemoteEndpoint} interface which should be implemented
  * by container implementations.
@@ -86,6 +88,27 @@ public class TyrusRemoteEndpoint {
         socket.send(text, handler);
     }
 
+    /**
+     * Send text message which is already encoded.
+     *
+     * @param text the message to be sent.
+     * @return {@link Future} related to send command.
+     */
+    public Future<Frame> sendText(Utf8Text text) {
+        return socket.send(text);
+    }
+
+    /**
+     * Send text message which is already encoded.
+     *
+     * @param text    the message to be sent.
+     * @param handler notification handler. {@link SendHandler#onResult(javax.websocket.SendResult)} is called when send
+     *                operation is completed.
+     */
+    public void sendText(Utf8Text text, SendHandler handler) {
+        socket.send(text, handler);
+    }
+
     /**
      * Send binary message.
      *
@@ -107,6 +130,26 @@ public class TyrusRemoteEndpoint {
         socket.send(Utils.getRemainingArray(data), handler);
     }
 
+    /**
+     * Send text message before data messages which were not written yet.
+     *
+     * @param text the message to be sent.
+     * @return {@link Future} related to send command.
+     */
+    public Future<Frame> sendPriorityText(String text) {
+        return socket.sendPriority(text);
+    }
+
+    /**
+     * Send binary message before data messages which were not written yet.
+     *
+     * @param data the message to be sent.
+     * @return {@link Future} related to send command.
+     */
+    public Future<Frame> sendPriorityBinary(ByteBuffer data) {
+        return socket.sendPriority(Utils.getRemainingArray(data));
+    }
+
     /**
      * Send text message in pieces, blocking until all of the message has been transmitted. The runtime
      * reads the message in order. Non-final pieces are sent with isLast set to false. The final piece
@@ -142,6 +185,16 @@ public class TyrusRemoteEndpoint {
         return socket.sendPing(Utils.getRemainingArray(data));
     }
 
+    /**
+     * Send a Ping message; failures are reported only to the completion handler.
+     *
+     * @param data              the data to be carried in the ping request.
+     * @param completionHandler notified when the ping is written or when it cannot be written.
+     */
+    void sendPing(ByteBuffer data, CompletionHandler<Frame> completionHandler) {
+        socket.sendPing(Utils.getRemainingArray(data), completionHandler);
+    }
+
     /**
      * Allows the developer to send an unsolicited Pong message containing the given application
      * data in order to serve as a unidirectional
@@ -71,6 +71,8 @@ import javax.websocket.PongMessage;
 import javax.websocket.Session;
 import javax.websocket.WebSocketContainer;
 
+import org.glassfish.tyrus.spi.CompletionHandler;
+
 /**
  * Implementation of the {@link Session}.
  *
@@ -100,6 +102,7 @@ public class TyrusSession implements Session {
     private final AtomicReference<State> state = new AtomicReference<State>(State.RUNNING);
     private final TextBuffer textBuffer = new TextBuffer();
     private final BinaryBuffer binaryBuffer = new BinaryBuffer();
+    private final BinaryBuffer utf8TextBuffer = new BinaryBuffer();
     private final List<Extension> negotiatedExtensions;
     private final String negotiatedSubprotocol;
 
@@ -110,6 +113,9 @@ public class TyrusSession implements Session {
     private ScheduledExecutorService service;
     private ReaderBuffer readerBuffer;
     private InputStreamBuffer inputStreamBuffer;
+    private SessionTaskQueue taskQueue;
+    private volatile AsyncSendListener asyncSendListener = null;
+    private volatile HeartbeatService.Heartbeat heartbeat = null;
 
     TyrusSession(WebSocketContainer container, TyrusRemoteEndpoint remoteEndpoint, TyrusEndpointWrapper tyrusEndpointWrapper,
                  String subprotocol, List<Extension> extensions, boolean isSecure,
@@ -245,6 +251,7 @@ public class TyrusSession implements Session {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.addMessageHandler(handler);
+            updateUtf8TextRequested();
         }
     }
 
@@ -260,6 +267,18 @@ public class TyrusSession implements Session {
         checkConnectionState(State.CLOSED);
         synchronized (handlerManager) {
             handlerManager.removeMessageHandler(handler);
+            updateUtf8TextRequested();
+        }
+    }
+
+    /**
+     * Let the web socket know whether received text messages should be delivered as {@link Utf8Text}, so the session
+     * does not have to be looked up for every received text frame. Must be called with {@link #handlerManager} lock held.
+     */
+    private void updateUtf8TextRequested() {
+        final TyrusWebSocket socket = asyncRemote.remoteEndpoint.getSocket();
+        if (socket != null) {
+            socket.setUtf8TextRequested(handlerManager.isUtf8TextHandlerPresent());
         }
     }
 
@@ -309,6 +328,17 @@ public class TyrusSession implements Session {
         return endpoint.broadcast(message);
     }
 
+    /**
+     * Broadcasts text message which is already encoded to all connected clients.
+     *
+     * @param message message to be broadcasted.
+     * @return map of sessions and futures for user to get the information about status of the message.
+     * @see Utf8Text#wrap(ByteBuffer)
+     */
+    public Map<Session, Future<?>> broadcast(Utf8Text message) {
+        return endpoint.broadcast(message);
+    }
+
     /**
      * Broadcasts binary message to all connected clients.
      *
@@ -319,6 +349,104 @@ public class TyrusSession implements Session {
         return endpoint.broadcast(message);
     }
 
+    /**
+     * Send text message with priority.
+     * <p/>
+     * Message is written before data messages which were sent earlier, but are still waiting in the transport
+     * (for example because the peer does not read fast enough). Message is never inserted between fragments of another
+     * message. When the transport does not support priorities or when there is a negotiated extension which could
+     * depend on the order of frames, message is sent as any other message.
+     *
+     * @param text message to be sent.
+     * @return future for user to get the information about status of the message.
+     */
+    public Future<?> sendPriority(String text) {
+        Utils.checkNotNull(text, "Argument 'text' cannot be null.");
+        restartIdleTimeoutExecutor();
+        return asyncRemote.remoteEndpoint.sendPriorityText(text);
+    }
+
+    /**
+     * Send binary message with priority.
+     * <p/>
+     * Message is written before data messages which were sent earlier, but are still waiting in the transport
+     * (for example because the peer does not read fast enough). Message is never inserted between fragments of another
+     * message. When the transport does not support priorities or when there is a negotiated extension which could
+     * depend on the order of frames, message is sent as any other message.
+     *
+     * @param data message to be sent.
+     * @return future for user to get the information about status of the message.
+     */
+    public Future<?> sendPriority(ByteBuffer data) {
+        Utils.checkNotNull(data, "Argument 'data' cannot be null.");
+        restartIdleTimeoutExecutor();
+        return asyncRemote.remoteEndpoint.sendPriorityBinary(data);
+    }
+
+    /**
+     * Set listener notified about messages sent using {@link #getAsyncRemote()}.
+     * <p/>
+     * Listener is invoked only for messages sent after it was set.
+     *
+     * @param asyncSendListener listener to be set, {@code null} removes the current listener.
+     */
+    public void setAsyncSendListener(AsyncSendListener asyncSendListener) {
+        this.asyncSendListener = asyncSendListener;
+    }
+
+    AsyncSendListener getAsyncSendListener() {
+        return asyncSendListener;
+    }
+
+    /**
+     * Get round trip time measured by the last heartbeat ping.
+     *
+     * @param unit time unit of returned value.
+     * @return last measured round trip time or {@code -1} when heartbeat is not enabled or no pong was received yet.
+     * @see TyrusWebSocketEngine#HEARTBEAT_INTERVAL
+     */
+    public long getLastRoundTripTime(TimeUnit unit) {
+        final HeartbeatService.Heartbeat h = heartbeat;
+        final long rtt = h == null ? -1 : h.getLastRtt();
+        return rtt < 0 ? -1 : unit.convert(rtt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get exponentially weighted moving average of round trip times measured by heartbeat pings.
+     *
+     * @param unit time unit of returned value.
+     * @return average round trip time or {@code -1} when heartbeat is not enabled or no pong was received yet.
+     * @see TyrusWebSocketEngine#HEARTBEAT_INTERVAL
+     */
+    public long getRoundTripTime(TimeUnit unit) {
+        final HeartbeatService.Heartbeat h = heartbeat;
+        final long rtt = h == null ? -1 : h.getRtt();
+        return rtt < 0 ? -1 : unit.convert(rtt, TimeUnit.NANOSECONDS);
+    }
+
+    HeartbeatService.Heartbeat getHeartbeat() {
+        return heartbeat;
+    }
+
+    void setHeartbeat(HeartbeatService.Heartbeat heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    /**
+     * Send heartbeat ping. Never throws, failures (for example when the session was closed concurrently) are only
+     * logged.
+     *
+     * @param payload ping payload.
+     */
+    void sendHeartbeatPing(ByteBuffer payload) {
+        asyncRemote.remoteEndpoint.sendPing(payload, new CompletionHandler<Frame>() {
+            @Override
+            public void failed(Throwable throwable) {
+                LOGGER.log(Level.FINE, String.format("Heartbeat ping was not sent, session: '%s'.", TyrusSession.this), throwable);
+            }
+        });
+    }
+
 
     void restartIdleTimeoutExecutor() {
         if (this.maxIdleTimeout < 1) {
@@ -395,6 +523,23 @@ public class TyrusSession implements Session {
         }
     }
 
+    void notifyMessageHandlers(Utf8Text message) {
+        final MessageHandler.Whole<Utf8Text> handler = getMessageHandler(Utf8Text.class);
+        if (handler == null) {
+            LOGGER.severe("Unhandled text message in EndpointWrapper");
+            return;
+        }
+
+        if (handler instanceof BasicMessageHandler) {
+            checkMessageSize(message.getBytes(), ((BasicMessageHandler) handler).getMaxMessageSize());
+        }
+
+        final State currentState = state.get();
+        if (currentState != State.CLOSING && currentState != State.CLOSED) {
+            handler.onMessage(message);
+        }
+    }
+
     <T> MessageHandler.Whole<T> getMessageHandler(Class<T> c) {
         for (MessageHandler mh : this.getOrderedMessageHandlers()) {
             if (MessageHandlerManager.getHandlerType(mh) == c) {
@@ -468,6 +613,10 @@ public class TyrusSession implements Session {
         return handlerManager.isInputStreamHandlerPresent();
     }
 
+    boolean isUtf8TextHandlerPresent() {
+        return handlerManager.isUtf8TextHandlerPresent();
+    }
+
     boolean isPongHandlerPreset() {
         return handlerManager.isPongHandlerPresent();
     }
@@ -506,6 +655,34 @@ public class TyrusSession implements Session {
         return binaryBuffer;
     }
 
+    BinaryBuffer getUtf8TextBuffer() {
+        return utf8TextBuffer;
+    }
+
+    /**
+     * Get dispatch context of this session, used to invoke streaming message handlers.
+     * <p/>
+     * Called only from the thread processing incoming frames of this session.
+     *
+     * @return task queue of this session.
+     */
+    SessionTaskQueue getTaskQueue() {
+        if (taskQueue == null) {
+            taskQueue = new SessionTaskQueue(((ExecutorServiceProvider) container).getExecutorService());
+        }
+        return taskQueue;
+    }
+
+    /**
+     * Get whether the thread processing incoming frames of this session can be blocked by streaming message handlers.
+     *
+     * @return {@code false} when the container reads frames on threads which must not block.
+     * @see BaseContainer#setBlockingStreaming(boolean)
+     */
+    boolean isBlockingStreaming() {
+        return !(container instanceof BaseContainer) || ((BaseContainer) container).isBlockingStreaming();
+    }
+
     ReaderBuffer getReaderBuffer() {
         return readerBuffer;
     }
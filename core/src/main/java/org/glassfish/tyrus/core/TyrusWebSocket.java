@@ -54,6 +54,7 @@ import org.glassfish.tyrus.core.frame.CloseFrame;
 import org.glassfish.tyrus.core.frame.PingFrame;
 import org.glassfish.tyrus.core.frame.PongFrame;
 import org.glassfish.tyrus.core.frame.TextFrame;
+import org.glassfish.tyrus.spi.CompletionHandler;
 import org.glassfish.tyrus.spi.UpgradeRequest;
 
 /**
@@ -67,6 +68,8 @@ public class TyrusWebSocket {
     private final CountDownLatch onConnectLatch = new CountDownLatch(1);
     private final EnumSet<State> connected = EnumSet.range(State.CONNECTED, State.CLOSING);
     private final AtomicReference<State> state = new AtomicReference<State>(State.NEW);
+    // updated by the session when message handlers change, received text frames do not need to look the session up.
+    private volatile boolean utf8TextRequested = false;
 
     /**
      * Create new instance, set {@link ProtocolHandler} and register {@link TyrusEndpoint}.
@@ -162,7 +165,11 @@ public class TyrusWebSocket {
     public void onFragment(boolean last, TextFrame frame) {
         awaitOnConnect();
         if (tyrusEndpoint != null) {
-            tyrusEndpoint.onFragment(this, frame.getTextPayload(), last);
+            if (utf8TextRequested) {
+                tyrusEndpoint.onUtf8Fragment(this, frame.getValidatedPayload(), last);
+            } else {
+                tyrusEndpoint.onFragment(this, frame.getTextPayload(), last);
+            }
         }
     }
 
@@ -186,10 +193,26 @@ public class TyrusWebSocket {
     public void onMessage(TextFrame frame) {
         awaitOnConnect();
         if (tyrusEndpoint != null) {
-            tyrusEndpoint.onMessage(this, frame.getTextPayload());
+            if (utf8TextRequested) {
+                tyrusEndpoint.onMessage(this, new Utf8Text(frame.getValidatedPayload()));
+            } else {
+                tyrusEndpoint.onMessage(this, frame.getTextPayload());
+            }
         }
     }
 
+    /**
+     * Set whether received text messages should be passed to {@link TyrusEndpoint} as validated UTF-8 bytes
+     * instead of decoded {@link String}s.
+     *
+     * @param utf8TextRequested {@code true} when {@link Utf8Text} message handler is registered.
+     * @see TyrusEndpoint#onMessage(TyrusWebSocket, Utf8Text)
+     * @see TyrusEndpoint#onUtf8Fragment(TyrusWebSocket, java.nio.ByteBuffer, boolean)
+     */
+    void setUtf8TextRequested(boolean utf8TextRequested) {
+        this.utf8TextRequested = utf8TextRequested;
+    }
+
     /**
      * This callback will be invoked when the remote end-point has sent a ping
      * frame.
@@ -264,6 +287,34 @@ public class TyrusWebSocket {
         }
     }
 
+    /**
+     * Send a text frame with already encoded payload to the remote endpoint.
+     *
+     * @param data data to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     */
+    public Future<Frame> send(Utf8Text data) {
+        if (isConnected()) {
+            return protocolHandler.send(data);
+        } else {
+            throw new RuntimeException("Socket is not connected.");
+        }
+    }
+
+    /**
+     * Send a text frame with already encoded payload to the remote endpoint.
+     *
+     * @param data    data to be sent.
+     * @param handler {@link SendHandler#onResult(javax.websocket.SendResult)} will be called when sending is complete.
+     */
+    public void send(Utf8Text data, SendHandler handler) {
+        if (isConnected()) {
+            protocolHandler.send(data, handler);
+        } else {
+            throw new RuntimeException("Socket is not connected.");
+        }
+    }
+
     /**
      * Send a text frame to the remote endpoint.
      *
@@ -292,6 +343,36 @@ public class TyrusWebSocket {
         }
     }
 
+    /**
+     * Send a binary message to the remote endpoint before data frames which were not written yet.
+     *
+     * @param data data to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     * @see ProtocolHandler#sendPriority(byte[])
+     */
+    public Future<Frame> sendPriority(byte[] data) {
+        if (isConnected()) {
+            return protocolHandler.sendPriority(data);
+        } else {
+            throw new RuntimeException("Socket is not connected.");
+        }
+    }
+
+    /**
+     * Send a text message to the remote endpoint before data frames which were not written yet.
+     *
+     * @param data data to be sent.
+     * @return {@link Future} which could be used to control/check the sending completion state.
+     * @see ProtocolHandler#sendPriority(String)
+     */
+    public Future<Frame> sendPriority(String data) {
+        if (isConnected()) {
+            return protocolHandler.sendPriority(data);
+        } else {
+            throw new RuntimeException("Socket is not connected.");
+        }
+    }
+
     /**
      * Send a frame to the remote endpoint.
      *
@@ -317,6 +398,26 @@ public class TyrusWebSocket {
         return send(new PingFrame(data));
     }
 
+    /**
+     * Sends a <code>ping</code> frame with the specified payload; unlike {@link #sendPing(byte[])}, this method does
+     * not throw when the socket is not connected, all failures are reported to the completion handler.
+     *
+     * @param data              payload. Note that payload length is restricted to 125 bytes or less.
+     * @param completionHandler notified when the frame is written or when it cannot be written.
+     */
+    void sendPing(byte[] data, CompletionHandler<Frame> completionHandler) {
+        if (!isConnected()) {
+            completionHandler.failed(new IllegalStateException("Socket is not connected."));
+            return;
+        }
+
+        try {
+            protocolHandler.send(new PingFrame(data), completionHandler, true);
+        } catch (RuntimeException e) {
+            completionHandler.failed(e);
+        }
+    }
+
     /**
      * Sends a <code>ping</code> frame with the specified payload (if any).
      * <p/>
@@ -41,12 +41,8 @@
 package org.glassfish.tyrus.core;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -56,12 +52,13 @@ import javax.websocket.CloseReason;
 import javax.websocket.DeploymentException;
 import javax.websocket.Endpoint;
 import javax.websocket.EndpointConfig;
-import javax.websocket.Extension;
 import javax.websocket.WebSocketContainer;
 import javax.websocket.server.ServerEndpointConfig;
 
 import org.glassfish.tyrus.core.frame.CloseFrame;
 import org.glassfish.tyrus.core.uri.Match;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.CompositeReadHandler;
 import org.glassfish.tyrus.spi.Connection;
 import org.glassfish.tyrus.spi.ReadHandler;
 import org.glassfish.tyrus.spi.UpgradeRequest;
@@ -81,6 +78,42 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
     public static final String INCOMING_BUFFER_SIZE = "org.glassfish.tyrus.incomingBufferSize";
 
+    /**
+     * Maximal payload size of outgoing frame. Bigger messages will be sent as a sequence of continuation frames and
+     * control frames can be sent in between them.
+     * <p/>
+     * Value is expected to be {@link Integer}, default value is {@code 0} (outgoing messages are not fragmented).
+     *
+     * @see ProtocolHandler#setMaxOutgoingFrameSize(int)
+     */
+    public static final String MAX_OUTGOING_FRAME_SIZE = "org.glassfish.tyrus.maxOutgoingFrameSize";
+
+    /**
+     * Interval of heartbeat pings sent to all sessions of the container. Round trip time of each session is measured
+     * from matching pongs.
+     * <p/>
+     * Value is expected to be {@link Integer} representing milliseconds, default value is {@code 0} (heartbeat is
+     * disabled).
+     *
+     * @see HeartbeatService
+     * @see TyrusSession#getRoundTripTime(java.util.concurrent.TimeUnit)
+     */
+    public static final String HEARTBEAT_INTERVAL = "org.glassfish.tyrus.heartbeatInterval";
+
+    /**
+     * Number of consecutive heartbeat pings without pong after which the session is closed, see
+     * {@link #HEARTBEAT_INTERVAL}.
+     * <p/>
+     * Value is expected to be {@link Integer}, default value is {@code 3}. Value lower than {@code 1} means that
+     * sessions are never closed.
+     */
+    public static final String HEARTBEAT_MAX_MISSED_PONGS = "org.glassfish.tyrus.heartbeatMaxMissedPongs";
+
+    /**
+     * Default value of {@link #HEARTBEAT_MAX_MISSED_PONGS}.
+     */
+    public static final int DEFAULT_HEARTBEAT_MAX_MISSED_PONGS = 3;
+
     private static final int BUFFER_STEP_SIZE = 256;
     private static final Logger LOGGER = Logger.getLogger(UpgradeRequest.WEBSOCKET);
 
@@ -96,6 +129,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
     private final WebSocketContainer webSocketContainer;
 
     private int incomingBufferSize = 4194315; // 4M (payload) + 11 (frame overhead)
+    private int maxOutgoingFrameSize = 0;
 
     /**
      * Create {@link WebSocketEngine} instance based on passed {@link WebSocketContainer}.
@@ -170,18 +204,11 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
                     return HANDSHAKE_FAILED_UPGRADE_INFO;
                 }
 
-                final ExtendedExtension.ExtensionContext extensionContext = new ExtendedExtension.ExtensionContext() {
-
-                    private final Map<String, Object> properties = new HashMap<String, Object>();
-
-                    @Override
-                    public Map<String, Object> getProperties() {
-                        return properties;
-                    }
-                };
+                final ExtendedExtension.ExtensionContext extensionContext = new TyrusExtensionContext();
 
+                protocolHandler.setMaxOutgoingFrameSize(maxOutgoingFrameSize);
                 protocolHandler.handshake(endpoint, request, response, extensionContext);
-                return new SuccessfulUpgradeInfo(endpoint, protocolHandler, incomingBufferSize, request, extensionContext);
+                return new SuccessfulUpgradeInfo(endpoint, protocolHandler, incomingBufferSize, request);
             }
         } catch (HandshakeException e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
@@ -193,76 +220,132 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         return NOT_APPLICABLE_UPGRADE_INFO;
     }
 
-    private static class TyrusReadHandler implements ReadHandler {
+    private static class TyrusReadHandler implements CompositeReadHandler {
 
         private final ProtocolHandler protocolHandler;
         private final TyrusWebSocket socket;
         private final TyrusEndpoint endpoint;
         private final int incomingBufferSize;
-        private final List<Extension> negotiatedExtensions;
-        private final ExtendedExtension.ExtensionContext extensionContext;
+        private final ExtensionChain extensionChain;
+        private final boolean hasExtensionChain;
 
+        // incomplete frame; data passed by the transport cannot be referenced after handle(...) returns.
         private volatile ByteBuffer buffer;
 
-        private TyrusReadHandler(ProtocolHandler protocolHandler, TyrusWebSocket socket, TyrusEndpoint endpoint, int incomingBufferSize, ExtendedExtension.ExtensionContext extensionContext) {
-            this.extensionContext = extensionContext;
+        private TyrusReadHandler(ProtocolHandler protocolHandler, TyrusWebSocket socket, TyrusEndpoint endpoint, int incomingBufferSize) {
             this.protocolHandler = protocolHandler;
             this.socket = socket;
             this.endpoint = endpoint;
             this.incomingBufferSize = incomingBufferSize;
-            this.negotiatedExtensions = new ArrayList<Extension>();
-            negotiatedExtensions.addAll(endpoint.getSupportedExtensions());
+            this.extensionChain = protocolHandler.getExtensionChain();
+            this.hasExtensionChain = !extensionChain.isEmpty();
         }
 
         @Override
         public void handle(ByteBuffer data) {
             try {
                 if (data != null && data.hasRemaining()) {
+                    process(data);
+                }
+            } catch (Exception e) {
+                onError(e);
+            }
+        }
 
-                    if (buffer != null) {
-                        data = Utils.appendBuffers(buffer, data, incomingBufferSize, BUFFER_STEP_SIZE);
+        @Override
+        public void handle(ByteBuffer[] data, int offset, int length, CompletionHandler<ByteBuffer[]> releaseHandler) {
+            Exception exception = null;
+            try {
+                for (int i = offset; i < offset + length; i++) {
+                    if (data[i] != null && data[i].hasRemaining()) {
+                        process(data[i]);
+                    }
+                }
+            } catch (Exception e) {
+                exception = e;
+                onError(e);
+            } finally {
+                if (releaseHandler != null) {
+                    if (exception == null) {
+                        releaseHandler.completed(data);
                     } else {
-                        int newSize = data.remaining();
-                        if (newSize > incomingBufferSize) {
+                        releaseHandler.failed(exception);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Process all frames from given buffer. Complete frames are read directly from the buffer, only the frame
+         * which is not complete is copied to {@link #buffer}.
+         */
+        private void process(ByteBuffer data) {
+            while (data.hasRemaining()) {
+                if (buffer == null) {
+                    Frame frame;
+                    while ((frame = protocolHandler.unframe(data)) != null) {
+                        if (frame.getPayloadLength() > incomingBufferSize) {
                             throw new IllegalArgumentException("Buffer overflow.");
-                        } else {
-                            final int roundedSize = (newSize % BUFFER_STEP_SIZE) > 0 ? ((newSize / BUFFER_STEP_SIZE) + 1) * BUFFER_STEP_SIZE : newSize;
-                            final ByteBuffer result = ByteBuffer.allocate(roundedSize > incomingBufferSize ? newSize : roundedSize);
-                            result.flip();
-                            data = Utils.appendBuffers(result, data, incomingBufferSize, BUFFER_STEP_SIZE);
                         }
+                        process(frame);
                     }
 
-                    do {
-                        final Frame incomingFrame = protocolHandler.unframe(data);
-
-                        if (incomingFrame == null) {
-                            buffer = data;
-                            break;
-                        } else {
-                            Frame frame = incomingFrame;
-
-                            for (Extension extension : negotiatedExtensions) {
-                                if (extension instanceof ExtendedExtension) {
-                                    try {
-                                        frame = ((ExtendedExtension) extension).processIncoming(extensionContext, frame);
-                                    } catch (Throwable t) {
-                                        LOGGER.log(Level.FINE, String.format("Extension '%s' threw an exception during processIncoming method invocation: \"%s\".", extension.getName(), t.getMessage()), t);
-                                    }
-                                }
-                            }
-
-                            protocolHandler.process(frame, socket);
-                        }
-                    } while (true);
+                    if (data.hasRemaining()) {
+                        buffer = append(null, data, data.remaining());
+                    }
+                } else {
+                    // append just the bytes needed to continue parsing of the incomplete frame; the rest can be
+                    // read directly from data once the frame is complete.
+                    final long required = protocolHandler.getRequiredBytes() - buffer.remaining();
+                    final int length = (int) Math.min(required, data.remaining());
+                    buffer = append(buffer, data, length);
+
+                    Frame frame;
+                    while ((frame = protocolHandler.unframe(buffer)) != null) {
+                        process(frame);
+                    }
+
+                    if (!buffer.hasRemaining()) {
+                        buffer = null;
+                    }
+                }
+            }
+        }
+
+        private void process(Frame incomingFrame) {
+            final Frame frame = hasExtensionChain ? extensionChain.processIncoming(incomingFrame) : incomingFrame;
+            protocolHandler.process(frame, socket);
+        }
+
+        /**
+         * Copy {@code length} bytes from {@code data} to {@code target}.
+         */
+        private ByteBuffer append(ByteBuffer target, ByteBuffer data, int length) {
+            if (target == null) {
+                if (length > incomingBufferSize) {
+                    throw new IllegalArgumentException("Buffer overflow.");
                 }
-            } catch (FramingException e) {
+                final int roundedSize = (length % BUFFER_STEP_SIZE) > 0 ? ((length / BUFFER_STEP_SIZE) + 1) * BUFFER_STEP_SIZE : length;
+                target = ByteBuffer.allocate(roundedSize > incomingBufferSize ? length : roundedSize);
+                target.flip();
+            }
+
+            final ByteBuffer part = data.duplicate();
+            part.limit(part.position() + length);
+            data.position(data.position() + length);
+
+            return Utils.appendBuffers(target, part, incomingBufferSize, BUFFER_STEP_SIZE);
+        }
+
+        private void onError(Exception exception) {
+            if (exception instanceof FramingException) {
+                final FramingException e = (FramingException) exception;
                 LOGGER.log(Level.FINE, e.getMessage(), e);
                 socket.onClose(new CloseFrame(new CloseReason(CloseReason.CloseCodes.getCloseCode(e.getClosingCode()), e.getMessage())));
-            } catch (Exception e) {
-                LOGGER.log(Level.FINE, e.getMessage(), e);
-                if (endpoint.onError(socket, e)) {
-                    socket.onClose(new CloseFrame(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, e.getMessage())));
+            } else {
+                LOGGER.log(Level.FINE, exception.getMessage(), exception);
+                if (endpoint.onError(socket, exception)) {
+                    socket.onClose(new CloseFrame(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, exception.getMessage())));
                 }
             }
         }
@@ -272,6 +355,46 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         this.incomingBufferSize = incomingBufferSize;
     }
 
+    /**
+     * Set maximal payload size of outgoing frame, see {@link #MAX_OUTGOING_FRAME_SIZE}.
+     *
+     * @param maxOutgoingFrameSize maximal payload size of outgoing frame. Value lower than or equal to {@code 0}
+     *                             disables automatic fragmentation.
+     */
+    public void setMaxOutgoingFrameSize(int maxOutgoingFrameSize) {
+        this.maxOutgoingFrameSize = maxOutgoingFrameSize;
+    }
+
+    /**
+     * Enable heartbeat for sessions of this engine's container, see {@link #HEARTBEAT_INTERVAL}.
+     *
+     * @param interval       interval between pings in milliseconds, value lower than {@code 1} disables the heartbeat.
+     * @param maxMissedPongs number of consecutive unanswered pings after which the session is closed.
+     */
+    public void setHeartbeat(long interval, int maxMissedPongs) {
+        if (webSocketContainer instanceof BaseContainer) {
+            ((BaseContainer) webSocketContainer).setHeartbeat(interval, maxMissedPongs);
+        } else {
+            LOGGER.log(Level.CONFIG, "Heartbeat is not supported by container: " + webSocketContainer);
+        }
+    }
+
+    /**
+     * Set whether the thread reading frames can be blocked by streaming message handlers of this engine's container.
+     * <p/>
+     * Has to be disabled when frames are read on selector threads.
+     *
+     * @param blockingStreaming {@code false} to buffer message parts instead of blocking the reading thread.
+     * @see BaseContainer#setBlockingStreaming(boolean)
+     */
+    public void setBlockingStreaming(boolean blockingStreaming) {
+        if (webSocketContainer instanceof BaseContainer) {
+            ((BaseContainer) webSocketContainer).setBlockingStreaming(blockingStreaming);
+        } else {
+            LOGGER.log(Level.CONFIG, "Non-blocking streaming is not supported by container: " + webSocketContainer);
+        }
+    }
+
     /**
      * Registers the specified {@link TyrusEndpoint} with the
      * <code>WebSocketEngine</code>.
@@ -383,14 +506,12 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         private final ProtocolHandler protocolHandler;
         private final int incomingBufferSize;
         private final UpgradeRequest upgradeRequest;
-        private final ExtendedExtension.ExtensionContext extensionContext;
 
-        SuccessfulUpgradeInfo(TyrusEndpoint endpoint, ProtocolHandler protocolHandler, int incomingBufferSize, UpgradeRequest upgradeRequest, ExtendedExtension.ExtensionContext extensionContext) {
+        SuccessfulUpgradeInfo(TyrusEndpoint endpoint, ProtocolHandler protocolHandler, int incomingBufferSize, UpgradeRequest upgradeRequest) {
             this.endpoint = endpoint;
             this.protocolHandler = protocolHandler;
             this.incomingBufferSize = incomingBufferSize;
             this.upgradeRequest = upgradeRequest;
-            this.extensionContext = extensionContext;
         }
 
         @Override
@@ -400,7 +521,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
 
         @Override
         public Connection createConnection(Writer writer, Connection.CloseListener closeListener) {
-            return new TyrusConnection(endpoint, protocolHandler, incomingBufferSize, writer, closeListener, upgradeRequest, extensionContext);
+            return new TyrusConnection(endpoint, protocolHandler, incomingBufferSize, writer, closeListener, upgradeRequest);
         }
     }
 
@@ -410,20 +531,18 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         private final Writer writer;
         private final CloseListener closeListener;
         private final TyrusWebSocket socket;
-        private final ExtendedExtension.ExtensionContext extensionContext;
-        private final TyrusEndpoint endpoint;
+        private final ExtensionChain extensionChain;
 
-        TyrusConnection(TyrusEndpoint endpoint, ProtocolHandler protocolHandler, int incomingBufferSize, Writer writer, Connection.CloseListener closeListener, UpgradeRequest upgradeRequest, ExtendedExtension.ExtensionContext extensionContext) {
+        TyrusConnection(TyrusEndpoint endpoint, ProtocolHandler protocolHandler, int incomingBufferSize, Writer writer, Connection.CloseListener closeListener, UpgradeRequest upgradeRequest) {
             protocolHandler.setWriter(writer);
             final TyrusWebSocket socket = endpoint.createSocket(protocolHandler);
 
             socket.onConnect(upgradeRequest);
             this.socket = socket;
-            this.readHandler = new TyrusReadHandler(protocolHandler, socket, endpoint, incomingBufferSize, extensionContext);
+            this.readHandler = new TyrusReadHandler(protocolHandler, socket, endpoint, incomingBufferSize);
             this.writer = writer;
             this.closeListener = closeListener;
-            this.extensionContext = extensionContext;
-            this.endpoint = endpoint;
+            this.extensionChain = protocolHandler.getExtensionChain();
         }
 
         @Override
@@ -445,16 +564,7 @@ public class TyrusWebSocketEngine implements WebSocketEngine {
         public void close(CloseReason reason) {
             if (socket.isConnected()) {
                 socket.close(reason.getCloseCode().getCode(), reason.getReasonPhrase());
-
-                for (Extension extension : endpoint.getSupportedExtensions()) {
-                    if (extension instanceof ExtendedExtension) {
-                        try {
-                            ((ExtendedExtension) extension).destroy(extensionContext);
-                        } catch (Throwable t) {
-                            // ignore.
-                        }
-                    }
-                }
+                extensionChain.destroy();
             }
         }
     }
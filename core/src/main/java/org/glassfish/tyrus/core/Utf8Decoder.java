@@ -0,0 +1,317 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.charset.Charset;
+
+/**
+ * Strict UTF-8 decoder of text frame payloads.
+ * <p/>
+ * Accepts the same input as {@link StrictUtf8} - overlong forms, surrogates and code points above U+10FFFF are
+ * rejected - but decodes straight from the payload array into a {@code char[]} sized by the payload length, without
+ * {@link java.nio.charset.CharsetDecoder} and {@link java.nio.CharBuffer} instances. Payloads which are pure ASCII,
+ * checked 8 bytes at a time, are turned into {@link String} directly.
+ * <p/>
+ * Instance is kept per connection; code point split between fragments of one message is carried over to the next
+ * fragment in a buffer of at most 3 bytes. Not thread safe, frames of one connection are decoded sequentially.
+ *
+ * @author agent (agent at local)
+ */
+public class Utf8Decoder {
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final String ILLEGAL_SEQUENCE = "Illegal UTF-8 Sequence";
+
+    // incomplete code point from the end of previous fragment; one byte longer to complete the sequence in place.
+    private final byte[] carry = new byte[4];
+    private int carryLength = 0;
+
+    /**
+     * Decode (part of) text message.
+     *
+     * @param data   payload data.
+     * @param offset index of the first byte to be decoded.
+     * @param length number of bytes to be decoded.
+     * @param last   {@code true} when the data is the end of the message, {@code false} when more fragments follow.
+     * @return decoded text. Incomplete code point at the end of non-final fragment is not included, it is decoded
+     * together with next fragment.
+     * @throws Utf8DecodingError when the data is not valid UTF-8 (or ends in the middle of code point and {@code last}
+     *                           is {@code true}).
+     */
+    public String decode(byte[] data, int offset, int length, boolean last) {
+        final int end = offset + length;
+        int i = offset;
+        char[] dst = null;
+        int dp = 0;
+
+        if (carryLength > 0) {
+            final int expected = sequenceLength(carry[0]);
+            while (carryLength < expected && i < end) {
+                carry[carryLength++] = data[i++];
+            }
+
+            if (carryLength < expected) {
+                checkIncomplete(carry, 0, carryLength, last);
+                return "";
+            }
+
+            // each carried code point is decoded to at most 2 chars from at least one new byte.
+            dst = new char[length + 1];
+            dp = decodeSequence(carry, 0, expected, dst, 0);
+            carryLength = 0;
+        }
+
+        final int asciiEnd = skipAscii(data, i, end);
+        if (asciiEnd == end && dst == null) {
+            return new String(data, i, end - i, ISO_8859_1);
+        }
+
+        if (dst == null) {
+            dst = new char[end - i];
+        }
+        for (; i < asciiEnd; i++) {
+            dst[dp++] = (char) data[i];
+        }
+
+        while (i < end) {
+            final int b1 = data[i];
+            if (b1 >= 0) {
+                // ASCII run inside of non-ASCII text.
+                final int runEnd = skipAscii(data, i, end);
+                for (; i < runEnd; i++) {
+                    dst[dp++] = (char) data[i];
+                }
+                continue;
+            }
+
+            final int n = sequenceLength(b1);
+            if (n == 0) {
+                reset();
+                throw new Utf8DecodingError(ILLEGAL_SEQUENCE);
+            }
+
+            if (end - i < n) {
+                checkIncomplete(data, i, end - i, last);
+                System.arraycopy(data, i, carry, 0, end - i);
+                carryLength = end - i;
+                break;
+            }
+
+            dp = decodeSequence(data, i, n, dst, dp);
+            i += n;
+        }
+
+        return new String(dst, 0, dp);
+    }
+
+    /**
+     * Validate (part of) text message without decoding it.
+     * <p/>
+     * Shares the carried incomplete code point with {@link #decode(byte[], int, int, boolean)}, so fragments of one
+     * message can be either validated or decoded, depending on how the message is delivered.
+     *
+     * @param data   payload data.
+     * @param offset index of the first byte to be validated.
+     * @param length number of bytes to be validated.
+     * @param last   {@code true} when the data is the end of the message, {@code false} when more fragments follow.
+     * @throws Utf8DecodingError when the data is not valid UTF-8 (or ends in the middle of code point and {@code last}
+     *                           is {@code true}).
+     */
+    public void validate(byte[] data, int offset, int length, boolean last) {
+        final int end = offset + length;
+        int i = offset;
+
+        if (carryLength > 0) {
+            final int expected = sequenceLength(carry[0]);
+            while (carryLength < expected && i < end) {
+                carry[carryLength++] = data[i++];
+            }
+
+            if (carryLength < expected) {
+                checkIncomplete(carry, 0, carryLength, last);
+                return;
+            }
+
+            checkSequence(carry, 0, expected);
+            carryLength = 0;
+        }
+
+        while (i < end) {
+            if (data[i] >= 0) {
+                i = skipAscii(data, i, end);
+                continue;
+            }
+
+            final int n = sequenceLength(data[i]);
+            if (n == 0) {
+                reset();
+                throw new Utf8DecodingError(ILLEGAL_SEQUENCE);
+            }
+
+            if (end - i < n) {
+                checkIncomplete(data, i, end - i, last);
+                System.arraycopy(data, i, carry, 0, end - i);
+                carryLength = end - i;
+                break;
+            }
+
+            checkSequence(data, i, n);
+            i += n;
+        }
+    }
+
+    /**
+     * Discard carried incomplete code point.
+     * <p/>
+     * Has to be called when a message is abandoned before its last fragment was decoded.
+     */
+    public void reset() {
+        carryLength = 0;
+    }
+
+    /**
+     * Find the end of ASCII run, 8 bytes are checked at once.
+     *
+     * @return index of the first non-ASCII byte or {@code end}.
+     */
+    private static int skipAscii(byte[] data, int i, int end) {
+        while (end - i >= 8 && ((data[i] | data[i + 1] | data[i + 2] | data[i + 3]
+                | data[i + 4] | data[i + 5] | data[i + 6] | data[i + 7]) & 0x80) == 0) {
+            i += 8;
+        }
+        while (i < end && data[i] >= 0) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Get length of the sequence started by given lead byte.
+     *
+     * @return sequence length or {@code 0} when the byte cannot start a sequence.
+     */
+    private static int sequenceLength(int b1) {
+        b1 &= 0xff;
+        if (b1 < 0x80) {
+            return 1;
+        } else if (b1 < 0xc2) {
+            // continuation byte or overlong 2 byte form.
+            return 0;
+        } else if (b1 < 0xe0) {
+            return 2;
+        } else if (b1 < 0xf0) {
+            return 3;
+        } else if (b1 < 0xf5) {
+            return 4;
+        }
+        return 0;
+    }
+
+    /**
+     * Check whether the byte is valid at given position of the sequence started by {@code b1}.
+     */
+    private static boolean isValidContinuation(int b1, int index, int b) {
+        b &= 0xff;
+        if (index == 1) {
+            switch (b1 & 0xff) {
+                case 0xe0:
+                    // overlong form.
+                    return b >= 0xa0 && b <= 0xbf;
+                case 0xed:
+                    // surrogates.
+                    return b >= 0x80 && b <= 0x9f;
+                case 0xf0:
+                    // overlong form.
+                    return b >= 0x90 && b <= 0xbf;
+                case 0xf4:
+                    // above U+10FFFF.
+                    return b >= 0x80 && b <= 0x8f;
+                default:
+                    break;
+            }
+        }
+        return (b & 0xc0) == 0x80;
+    }
+
+    private void checkIncomplete(byte[] data, int i, int available, boolean last) {
+        for (int k = 1; k < available; k++) {
+            if (!isValidContinuation(data[i], k, data[i + k])) {
+                reset();
+                throw new Utf8DecodingError(ILLEGAL_SEQUENCE);
+            }
+        }
+
+        if (last) {
+            reset();
+            throw new Utf8DecodingError(ILLEGAL_SEQUENCE);
+        }
+    }
+
+    private void checkSequence(byte[] data, int i, int n) {
+        for (int k = 1; k < n; k++) {
+            if (!isValidContinuation(data[i], k, data[i + k])) {
+                reset();
+                throw new Utf8DecodingError(ILLEGAL_SEQUENCE);
+            }
+        }
+    }
+
+    private int decodeSequence(byte[] data, int i, int n, char[] dst, int dp) {
+        final int b1 = data[i];
+        checkSequence(data, i, n);
+
+        switch (n) {
+            case 2:
+                dst[dp++] = (char) (((b1 & 0x1f) << 6) | (data[i + 1] & 0x3f));
+                break;
+            case 3:
+                dst[dp++] = (char) (((b1 & 0x0f) << 12) | ((data[i + 1] & 0x3f) << 6) | (data[i + 2] & 0x3f));
+                break;
+            default:
+                final int codePoint = ((b1 & 0x07) << 18) | ((data[i + 1] & 0x3f) << 12)
+                        | ((data[i + 2] & 0x3f) << 6) | (data[i + 3] & 0x3f);
+                dst[dp++] = (char) ((codePoint >>> 10) + (Character.MIN_HIGH_SURROGATE - (Character.MIN_SUPPLEMENTARY_CODE_POINT >>> 10)));
+                dst[dp++] = (char) ((codePoint & 0x3ff) + Character.MIN_LOW_SURROGATE);
+                break;
+        }
+
+        return dp;
+    }
+}
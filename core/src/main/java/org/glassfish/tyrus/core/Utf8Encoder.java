@@ -0,0 +1,158 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+/**
+ * Strict UTF-8 encoder of outgoing text messages.
+ * <p/>
+ * Encoded length is computed in one pass over the message, so the caller can allocate the target (for example whole
+ * frame including the header) exactly and encode the message right into it. Unpaired surrogates are rejected, as by
+ * {@link StrictUtf8}.
+ *
+ * @author agent (agent at local)
+ */
+public final class Utf8Encoder {
+
+    private Utf8Encoder() {
+    }
+
+    /**
+     * Get length of UTF-8 representation of the text.
+     *
+     * @param text text to be measured.
+     * @return number of bytes of encoded text.
+     * @throws IllegalArgumentException when the text contains unpaired surrogate.
+     */
+    public static int encodedLength(String text) {
+        final int length = text.length();
+        int i = 0;
+
+        // ASCII only loop
+        while (i < length && text.charAt(i) < 0x80) {
+            i++;
+        }
+
+        // each char is encoded to at least one byte, only the extra bytes are added.
+        int result = length;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                i++;
+            } else if (c < 0x800) {
+                result += 1;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (!Character.isHighSurrogate(c) || i + 1 >= length || !Character.isLowSurrogate(text.charAt(i + 1))) {
+                    throw new IllegalArgumentException(String.format("Unpaired surrogate at index %d.", i));
+                }
+                // 2 chars, 4 bytes.
+                result += 2;
+                i += 2;
+            } else {
+                result += 2;
+                i++;
+            }
+        }
+
+        if (result < 0) {
+            throw new IllegalArgumentException("Encoded text is too long.");
+        }
+
+        return result;
+    }
+
+    /**
+     * Encode the text to given array.
+     * <p/>
+     * The text has to be checked by {@link #encodedLength(String)} first and the array has to have enough space for the
+     * returned length.
+     *
+     * @param text   text to be encoded.
+     * @param target target array.
+     * @param offset index of the first byte to be written.
+     * @return index after the last written byte.
+     */
+    public static int encode(String text, byte[] target, int offset) {
+        final int length = text.length();
+        int dp = offset;
+        int i = 0;
+
+        // ASCII only loop
+        for (char c; i < length && (c = text.charAt(i)) < 0x80; i++) {
+            target[dp++] = (byte) c;
+        }
+
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                target[dp++] = (byte) c;
+            } else if (c < 0x800) {
+                target[dp++] = (byte) (0xc0 | (c >> 6));
+                target[dp++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c)) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                target[dp++] = (byte) (0xf0 | (codePoint >> 18));
+                target[dp++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                target[dp++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                target[dp++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                target[dp++] = (byte) (0xe0 | (c >> 12));
+                target[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                target[dp++] = (byte) (0x80 | (c & 0x3f));
+            }
+            i++;
+        }
+
+        return dp;
+    }
+
+    /**
+     * Encode the text to new array of exact size.
+     *
+     * @param text text to be encoded.
+     * @return encoded text.
+     * @throws IllegalArgumentException when the text contains unpaired surrogate.
+     */
+    public static byte[] encode(String text) {
+        final byte[] result = new byte[encodedLength(text)];
+        encode(text, result, 0);
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Text message represented by its validated UTF-8 encoded bytes.
+ * <p/>
+ * Can be used as a type of {@link javax.websocket.MessageHandler.Whole} or as a message parameter of method annotated
+ * with {@link javax.websocket.OnMessage} when the application processes the text in its encoded form (for example
+ * by a parser which consumes UTF-8 bytes). Received payload is only validated, it is not decoded to {@link String}
+ * unless one of the {@link CharSequence} methods is invoked.
+ * <pre>
+ * session.addMessageHandler(new MessageHandler.Whole&lt;Utf8Text&gt;() {
+ *     &#64;Override
+ *     public void onMessage(Utf8Text message) {
+ *         parser.parse(message.getBytes());
+ *     }
+ * });
+ * </pre>
+ *
+ * @author agent (agent at local)
+ */
+public final class Utf8Text implements CharSequence {
+
+    private final ByteBuffer bytes;
+    private volatile String text;
+
+    /**
+     * Create new instance.
+     *
+     * @param bytes valid UTF-8 encoded text, from position to limit.
+     */
+    Utf8Text(ByteBuffer bytes) {
+        this.bytes = bytes.slice();
+    }
+
+    /**
+     * Create text from UTF-8 encoded bytes.
+     * <p/>
+     * Bytes from position to limit are validated; the buffer is not copied, so its content must not be changed
+     * afterwards.
+     *
+     * @param bytes UTF-8 encoded text.
+     * @return new instance.
+     * @throws IllegalArgumentException when the bytes are not valid UTF-8.
+     */
+    public static Utf8Text wrap(ByteBuffer bytes) {
+        final ByteBuffer buffer = bytes.hasArray() ? bytes : ByteBuffer.wrap(Utils.getRemainingArray(bytes.duplicate()));
+        try {
+            new Utf8Decoder().validate(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), true);
+        } catch (Utf8DecodingError e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return new Utf8Text(buffer);
+    }
+
+    /**
+     * Create text from UTF-8 encoded bytes.
+     *
+     * @param bytes UTF-8 encoded text, not copied.
+     * @return new instance.
+     * @throws IllegalArgumentException when the bytes are not valid UTF-8.
+     * @see #wrap(ByteBuffer)
+     */
+    public static Utf8Text wrap(byte[] bytes) {
+        return wrap(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Create text from UTF-8 encoded bytes which are known to be valid, for example because they were produced by
+     * an UTF-8 encoder.
+     * <p/>
+     * Bytes are not validated; sending invalid UTF-8 text violates RFC 6455 and peer will close the connection.
+     * The buffer is not copied, so its content must not be changed afterwards.
+     *
+     * @param bytes valid UTF-8 encoded text, from position to limit.
+     * @return new instance.
+     */
+    public static Utf8Text wrapTrusted(ByteBuffer bytes) {
+        return new Utf8Text(bytes);
+    }
+
+    /**
+     * Get UTF-8 encoded bytes of the text.
+     *
+     * @return new read-only view of the bytes; content is not copied.
+     */
+    public ByteBuffer getBytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    /**
+     * Get length of the UTF-8 encoded text in bytes.
+     *
+     * @return number of bytes.
+     */
+    public int getByteLength() {
+        return bytes.remaining();
+    }
+
+    /**
+     * Get the (writable) buffer with encoded text. The buffer must not be modified.
+     *
+     * @return buffer.
+     */
+    ByteBuffer getBuffer() {
+        return bytes.duplicate();
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Get decoded text.
+     * <p/>
+     * Text is decoded during the first invocation of this method (or any other {@link CharSequence} method).
+     *
+     * @return decoded text.
+     */
+    @Override
+    public String toString() {
+        String result = text;
+        if (result == null) {
+            final ByteBuffer buffer = bytes.duplicate();
+            final byte[] data;
+            final int offset;
+            if (buffer.hasArray()) {
+                data = buffer.array();
+                offset = buffer.arrayOffset() + buffer.position();
+            } else {
+                data = new byte[buffer.remaining()];
+                buffer.get(data);
+                offset = 0;
+            }
+            result = new Utf8Decoder().decode(data, offset, getByteLength(), true);
+            text = result;
+        }
+        return result;
+    }
+}
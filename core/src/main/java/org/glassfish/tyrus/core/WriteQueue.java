@@ -0,0 +1,201 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Queue of outgoing frames (or tasks writing them) used by {@link org.glassfish.tyrus.spi.Writer} implementations.
+ * <p/>
+ * Queued items are served in three lanes:
+ * <ol>
+ * <li>ping and pong frames,</li>
+ * <li>data frames sent with priority (see {@link org.glassfish.tyrus.spi.Writer#write(ByteBuffer, org.glassfish.tyrus.spi.CompletionHandler, boolean)}),</li>
+ * <li>all other items, including close frames.</li>
+ * </ol>
+ * Ping and pong frames are always polled before anything else, so they are not stuck behind large amount of data
+ * waiting for the connection to become writable. Priority data frames are polled only on message boundaries, they are
+ * never inserted between fragments of a message which is being written. Items from the same lane keep their order.
+ * <p/>
+ * Close frame keeps its position among data frames, so data sent before it are not written after it (see RFC 6455,
+ * chapter 5.5.1). Once the close frame is queued, data frames are not accepted anymore.
+ * <p/>
+ * Items added by {@link #offer(Object)} are treated as complete data messages; they are accepted even after the close
+ * frame was queued (so the connection can be closed after the close frame is written).
+ * <p/>
+ * Instances are thread safe.
+ *
+ * @param <T> queued item type.
+ * @author agent (agent at local)
+ */
+public class WriteQueue<T> extends AbstractQueue<T> {
+
+    private final LinkedList<T> control = new LinkedList<T>();
+    private final LinkedList<T> priority = new LinkedList<T>();
+    private final LinkedList<DataItem<T>> data = new LinkedList<DataItem<T>>();
+
+    // last polled data frame was not the final fragment of a message.
+    private boolean fragmentInProgress = false;
+    // close frame was queued, no more data frames can be written.
+    private boolean closeQueued = false;
+
+    /**
+     * Add an item representing write of given frame.
+     *
+     * @param item     queued item.
+     * @param frame    serialized frame (with the header) written by the item. Buffer position is not changed.
+     * @param priority {@code true} when the frame should be written before already queued data frames.
+     * @return {@code false} when the item was not queued, because it represents data frame or another close frame
+     * and close frame was already queued, {@code true} otherwise.
+     */
+    public synchronized boolean offer(T item, ByteBuffer frame, boolean priority) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+
+        final byte firstByte = frame.hasRemaining() ? frame.get(frame.position()) : (byte) 0x80;
+        final boolean fin = (firstByte & 0x80) != 0;
+        final int opcode = firstByte & 0x0F;
+
+        if (opcode == 0x09 || opcode == 0x0A) {
+            control.add(item);
+        } else if (closeQueued) {
+            return false;
+        } else if (opcode == 0x08) {
+            closeQueued = true;
+            data.add(new DataItem<T>(item, true));
+        } else if (priority && fin && opcode != 0x00) {
+            this.priority.add(item);
+        } else {
+            data.add(new DataItem<T>(item, fin));
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized boolean offer(T item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+
+        data.add(new DataItem<T>(item, true));
+        return true;
+    }
+
+    @Override
+    public synchronized T poll() {
+        if (!control.isEmpty()) {
+            return control.removeFirst();
+        }
+
+        if (!fragmentInProgress && !priority.isEmpty()) {
+            return priority.removeFirst();
+        }
+
+        if (!data.isEmpty()) {
+            final DataItem<T> dataItem = data.removeFirst();
+            fragmentInProgress = !dataItem.fin;
+            return dataItem.item;
+        }
+
+        return null;
+    }
+
+    @Override
+    public synchronized T peek() {
+        if (!control.isEmpty()) {
+            return control.getFirst();
+        }
+
+        if (!fragmentInProgress && !priority.isEmpty()) {
+            return priority.getFirst();
+        }
+
+        if (!data.isEmpty()) {
+            return data.getFirst().item;
+        }
+
+        return null;
+    }
+
+    @Override
+    public synchronized int size() {
+        return control.size() + priority.size() + data.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return control.isEmpty() && priority.isEmpty() && data.isEmpty();
+    }
+
+    /**
+     * Get an iterator over snapshot of queued items. Items are not necessarily returned in the order in which they would be polled
+     * and the iterator does not support removal.
+     *
+     * @return iterator over queued items.
+     */
+    @Override
+    public synchronized Iterator<T> iterator() {
+        final List<T> snapshot = new ArrayList<T>(size());
+        snapshot.addAll(control);
+        snapshot.addAll(priority);
+        for (DataItem<T> dataItem : data) {
+            snapshot.add(dataItem.item);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private static class DataItem<T> {
+        private final T item;
+        private final boolean fin;
+
+        private DataItem(T item, boolean fin) {
+            this.item = item;
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.extension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.tyrus.core.ExtensionChain;
+import org.glassfish.tyrus.core.Frame;
+import org.glassfish.tyrus.core.TyrusExtension;
+
+/**
+ * Private extension which sends data messages as binary delta against previous message sent in the same direction.
+ * <p/>
+ * Targeted at state synchronization traffic, where consecutive messages differ only slightly. Both sides keep last
+ * whole (not fragmented) data message sent/received on the connection as a reference; outgoing message is encoded as
+ * a sequence of copy (range of reference) and insert (literal bytes) operations. Delta is sent only when it is smaller
+ * than the message itself, otherwise the message is sent as it is.
+ * <p/>
+ * References are not kept for messages bigger than maximal reference size, which is negotiated using
+ * {@value #MAX_REFERENCE_SIZE} parameter (smaller value of client and server setting is used). Each connection keeps
+ * up to two references (one per direction).
+ * <p/>
+ * Delta encoded frames are marked using RSV2 bit. Extension must be present on both sides, Tyrus client implements
+ * both of them.
+ *
+ * @author agent (agent at local)
+ */
+public class DeltaEncodingExtension implements ExtensionChain.ReservedBitsExtension {
+
+    /**
+     * Extension name.
+     */
+    public static final String NAME = "x-tyrus-delta";
+
+    /**
+     * Name of the extension parameter carrying maximal reference size.
+     */
+    public static final String MAX_REFERENCE_SIZE = "max_reference_size";
+
+    /**
+     * Default maximal reference size.
+     */
+    public static final int DEFAULT_MAX_REFERENCE_SIZE = 16384;
+
+    private static final ContextKey<State> STATE = new ContextKey<State>(DeltaEncodingExtension.class.getName() + ".STATE", State.class);
+
+    private static final Logger LOGGER = Logger.getLogger(DeltaEncodingExtension.class.getName());
+
+    private static final byte OP_COPY = 0x00;
+    private static final byte OP_INSERT = 0x01;
+
+    private static final int HASH_LENGTH = 4;
+    private static final int MIN_COPY_LENGTH = 8;
+
+    private final int maxReferenceSize;
+
+    /**
+     * Create extension with {@link #DEFAULT_MAX_REFERENCE_SIZE}.
+     */
+    public DeltaEncodingExtension() {
+        this(DEFAULT_MAX_REFERENCE_SIZE);
+    }
+
+    /**
+     * Create extension with given maximal reference size.
+     *
+     * @param maxReferenceSize maximal size of message kept as a reference.
+     */
+    public DeltaEncodingExtension(int maxReferenceSize) {
+        if (maxReferenceSize <= 0) {
+            throw new IllegalArgumentException("maxReferenceSize must be positive.");
+        }
+        this.maxReferenceSize = maxReferenceSize;
+    }
+
+    @Override
+    public Frame processIncoming(ExtensionContext context, Frame frame) {
+        final State state = STATE.get(context);
+        if (state == null || !isApplicable(frame)) {
+            return frame;
+        }
+
+        final byte[] payload;
+        if (frame.isRsv2()) {
+            try {
+                payload = decode(state.received, frame.getPayloadData(), state.maxReferenceSize);
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.INFO, e.getMessage(), e);
+                state.received = null;
+                return frame;
+            }
+            frame = Frame.builder(frame).payloadData(payload).rsv2(false).build();
+        } else {
+            payload = frame.getPayloadData();
+        }
+
+        state.received = payload.length <= state.maxReferenceSize ? payload : null;
+        return frame;
+    }
+
+    @Override
+    public Frame processOutgoing(ExtensionContext context, Frame frame) {
+        final State state = STATE.get(context);
+        if (state == null || !isApplicable(frame)) {
+            return frame;
+        }
+
+        synchronized (state) {
+            final byte[] payload = frame.getPayloadData();
+            final byte[] reference = state.sent;
+            state.sent = payload.length <= state.maxReferenceSize ? payload : null;
+
+            if (reference == null || reference.length == 0 || payload.length <= MIN_COPY_LENGTH
+                    || payload.length > state.maxReferenceSize) {
+                return frame;
+            }
+
+            final DeltaWriter delta = new DeltaWriter(payload.length - 1);
+            if (!encode(reference, payload, delta)) {
+                return frame;
+            }
+
+            return Frame.builder(frame).payloadData(delta.getBuffer()).payloadLength(delta.getPosition()).rsv2(true).build();
+        }
+    }
+
+    @Override
+    public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+        final int negotiated = Math.min(maxReferenceSize, getMaxReferenceSize(requestedParameters, maxReferenceSize));
+        STATE.set(context, new State(negotiated));
+        return createParameters(negotiated);
+    }
+
+    @Override
+    public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        final int negotiated = Math.min(maxReferenceSize, getMaxReferenceSize(responseParameters, maxReferenceSize));
+        STATE.set(context, new State(negotiated));
+    }
+
+    @Override
+    public void destroy(ExtensionContext context) {
+        STATE.remove(context);
+    }
+
+    @Override
+    public int getReservedBits() {
+        return RSV2;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+        return createParameters(maxReferenceSize);
+    }
+
+    private static boolean isApplicable(Frame frame) {
+        return !frame.isControlFrame() && frame.isFin() && frame.getOpcode() != 0x00;
+    }
+
+    private static List<Parameter> createParameters(int maxReferenceSize) {
+        final List<Parameter> parameters = new ArrayList<Parameter>(1);
+        parameters.add(new TyrusExtension.TyrusParameter(MAX_REFERENCE_SIZE, Integer.toString(maxReferenceSize)));
+        return parameters;
+    }
+
+    private static int getMaxReferenceSize(List<Parameter> parameters, int defaultValue) {
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                if (MAX_REFERENCE_SIZE.equals(parameter.getName())) {
+                    try {
+                        final int value = Integer.parseInt(parameter.getValue());
+                        if (value > 0) {
+                            return value;
+                        }
+                    } catch (NumberFormatException e) {
+                        LOGGER.log(Level.FINE, e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Encode target as delta against reference.
+     * <p/>
+     * Format: varint target length, followed by operations. Copy operation: {@code 0x00}, varint offset, varint length.
+     * Insert operation: {@code 0x01}, varint length, literal bytes.
+     *
+     * @param reference reference.
+     * @param target    data to be encoded.
+     * @param delta     output.
+     * @return {@code true} when the delta fits into output, {@code false} otherwise.
+     */
+    static boolean encode(byte[] reference, byte[] target, DeltaWriter delta) {
+        if (!delta.writeVarInt(target.length)) {
+            return false;
+        }
+
+        final int hashBits = hashBits(reference.length);
+        final int[] table = new int[1 << hashBits];
+        for (int i = 0; i + HASH_LENGTH <= reference.length; i++) {
+            table[hash(reference, i, hashBits)] = i + 1;
+        }
+
+        int literalStart = 0;
+        int position = 0;
+        while (position + HASH_LENGTH <= target.length) {
+            final int candidate = table[hash(target, position, hashBits)] - 1;
+
+            if (candidate >= 0) {
+                int length = 0;
+                while (candidate + length < reference.length && position + length < target.length
+                        && reference[candidate + length] == target[position + length]) {
+                    length++;
+                }
+
+                int back = 0;
+                while (back < position - literalStart && back < candidate
+                        && reference[candidate - back - 1] == target[position - back - 1]) {
+                    back++;
+                }
+
+                if (length + back >= MIN_COPY_LENGTH) {
+                    if (!delta.writeInsert(target, literalStart, position - back - literalStart)
+                            || !delta.writeCopy(candidate - back, length + back)) {
+                        return false;
+                    }
+                    position += length;
+                    literalStart = position;
+                    continue;
+                }
+            }
+
+            position++;
+        }
+
+        return delta.writeInsert(target, literalStart, target.length - literalStart);
+    }
+
+    /**
+     * Reconstruct message from reference and delta.
+     *
+     * @param reference        reference.
+     * @param delta            delta, see {@link #encode(byte[], byte[], DeltaWriter)}.
+     * @param maxReferenceSize maximal size of reconstructed message.
+     * @return reconstructed message.
+     * @throws IllegalArgumentException when the delta is malformed or the reference is missing.
+     */
+    static byte[] decode(byte[] reference, byte[] delta, int maxReferenceSize) {
+        if (reference == null) {
+            throw new IllegalArgumentException("Delta encoded frame received, but there is no reference.");
+        }
+
+        final DeltaReader reader = new DeltaReader(delta);
+        final int length = reader.readVarInt();
+        if (length > maxReferenceSize) {
+            throw new IllegalArgumentException("Delta encoded message is bigger than maximal reference size.");
+        }
+
+        final byte[] result = new byte[length];
+        int position = 0;
+        while (reader.hasRemaining()) {
+            final byte op = reader.readByte();
+            if (op == OP_COPY) {
+                final int offset = reader.readVarInt();
+                final int copyLength = reader.readVarInt();
+                if (offset > reference.length - copyLength || copyLength > length - position) {
+                    throw new IllegalArgumentException("Invalid copy operation.");
+                }
+                System.arraycopy(reference, offset, result, position, copyLength);
+                position += copyLength;
+            } else if (op == OP_INSERT) {
+                final int insertLength = reader.readVarInt();
+                if (insertLength > length - position) {
+                    throw new IllegalArgumentException("Invalid insert operation.");
+                }
+                reader.read(result, position, insertLength);
+                position += insertLength;
+            } else {
+                throw new IllegalArgumentException("Unknown operation: " + op);
+            }
+        }
+
+        if (position != length) {
+            throw new IllegalArgumentException("Delta encoded message is incomplete.");
+        }
+
+        return result;
+    }
+
+    private static int hashBits(int length) {
+        int bits = 4;
+        while ((1 << bits) < length && bits < 16) {
+            bits++;
+        }
+        return bits;
+    }
+
+    private static int hash(byte[] data, int offset, int bits) {
+        final int value = (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+        return (value * 0x9E3779B1) >>> (32 - bits);
+    }
+
+    /**
+     * Per-connection state.
+     */
+    private static class State {
+
+        private final int maxReferenceSize;
+
+        private byte[] sent;
+        private byte[] received;
+
+        private State(int maxReferenceSize) {
+            this.maxReferenceSize = maxReferenceSize;
+        }
+    }
+
+    /**
+     * Bounded output of {@link #encode(byte[], byte[], DeltaWriter)}.
+     */
+    static class DeltaWriter {
+
+        private final byte[] buffer;
+        private int position = 0;
+
+        DeltaWriter(int limit) {
+            this.buffer = new byte[Math.max(limit, 0)];
+        }
+
+        byte[] getBuffer() {
+            return buffer;
+        }
+
+        int getPosition() {
+            return position;
+        }
+
+        boolean writeCopy(int offset, int length) {
+            return writeByte(OP_COPY) && writeVarInt(offset) && writeVarInt(length);
+        }
+
+        boolean writeInsert(byte[] data, int offset, int length) {
+            if (length == 0) {
+                return true;
+            }
+            if (!writeByte(OP_INSERT) || !writeVarInt(length) || buffer.length - position < length) {
+                return false;
+            }
+            System.arraycopy(data, offset, buffer, position, length);
+            position += length;
+            return true;
+        }
+
+        boolean writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                if (!writeByte((byte) ((value & 0x7F) | 0x80))) {
+                    return false;
+                }
+                value >>>= 7;
+            }
+            return writeByte((byte) value);
+        }
+
+        private boolean writeByte(byte b) {
+            if (position == buffer.length) {
+                return false;
+            }
+            buffer[position++] = b;
+            return true;
+        }
+    }
+
+    private static class DeltaReader {
+
+        private final byte[] data;
+        private int position = 0;
+
+        private DeltaReader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasRemaining() {
+            return position < data.length;
+        }
+
+        byte readByte() {
+            if (position == data.length) {
+                throw new IllegalArgumentException("Unexpected end of delta encoded frame.");
+            }
+            return data[position++];
+        }
+
+        int readVarInt() {
+            int result = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = readByte();
+                result |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (result < 0) {
+                        throw new IllegalArgumentException("Invalid length.");
+                    }
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Invalid length.");
+        }
+
+        void read(byte[] target, int offset, int length) {
+            if (data.length - position < length) {
+                throw new IllegalArgumentException("Unexpected end of delta encoded frame.");
+            }
+            System.arraycopy(data, position, target, offset, length);
+            position += length;
+        }
+    }
+}
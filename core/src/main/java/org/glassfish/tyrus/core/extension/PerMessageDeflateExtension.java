@@ -51,7 +51,7 @@ import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
-import org.glassfish.tyrus.core.ExtendedExtension;
+import org.glassfish.tyrus.core.ExtensionChain;
 import org.glassfish.tyrus.core.Frame;
 
 /**
@@ -63,12 +63,11 @@ import org.glassfish.tyrus.core.Frame;
  * <p/>
  * <pre>TODO:
  * - parameters (window sizes, context takeovers).
- * - context (some utility methods to get the typed params - T getParam(Class<T>))
  * </pre>
  *
  * @author Pavel Bucek (pavel.bucek at oracle.com)
  */
-public class PerMessageDeflateExtension implements ExtendedExtension {
+public class PerMessageDeflateExtension implements ExtensionChain.ReservedBitsExtension {
 
     private static final Pool<byte[]> BYTE_ARRAY_POOL = new Pool<byte[]>() {
         @Override
@@ -77,8 +76,8 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
         }
     };
 
-    private static final String INFLATER = PerMessageDeflateExtension.class.getName() + ".INFLATER";
-    private static final String DEFLATER = PerMessageDeflateExtension.class.getName() + ".DEFLATER";
+    private static final ContextKey<Inflater> INFLATER = new ContextKey<Inflater>(PerMessageDeflateExtension.class.getName() + ".INFLATER", Inflater.class);
+    private static final ContextKey<Deflater> DEFLATER = new ContextKey<Deflater>(PerMessageDeflateExtension.class.getName() + ".DEFLATER", Deflater.class);
 
     private static final Logger LOGGER = Logger.getLogger(PerMessageDeflateExtension.class.getName());
     private static final boolean DEBUG = LOGGER.isLoggable(Level.FINE);
@@ -87,7 +86,7 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
 
     @Override
     public Frame processIncoming(ExtensionContext context, Frame frame) {
-        final Inflater decompresser = (Inflater) context.getProperties().get(INFLATER);
+        final Inflater decompresser = INFLATER.get(context);
 
         if (DEBUG) {
             LOGGER.fine("Incoming frame: " + frame);
@@ -156,7 +155,7 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
 
     @Override
     public Frame processOutgoing(ExtensionContext context, Frame frame) {
-        final Deflater compresser = (Deflater) context.getProperties().get(DEFLATER);
+        final Deflater compresser = DEFLATER.get(context);
 
         if (DEBUG) {
             LOGGER.fine("Outgoing frame: " + frame);
@@ -216,8 +215,8 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
 
         compresser.setStrategy(Deflater.DEFAULT_STRATEGY);
 
-        context.getProperties().put(INFLATER, decompresser);
-        context.getProperties().put(DEFLATER, compresser);
+        INFLATER.set(context, decompresser);
+        DEFLATER.set(context, compresser);
     }
 
     @Override
@@ -233,11 +232,8 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
 
     @Override
     public void destroy(ExtensionContext context) {
-        final Inflater decompresser = (Inflater) context.getProperties().get(INFLATER);
-        final Deflater compresser = (Deflater) context.getProperties().get(DEFLATER);
-
-        context.getProperties().remove(DEFLATER);
-        context.getProperties().remove(INFLATER);
+        final Inflater decompresser = INFLATER.remove(context);
+        final Deflater compresser = DEFLATER.remove(context);
 
         if (decompresser != null) {
             decompresser.end();
@@ -248,6 +244,11 @@ public class PerMessageDeflateExtension implements ExtendedExtension {
         }
     }
 
+    @Override
+    public int getReservedBits() {
+        return RSV1;
+    }
+
     @Override
     public String getName() {
         return "permessage-deflate";
@@ -0,0 +1,377 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.extension;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.glassfish.tyrus.core.ExtensionChain;
+import org.glassfish.tyrus.core.Frame;
+import org.glassfish.tyrus.core.TyrusExtension;
+
+/**
+ * Private per-message compression extension which primes {@link Deflater} and {@link Inflater} with shared preset
+ * dictionary.
+ * <p/>
+ * Intended for small messages with repetitive content (JSON documents with the same keys etc.), where
+ * {@link PerMessageDeflateExtension} without context takeover does not have enough data to find repetitions. Every
+ * message is compressed independently (no context takeover), so the extension does not keep any compression state
+ * per connection; {@link Deflater} and {@link Inflater} instances are pooled per dictionary.
+ * <p/>
+ * Dictionaries are identified by hash of their content, which is negotiated using {@value #DICTIONARY_ID} extension
+ * parameter. Client sends id of its dictionary; server accepts it when it has a dictionary with the same id registered
+ * (server can register older versions of dictionary to support clients which were not updated yet). When the server
+ * does not know requested dictionary, the extension is negotiated, but the connection does not use any compression.
+ * <p/>
+ * Only whole (not fragmented) data frames are compressed and compressed payload is sent only when it is smaller than
+ * the original one. Compressed frames are marked using RSV1 bit, so this extension cannot be negotiated together
+ * with {@link PerMessageDeflateExtension} (or any other extension using RSV1); when the client offers both, server
+ * accepts only the one offered first.
+ * <p/>
+ * Server side registration (per endpoint):
+ * <pre>
+ *     final ServerEndpointConfig config = ServerEndpointConfig.Builder.create(MyEndpoint.class, "/api")
+ *             .extensions(Arrays.&lt;Extension&gt;asList(new PresetDictionaryDeflateExtension(currentDictionary, previousDictionary)))
+ *             .build();
+ * </pre>
+ *
+ * @author agent (agent at local)
+ */
+public class PresetDictionaryDeflateExtension implements ExtensionChain.ReservedBitsExtension {
+
+    /**
+     * Extension name.
+     */
+    public static final String NAME = "x-tyrus-dictionary-deflate";
+
+    /**
+     * Name of the extension parameter carrying dictionary id.
+     */
+    public static final String DICTIONARY_ID = "dictionary_id";
+
+    private static final ContextKey<Dictionary> DICTIONARY = new ContextKey<Dictionary>(PresetDictionaryDeflateExtension.class.getName() + ".DICTIONARY", Dictionary.class);
+
+    private static final Logger LOGGER = Logger.getLogger(PresetDictionaryDeflateExtension.class.getName());
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xff, (byte) 0xff};
+
+    private final Dictionary dictionary;
+    private final Map<String, Dictionary> dictionaries = new LinkedHashMap<String, Dictionary>();
+    private final int compressionLevel;
+
+    /**
+     * Create extension with given dictionaries.
+     *
+     * @param dictionary         current dictionary. Clients always request this one.
+     * @param olderDictionaries  older versions of dictionary, which will be still accepted when requested by client.
+     */
+    public PresetDictionaryDeflateExtension(byte[] dictionary, byte[]... olderDictionaries) {
+        this(Deflater.DEFAULT_COMPRESSION, dictionary, olderDictionaries);
+    }
+
+    /**
+     * Create extension with given dictionaries and compression level.
+     *
+     * @param compressionLevel  compression level, see {@link Deflater#setLevel(int)}.
+     * @param dictionary        current dictionary. Clients always request this one.
+     * @param olderDictionaries older versions of dictionary, which will be still accepted when requested by client.
+     */
+    public PresetDictionaryDeflateExtension(int compressionLevel, byte[] dictionary, byte[]... olderDictionaries) {
+        if (dictionary == null || dictionary.length == 0) {
+            throw new IllegalArgumentException("Dictionary must not be empty.");
+        }
+
+        this.compressionLevel = compressionLevel;
+        this.dictionary = new Dictionary(dictionary);
+        dictionaries.put(this.dictionary.id, this.dictionary);
+
+        for (byte[] olderDictionary : olderDictionaries) {
+            if (olderDictionary != null && olderDictionary.length > 0) {
+                final Dictionary d = new Dictionary(olderDictionary);
+                if (!dictionaries.containsKey(d.id)) {
+                    dictionaries.put(d.id, d);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute dictionary id (hex encoded prefix of SHA-256 hash of dictionary content).
+     *
+     * @param dictionary dictionary.
+     * @return dictionary id.
+     */
+    public static String getDictionaryId(byte[] dictionary) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(dictionary);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required to be present in every Java platform implementation.
+            throw new IllegalStateException(e);
+        }
+
+        final StringBuilder sb = new StringBuilder(16);
+        for (int i = 0; i < 8; i++) {
+            sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Get id of current dictionary.
+     *
+     * @return current dictionary id.
+     */
+    public String getDictionaryId() {
+        return dictionary.id;
+    }
+
+    @Override
+    public Frame processIncoming(ExtensionContext context, Frame frame) {
+        if (!frame.isRsv1() || frame.isControlFrame()) {
+            return frame;
+        }
+
+        final Dictionary d = DICTIONARY.get(context);
+        if (d == null) {
+            return frame;
+        }
+
+        final Inflater inflater = d.takeInflater();
+        try {
+            final byte[] result = inflate(inflater, d.data, frame.getPayloadData(), (int) frame.getPayloadLength());
+            if (result == null) {
+                return frame;
+            }
+            return Frame.builder(frame).payloadData(result).rsv1(false).build();
+        } finally {
+            d.recycle(inflater);
+        }
+    }
+
+    @Override
+    public Frame processOutgoing(ExtensionContext context, Frame frame) {
+        if (frame.isControlFrame() || !frame.isFin() || frame.getOpcode() == 0x00 || frame.isRsv1()) {
+            return frame;
+        }
+
+        final Dictionary d = DICTIONARY.get(context);
+        final int payloadLength = (int) frame.getPayloadLength();
+        if (d == null || payloadLength == 0) {
+            return frame;
+        }
+
+        final Deflater deflater = d.takeDeflater();
+        try {
+            deflater.setDictionary(d.data);
+            deflater.setInput(frame.getPayloadData(), 0, payloadLength);
+
+            // compressed payload is used only when it is smaller than original one, so there is no need to grow
+            // the output buffer - when it is full, the payload is not worth compressing.
+            final byte[] output = new byte[payloadLength + TAIL.length];
+            final int length = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+            if (length == output.length) {
+                return frame;
+            }
+
+            final int compressedLength = endsWithTail(output, length) ? length - TAIL.length : length;
+            if (compressedLength >= payloadLength) {
+                return frame;
+            }
+
+            return Frame.builder(frame).payloadData(output).payloadLength(compressedLength).rsv1(true).build();
+        } finally {
+            d.recycle(deflater);
+        }
+    }
+
+    @Override
+    public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+        final Dictionary d = dictionaries.get(getDictionaryIdParameter(requestedParameters));
+        if (d == null) {
+            LOGGER.log(Level.FINE, "Requested dictionary is not registered; compression will not be used.");
+            return Collections.emptyList();
+        }
+
+        DICTIONARY.set(context, d);
+        return d.parameters;
+    }
+
+    @Override
+    public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        final Dictionary d = dictionaries.get(getDictionaryIdParameter(responseParameters));
+        if (d == null) {
+            LOGGER.log(Level.FINE, "Server did not accept requested dictionary; compression will not be used.");
+        } else {
+            DICTIONARY.set(context, d);
+        }
+    }
+
+    @Override
+    public void destroy(ExtensionContext context) {
+        DICTIONARY.remove(context);
+    }
+
+    @Override
+    public int getReservedBits() {
+        return RSV1;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+        return dictionary.parameters;
+    }
+
+    private static String getDictionaryIdParameter(List<Parameter> parameters) {
+        if (parameters != null) {
+            for (Parameter parameter : parameters) {
+                if (DICTIONARY_ID.equals(parameter.getName())) {
+                    return parameter.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean endsWithTail(byte[] data, int length) {
+        return length >= TAIL.length &&
+                data[length - 4] == TAIL[0] &&
+                data[length - 3] == TAIL[1] &&
+                data[length - 2] == TAIL[2] &&
+                data[length - 1] == TAIL[3];
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] dictionary, byte[] compressed, int length) {
+        try {
+            inflater.setDictionary(dictionary);
+            inflater.setInput(compressed, 0, length);
+
+            byte[] result = new byte[Math.max(256, length * 4)];
+            int resultLength = 0;
+            boolean tailAdded = false;
+
+            while (true) {
+                if (resultLength == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+
+                resultLength += inflater.inflate(result, resultLength, result.length - resultLength);
+
+                if (inflater.finished()) {
+                    break;
+                } else if (resultLength == result.length) {
+                    // output buffer is full, inflater might have some pending output.
+                    continue;
+                } else if (inflater.needsInput()) {
+                    if (tailAdded) {
+                        break;
+                    }
+                    inflater.setInput(TAIL);
+                    tailAdded = true;
+                } else if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Unexpected dictionary request.");
+                }
+            }
+
+            return resultLength == result.length ? result : Arrays.copyOf(result, resultLength);
+        } catch (DataFormatException e) {
+            LOGGER.log(Level.INFO, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Registered dictionary with pooled {@link Deflater} and {@link Inflater} instances.
+     */
+    private class Dictionary {
+
+        private final byte[] data;
+        private final String id;
+        private final List<Parameter> parameters;
+        private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+        private final ConcurrentLinkedQueue<Inflater> inflaters = new ConcurrentLinkedQueue<Inflater>();
+
+        private Dictionary(byte[] data) {
+            this.data = Arrays.copyOf(data, data.length);
+            this.id = getDictionaryId(data);
+
+            final List<Parameter> params = new ArrayList<Parameter>(1);
+            params.add(new TyrusExtension.TyrusParameter(DICTIONARY_ID, id));
+            this.parameters = Collections.unmodifiableList(params);
+        }
+
+        Deflater takeDeflater() {
+            final Deflater deflater = deflaters.poll();
+            return deflater == null ? new Deflater(compressionLevel, true) : deflater;
+        }
+
+        Inflater takeInflater() {
+            final Inflater inflater = inflaters.poll();
+            return inflater == null ? new Inflater(true) : inflater;
+        }
+
+        void recycle(Deflater deflater) {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+
+        void recycle(Inflater inflater) {
+            inflater.reset();
+            inflaters.offer(inflater);
+        }
+    }
+}
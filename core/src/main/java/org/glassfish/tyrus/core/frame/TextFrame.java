@@ -41,51 +41,44 @@
 package org.glassfish.tyrus.core.frame;
 
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CoderResult;
 
 import org.glassfish.tyrus.core.Frame;
-import org.glassfish.tyrus.core.StrictUtf8;
 import org.glassfish.tyrus.core.TyrusWebSocket;
-import org.glassfish.tyrus.core.Utf8DecodingError;
-import org.glassfish.tyrus.core.Utf8Utils;
+import org.glassfish.tyrus.core.Utf8Decoder;
+import org.glassfish.tyrus.core.Utf8Encoder;
 
 /**
  * Text frame representation.
  */
 public class TextFrame extends TyrusFrame {
 
-    private final Charset utf8 = new StrictUtf8();
-    private final CharsetDecoder currentDecoder = utf8.newDecoder();
-    private final String textPayload;
+    private final Utf8Decoder decoder;
     private final boolean continuation;
-
-    private ByteBuffer remainder;
+    private String textPayload;
+    private boolean consumed;
 
     /**
      * Constructor.
      *
-     * @param frame     original (text) frame.
-     * @param remainder UTF-8 decoding remainder from previously processed frame.
+     * @param frame   original (text) frame.
+     * @param decoder UTF-8 decoder of the connection, holds incomplete code point from previously processed frame.
      */
-    public TextFrame(Frame frame, ByteBuffer remainder) {
-        super(frame);
-        this.textPayload = utf8Decode(isFin(), getPayloadData(), remainder);
-        this.continuation = false;
+    public TextFrame(Frame frame, Utf8Decoder decoder) {
+        this(frame, decoder, false);
     }
 
     /**
      * Constructor.
      *
      * @param frame        original (text) frame.
-     * @param remainder    UTF-8 decoding remainder from previously processed frame.
+     * @param decoder      UTF-8 decoder of the connection, holds incomplete code point from previously processed
+     *                     frame.
      * @param continuation {@code true} when this frame is continuation frame, {@code false} otherwise.
      */
-    public TextFrame(Frame frame, ByteBuffer remainder, boolean continuation) {
+    public TextFrame(Frame frame, Utf8Decoder decoder, boolean continuation) {
         super(frame);
-        this.textPayload = utf8Decode(isFin(), getPayloadData(), remainder);
+        // payload is decoded (or validated) when requested, see getTextPayload() and getValidatedPayload().
+        this.decoder = decoder;
         this.continuation = continuation;
     }
 
@@ -98,29 +91,55 @@ public class TextFrame extends TyrusFrame {
      *                     frames have this bit set to {@code true}.
      */
     public TextFrame(String message, boolean continuation, boolean fin) {
-        super(Frame.builder().payloadData(Utf8Utils.encode(new StrictUtf8(), message)).opcode(continuation ? (byte) 0x00 : (byte) 0x01).fin(fin).build());
+        super(Frame.builder().payloadData(Utf8Encoder.encode(message)).opcode(continuation ? (byte) 0x00 : (byte) 0x01).fin(fin).build());
+        this.decoder = null;
         this.continuation = continuation;
         this.textPayload = message;
+        this.consumed = true;
     }
 
     /**
      * Get text payload.
+     * <p/>
+     * Payload of received frame is decoded during the first invocation; only incomplete code point at the end of
+     * fragment is kept by the connection decoder.
      *
      * @return text payload.
+     * @throws org.glassfish.tyrus.core.Utf8DecodingError when the payload is not valid UTF-8.
+     * @throws IllegalStateException                      when the payload was already obtained by
+     *                                                    {@link #getValidatedPayload()}.
      */
     public String getTextPayload() {
+        if (textPayload == null) {
+            if (consumed) {
+                throw new IllegalStateException("Text payload has already been consumed as UTF-8 bytes.");
+            }
+            consumed = true;
+            textPayload = decoder.decode(getSharedPayloadData(), 0, (int) getPayloadLength(), isFin());
+        }
         return textPayload;
     }
 
     /**
-     * Remainder after UTF-8 decoding.
+     * Get payload bytes validated as (part of) UTF-8 encoded text, without decoding them.
      * <p/>
-     * This might be removed in the future, if encoding part will be separated from text frame impl.
+     * Incomplete code point at the end of fragment is validated together with the next fragment, so the returned
+     * buffer is guaranteed to be valid UTF-8 only when concatenated with the rest of the message.
      *
-     * @return UTF-8 decoding remainder. Used internally to decoding next incoming frame.
+     * @return validated payload, not copied.
+     * @throws org.glassfish.tyrus.core.Utf8DecodingError when the payload is not valid UTF-8.
+     * @throws IllegalStateException                      when the payload was already obtained by
+     *                                                    {@link #getTextPayload()}.
      */
-    public ByteBuffer getRemainder() {
-        return remainder;
+    public ByteBuffer getValidatedPayload() {
+        final int length = (int) getPayloadLength();
+        if (decoder != null && !consumed) {
+            consumed = true;
+            decoder.validate(getSharedPayloadData(), 0, length, isFin());
+        } else if (decoder != null && textPayload != null) {
+            throw new IllegalStateException("Text payload has already been decoded.");
+        }
+        return ByteBuffer.wrap(getSharedPayloadData(), 0, length);
     }
 
     @Override
@@ -138,61 +157,12 @@ public class TextFrame extends TyrusFrame {
 
     }
 
-    private String utf8Decode(boolean finalFragment, byte[] data, ByteBuffer remainder) {
-        final ByteBuffer b = getByteBuffer(data, remainder);
-        int n = (int) (b.remaining() * currentDecoder.averageCharsPerByte());
-        CharBuffer cb = CharBuffer.allocate(n);
-        String res;
-        while (true) {
-            CoderResult result = currentDecoder.decode(b, cb, finalFragment);
-            if (result.isUnderflow()) {
-                if (finalFragment) {
-                    currentDecoder.flush(cb);
-                    if (b.hasRemaining()) {
-                        throw new IllegalStateException("Final UTF-8 fragment received, but not all bytes consumed by decode process");
-                    }
-                    currentDecoder.reset();
-                } else {
-                    if (b.hasRemaining()) {
-                        this.remainder = b;
-                    }
-                }
-                cb.flip();
-                res = cb.toString();
-                break;
-            }
-            if (result.isOverflow()) {
-                CharBuffer tmp = CharBuffer.allocate(2 * n + 1);
-                cb.flip();
-                tmp.put(cb);
-                cb = tmp;
-                continue;
-            }
-            if (result.isError() || result.isMalformed()) {
-                throw new Utf8DecodingError("Illegal UTF-8 Sequence");
-            }
-        }
-
-        return res;
-    }
-
-    private ByteBuffer getByteBuffer(final byte[] data, ByteBuffer remainder) {
-        if (remainder == null) {
-            return ByteBuffer.wrap(data);
-        } else {
-            final int rem = remainder.remaining();
-            final byte[] orig = remainder.array();
-            byte[] b = new byte[rem + data.length];
-            System.arraycopy(orig, orig.length - rem, b, 0, rem);
-            System.arraycopy(data, 0, b, rem, data.length);
-            return ByteBuffer.wrap(b);
-        }
-    }
-
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder(super.toString());
-        sb.append(", textPayload='").append(textPayload).append('\'');
+        if (textPayload != null) {
+            sb.append(", textPayload='").append(textPayload).append('\'');
+        }
         return sb.toString();
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ChunkRing}.
+ *
+ * @author agent (agent at local)
+ */
+public class ChunkRingTest {
+
+    @Test
+    public void testOrder() {
+        final ChunkRing<String> ring = new ChunkRing<String>(2);
+        final String first = "first";
+
+        // wraps around the end of the array several times.
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.put(first, false));
+            assertTrue(ring.put(String.valueOf(i), false));
+            assertSame(first, ring.take());
+            assertEquals(String.valueOf(i), ring.take());
+        }
+
+        assertTrue(ring.put("last", true));
+        assertEquals("last", ring.take());
+        assertNull(ring.take());
+
+        // no more parts after the last one.
+        assertFalse(ring.put("after last", false));
+    }
+
+    @Test
+    public void testProducerBlockedWhenFull() throws Exception {
+        final ChunkRing<String> ring = new ChunkRing<String>(1);
+        final AtomicBoolean secondAdded = new AtomicBoolean(false);
+        final CountDownLatch producerFinished = new CountDownLatch(1);
+
+        ring.put("1", false);
+
+        new Thread() {
+            @Override
+            public void run() {
+                ring.put("2", true);
+                secondAdded.set(true);
+                producerFinished.countDown();
+            }
+        }.start();
+
+        assertFalse(producerFinished.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(secondAdded.get());
+
+        assertEquals("1", ring.take());
+        assertTrue(producerFinished.await(5, TimeUnit.SECONDS));
+        assertEquals("2", ring.take());
+        assertNull(ring.take());
+    }
+
+    @Test
+    public void testCloseReleasesProducer() throws Exception {
+        final ChunkRing<String> ring = new ChunkRing<String>(1);
+        final CountDownLatch producerFinished = new CountDownLatch(1);
+        final AtomicBoolean added = new AtomicBoolean(true);
+
+        ring.put("1", false);
+
+        new Thread() {
+            @Override
+            public void run() {
+                added.set(ring.put("2", false));
+                producerFinished.countDown();
+            }
+        }.start();
+
+        ring.close();
+
+        assertTrue(producerFinished.await(5, TimeUnit.SECONDS));
+        assertFalse(added.get());
+        assertNull(ring.take());
+    }
+
+    @Test
+    public void testFinish() {
+        final ChunkRing<String> ring = new ChunkRing<String>();
+
+        ring.put("1", false);
+        ring.finish();
+
+        assertEquals("1", ring.take());
+        assertNull(ring.take());
+    }
+
+    @Test
+    public void testNonBlockingGrows() {
+        final ChunkRing<String> ring = new ChunkRing<String>(2, false);
+
+        assertEquals("0", putAndTake(ring));
+        for (int i = 1; i < 6; i++) {
+            assertTrue(ring.put(Integer.toString(i), i == 5));
+        }
+
+        for (int i = 1; i < 6; i++) {
+            assertEquals(Integer.toString(i), ring.take());
+        }
+        assertNull(ring.take());
+    }
+
+    private static String putAndTake(ChunkRing<String> ring) {
+        ring.put("0", false);
+        return ring.take();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.extension.DeltaEncodingExtension;
+import org.glassfish.tyrus.core.extension.PresetDictionaryDeflateExtension;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent (agent at local)
+ */
+public class ExtensionChainTest {
+
+    private static final ExtendedExtension.ContextKey<StringBuilder> LOG =
+            new ExtendedExtension.ContextKey<StringBuilder>("log", StringBuilder.class);
+
+    @Test
+    public void emptyChain() {
+        assertSame(ExtensionChain.EMPTY, ExtensionChain.create(null, new TyrusExtensionContext()));
+        assertSame(ExtensionChain.EMPTY, ExtensionChain.create(Collections.<Extension>emptyList(), new TyrusExtensionContext()));
+        assertSame(ExtensionChain.EMPTY, ExtensionChain.create(Arrays.<Extension>asList(new TyrusExtension("plain")), new TyrusExtensionContext()));
+        assertTrue(ExtensionChain.EMPTY.isEmpty());
+    }
+
+    @Test
+    public void stagesOrderAndFailure() {
+        final TyrusExtensionContext context = new TyrusExtensionContext();
+        LOG.set(context, new StringBuilder());
+
+        final ExtensionChain chain = ExtensionChain.create(Arrays.<Extension>asList(
+                new LoggingExtension("a", false), new TyrusExtension("plain"), new LoggingExtension("b", true), new LoggingExtension("c", false)), context);
+
+        final Frame frame = Frame.builder().opcode((byte) 0x02).payloadData(new byte[0]).build();
+
+        assertSame(frame, chain.processIncoming(frame));
+        assertSame(frame, chain.processOutgoing(frame));
+        chain.destroy();
+
+        assertEquals("in-c,in-a,out-a,out-c,destroy-a,destroy-b,destroy-c,", LOG.get(context).toString());
+    }
+
+    @Test
+    public void deflateAndDeltaRoundTrip() {
+        final Charset utf8 = Charset.forName("UTF-8");
+        final PresetDictionaryDeflateExtension deflate = new PresetDictionaryDeflateExtension("{\"id\":,\"position\":{\"x\":,\"y\":}}".getBytes(utf8));
+        final DeltaEncodingExtension delta = new DeltaEncodingExtension();
+        final List<Extension> negotiated = Arrays.<Extension>asList(deflate, delta);
+
+        final TyrusExtensionContext senderContext = new TyrusExtensionContext();
+        final TyrusExtensionContext receiverContext = new TyrusExtensionContext();
+        deflate.onHandshakeResponse(senderContext, deflate.onExtensionNegotiation(receiverContext, deflate.getParameters()));
+        delta.onHandshakeResponse(senderContext, delta.onExtensionNegotiation(receiverContext, delta.getParameters()));
+
+        final ExtensionChain sender = ExtensionChain.create(negotiated, senderContext);
+        final ExtensionChain receiver = ExtensionChain.create(negotiated, receiverContext);
+
+        boolean bothApplied = false;
+        for (int i = 0; i < 10; i++) {
+            final byte[] payload = String.format("{\"id\":42,\"position\":{\"x\":%d,\"y\":20},\"name\":\"player one, player one, player one\"}", i).getBytes(utf8);
+
+            final Frame sent = sender.processOutgoing(Frame.builder().fin(true).opcode((byte) 0x01).payloadData(payload).build());
+            bothApplied |= sent.isRsv1() && sent.isRsv2();
+
+            final Frame received = receiver.processIncoming(sent);
+            assertFalse(received.isRsv1());
+            assertFalse(received.isRsv2());
+            assertArrayEquals(payload, received.getPayloadData());
+        }
+
+        assertTrue(bothApplied);
+    }
+
+    @Test
+    public void contextKeys() {
+        final ExtendedExtension.ContextKey<String> key = new ExtendedExtension.ContextKey<String>("key", String.class);
+        final TyrusExtensionContext context = new TyrusExtensionContext();
+
+        assertNull(key.get(context));
+        key.set(context, "value");
+        assertEquals("value", key.get(context));
+        assertTrue(context.getProperties().isEmpty());
+        assertEquals("value", key.remove(context));
+        assertNull(key.get(context));
+    }
+
+    private static class LoggingExtension implements ExtendedExtension {
+
+        private final String name;
+        private final boolean fail;
+
+        private LoggingExtension(String name, boolean fail) {
+            this.name = name;
+            this.fail = fail;
+        }
+
+        @Override
+        public Frame processIncoming(ExtensionContext context, Frame frame) {
+            if (fail) {
+                throw new RuntimeException(name);
+            }
+            LOG.get(context).append("in-").append(name).append(',');
+            return frame;
+        }
+
+        @Override
+        public Frame processOutgoing(ExtensionContext context, Frame frame) {
+            if (fail) {
+                throw new RuntimeException(name);
+            }
+            LOG.get(context).append("out-").append(name).append(',');
+            return frame;
+        }
+
+        @Override
+        public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+            return null;
+        }
+
+        @Override
+        public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        }
+
+        @Override
+        public void destroy(ExtensionContext context) {
+            LOG.get(context).append("destroy-").append(name).append(',');
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<Parameter> getParameters() {
+            return null;
+        }
+    }
+}
@@ -510,4 +510,42 @@ public class MessageHandlerManagerTest {
         assertFalse(messageHandlerManager.getMessageHandlers().contains(handler2));
         assertFalse(messageHandlerManager.getMessageHandlers().contains(handler3));
     }
+
+    @Test
+    public void utf8TextHandler() {
+        MessageHandlerManager messageHandlerManager = new MessageHandlerManager();
+
+        final MessageHandler.Whole<Utf8Text> handler = new MessageHandler.Whole<Utf8Text>() {
+            @Override
+            public void onMessage(Utf8Text message) {
+            }
+        };
+
+        messageHandlerManager.addMessageHandler(handler);
+
+        assertTrue(messageHandlerManager.isWholeTextHandlerPresent());
+        assertTrue(messageHandlerManager.isUtf8TextHandlerPresent());
+
+        messageHandlerManager.removeMessageHandler(handler);
+
+        assertFalse(messageHandlerManager.isWholeTextHandlerPresent());
+        assertFalse(messageHandlerManager.isUtf8TextHandlerPresent());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void multipleTextHandlersWithUtf8Text() {
+        MessageHandlerManager messageHandlerManager = new MessageHandlerManager();
+
+        messageHandlerManager.addMessageHandler(new MessageHandler.Whole<String>() {
+            @Override
+            public void onMessage(String message) {
+            }
+        });
+
+        messageHandlerManager.addMessageHandler(new MessageHandler.Whole<Utf8Text>() {
+            @Override
+            public void onMessage(Utf8Text message) {
+            }
+        });
+    }
 }
@@ -0,0 +1,448 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.extension.DeltaEncodingExtension;
+import org.glassfish.tyrus.core.frame.BinaryFrame;
+import org.glassfish.tyrus.core.frame.PingFrame;
+import org.glassfish.tyrus.core.frame.TextFrame;
+import org.glassfish.tyrus.spi.CompletionHandler;
+import org.glassfish.tyrus.spi.Writer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent (agent at local)
+ */
+public class ProtocolHandlerTest {
+
+    @Test
+    public void fragmentation() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+        protocolHandler.setMaxOutgoingFrameSize(10);
+
+        final Future<Frame> first = protocolHandler.send(new byte[25]);
+        assertEquals(1, writer.buffers.size());
+
+        // control frame is not blocked by fragmented message.
+        protocolHandler.send(new PingFrame(new byte[]{1}));
+        assertEquals(2, writer.buffers.size());
+
+        // data frame has to wait.
+        final Future<Frame> second = protocolHandler.send(new byte[]{1, 2, 3});
+        assertEquals(2, writer.buffers.size());
+
+        writer.complete(0);
+        writer.complete(1);
+        assertEquals(3, writer.buffers.size());
+        writer.complete(2);
+        assertEquals(4, writer.buffers.size());
+        assertFalse(first.isDone());
+        writer.complete(3);
+
+        assertTrue(first.isDone());
+        assertEquals(5, writer.buffers.size());
+        writer.complete(4);
+        assertTrue(second.isDone());
+
+        // binary frame (0x02) without FIN, 3 x continuation, last one with FIN.
+        assertEquals((byte) 0x02, writer.buffers.get(0).get(0));
+        assertEquals(10, writer.buffers.get(0).get(1));
+        assertEquals((byte) 0x89, writer.buffers.get(1).get(0));
+        assertEquals((byte) 0x00, writer.buffers.get(2).get(0));
+        assertEquals((byte) 0x80, writer.buffers.get(3).get(0));
+        assertEquals(5, writer.buffers.get(3).get(1));
+        assertEquals((byte) 0x82, writer.buffers.get(4).get(0));
+    }
+
+    @Test
+    public void fragmentFailed() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+        protocolHandler.setMaxOutgoingFrameSize(10);
+
+        final Future<Frame> first = protocolHandler.send(new byte[25]);
+        final Future<Frame> second = protocolHandler.send(new byte[]{1, 2, 3});
+
+        writer.complete(0);
+        writer.handlers.get(1).failed(new IOException());
+
+        // queued message is not written in the middle of unfinished fragmented message.
+        assertEquals(2, writer.buffers.size());
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertTrue(writer.closed);
+    }
+
+    @Test
+    public void closeStopsFragmentation() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+        protocolHandler.setMaxOutgoingFrameSize(10);
+
+        final Future<Frame> first = protocolHandler.send(new byte[25]);
+        final Future<Frame> second = protocolHandler.send(new byte[]{1, 2, 3});
+        protocolHandler.close(1000, "closing");
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(2, writer.buffers.size());
+        assertEquals((byte) 0x88, writer.buffers.get(1).get(0));
+
+        // completion of the first fragment does not write another one.
+        writer.complete(0);
+        assertEquals(2, writer.buffers.size());
+    }
+
+    @Test
+    public void fragmentationSynchronousWriter() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(true);
+        final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        protocolHandler.setWriter(new Writer() {
+            @Override
+            public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+                buffers.add(buffer);
+                completionHandler.completed(buffer);
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        });
+        protocolHandler.setMaxOutgoingFrameSize(1);
+
+        final byte[] payload = new byte[10000];
+        payload[9999] = 42;
+        assertTrue(protocolHandler.send(new BinaryFrame(payload, false, true)).isDone());
+        assertEquals(10000, buffers.size());
+
+        // masked fragments - opcode, length, 4 byte mask, payload.
+        final ByteBuffer last = buffers.get(9999);
+        assertEquals((byte) 0x80, last.get(0));
+        assertEquals((byte) 0x81, last.get(1));
+        assertEquals(42, last.get(6) ^ last.get(2));
+    }
+
+    @Test
+    public void sharedFrameOnlyWithoutProcessing() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+        assertTrue(protocolHandler.isSerializedFrameShareable());
+
+        protocolHandler.setMaxOutgoingFrameSize(10);
+        assertFalse(protocolHandler.isSerializedFrameShareable());
+
+        // broadcast frame is queued behind fragmented message.
+        protocolHandler.send(new byte[25]);
+        final Future<Frame> broadcast = protocolHandler.send(new TextFrame("broadcast", false, true));
+        assertEquals(1, writer.buffers.size());
+        writer.complete(0);
+        writer.complete(1);
+        writer.complete(2);
+        assertEquals(4, writer.buffers.size());
+        assertEquals((byte) 0x81, writer.buffers.get(3).get(0));
+        writer.complete(3);
+        assertTrue(broadcast.isDone());
+
+        protocolHandler.setMaxOutgoingFrameSize(0);
+        protocolHandler.setExtensions(Arrays.<Extension>asList(new PassThroughExtension()));
+        assertFalse(protocolHandler.isSerializedFrameShareable());
+    }
+
+    @Test
+    public void concurrentSendsProcessedInWireOrder() throws Exception {
+        final DeltaEncodingExtension delta = new DeltaEncodingExtension();
+        final TyrusExtensionContext senderContext = new TyrusExtensionContext();
+        final TyrusExtensionContext receiverContext = new TyrusExtensionContext();
+        delta.onHandshakeResponse(senderContext, delta.onExtensionNegotiation(receiverContext, delta.getParameters()));
+
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+        protocolHandler.setExtensionContext(senderContext);
+        protocolHandler.setExtensions(Arrays.<Extension>asList(delta));
+
+        final int count = 200;
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread broadcaster = new Thread() {
+            @Override
+            public void run() {
+                awaitQuietly(start);
+                for (int i = 0; i < count; i++) {
+                    // broadcast sends the same frame instance through every connection with extensions.
+                    protocolHandler.send(new TextFrame("{\"broadcast\":" + i + "}", false, true));
+                }
+            }
+        };
+        broadcaster.start();
+        start.countDown();
+        for (int i = 0; i < count; i++) {
+            protocolHandler.send("{\"text\":" + i + "}");
+        }
+        broadcaster.join();
+
+        // receiver can decode all frames only when they were processed in the order in which they were written.
+        final ExtensionChain receiver = ExtensionChain.create(Arrays.<Extension>asList(delta), receiverContext);
+        int broadcasts = 0;
+        int texts = 0;
+        boolean encoded = false;
+        for (ByteBuffer buffer : writer.buffers) {
+            final Frame received = new ProtocolHandler(true).unframe(buffer);
+            encoded |= received.isRsv2();
+
+            final Frame frame = receiver.processIncoming(received);
+            assertFalse(frame.isRsv2());
+
+            final String text = new String(frame.getPayloadData(), "UTF-8");
+            if (text.startsWith("{\"broadcast\"")) {
+                assertEquals("{\"broadcast\":" + broadcasts++ + "}", text);
+            } else {
+                assertEquals("{\"text\":" + texts++ + "}", text);
+            }
+        }
+        assertTrue(encoded);
+        assertEquals(count, broadcasts);
+        assertEquals(count, texts);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void unframeRequiredBytes() throws Exception {
+        final byte[] payload = new byte[300];
+        payload[299] = 42;
+        final ByteBuffer frame = new ProtocolHandler(true).frame(new BinaryFrame(payload, false, true));
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+
+        // collect only as many bytes as the parser requires.
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        Frame result = null;
+        int steps = 0;
+        while (result == null) {
+            final int required = (int) protocolHandler.getRequiredBytes();
+            assertTrue(required > 0);
+            final byte[] bytes = new byte[required];
+            frame.get(bytes);
+            buffer = ByteBuffer.wrap(bytes);
+            result = protocolHandler.unframe(buffer);
+            steps++;
+        }
+
+        // opcode + length code, extended length, mask, payload.
+        assertEquals(4, steps);
+        assertFalse(buffer.hasRemaining());
+        assertFalse(frame.hasRemaining());
+        assertEquals(300, result.getPayloadLength());
+        assertEquals(42, result.getPayloadData()[299]);
+        assertEquals(2, protocolHandler.getRequiredBytes());
+    }
+
+    @Test
+    public void noFragmentation() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+
+        protocolHandler.send(new byte[25]);
+        protocolHandler.send(new byte[25]);
+        assertEquals(2, writer.buffers.size());
+        assertArrayEquals(new byte[]{(byte) 0x82, 25}, new byte[]{writer.buffers.get(1).get(0), writer.buffers.get(1).get(1)});
+    }
+
+    @Test
+    public void textEncodedIntoFrame() throws Exception {
+        final String text = "text with multi byte characters: \u00e9\u20ac\ud83d\ude00";
+
+        final ProtocolHandler server = new ProtocolHandler(false);
+        final RecordingWriter serverWriter = new RecordingWriter();
+        server.setWriter(serverWriter);
+        server.send(text);
+
+        final ByteBuffer unmasked = serverWriter.buffers.get(0);
+        assertEquals((byte) 0x81, unmasked.get(0));
+        assertEquals(text.getBytes("UTF-8").length, unmasked.get(1));
+
+        // client masks the payload in place.
+        final ProtocolHandler client = new ProtocolHandler(true);
+        final RecordingWriter clientWriter = new RecordingWriter();
+        client.setWriter(clientWriter);
+        client.sendPriority(text);
+
+        final Frame frame = server.unframe(clientWriter.buffers.get(0));
+        assertTrue(frame.isFin());
+        assertEquals(1, frame.getOpcode());
+        assertArrayEquals(text.getBytes("UTF-8"), frame.getPayloadData());
+    }
+
+    @Test
+    public void utf8TextFramedWithoutEncoding() throws Exception {
+        final byte[] encoded = "{\"price\":\"\u20ac10\"}".getBytes("UTF-8");
+        final byte[] data = new byte[encoded.length + 2];
+        System.arraycopy(encoded, 0, data, 1, encoded.length);
+
+        final ProtocolHandler client = new ProtocolHandler(true);
+        final RecordingWriter clientWriter = new RecordingWriter();
+        client.setWriter(clientWriter);
+        client.send(Utf8Text.wrap(ByteBuffer.wrap(data, 1, encoded.length)));
+
+        final ProtocolHandler server = new ProtocolHandler(false);
+        final Frame frame = server.unframe(clientWriter.buffers.get(0));
+        assertTrue(frame.isFin());
+        assertEquals(1, frame.getOpcode());
+        assertArrayEquals(encoded, frame.getPayloadData());
+
+        // source is not modified by masking.
+        assertArrayEquals(encoded, Arrays.copyOfRange(data, 1, encoded.length + 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void utf8TextValidated() {
+        Utf8Text.wrap(new byte[]{'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80});
+    }
+
+    @Test
+    public void noPriorityWithExtensions() throws Exception {
+        final ProtocolHandler protocolHandler = new ProtocolHandler(false);
+        final RecordingWriter writer = new RecordingWriter();
+        protocolHandler.setWriter(writer);
+
+        protocolHandler.sendPriority("priority");
+        assertTrue(writer.priorities.get(0));
+
+        // frames processed by extensions must not be reordered.
+        protocolHandler.setExtensions(Arrays.<Extension>asList(new PassThroughExtension()));
+        protocolHandler.sendPriority("not priority");
+        protocolHandler.sendPriority(new byte[]{1});
+        assertFalse(writer.priorities.get(1));
+        assertFalse(writer.priorities.get(2));
+    }
+
+    private static class PassThroughExtension implements ExtendedExtension {
+
+        @Override
+        public Frame processIncoming(ExtensionContext context, Frame frame) {
+            return frame;
+        }
+
+        @Override
+        public Frame processOutgoing(ExtensionContext context, Frame frame) {
+            return frame;
+        }
+
+        @Override
+        public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+            return null;
+        }
+
+        @Override
+        public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+        }
+
+        @Override
+        public void destroy(ExtensionContext context) {
+        }
+
+        @Override
+        public String getName() {
+            return "pass-through";
+        }
+
+        @Override
+        public List<Parameter> getParameters() {
+            return Collections.emptyList();
+        }
+    }
+
+    private static class RecordingWriter extends Writer {
+
+        private final List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        private final List<CompletionHandler<ByteBuffer>> handlers = new ArrayList<CompletionHandler<ByteBuffer>>();
+        private final List<Boolean> priorities = new ArrayList<Boolean>();
+        private boolean closed = false;
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+            write(buffer, completionHandler);
+            priorities.set(priorities.size() - 1, priority);
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler) {
+            buffers.add(buffer);
+            handlers.add(completionHandler);
+            priorities.add(false);
+        }
+
+        void complete(int index) {
+            handlers.get(index).completed(buffers.get(index));
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+}
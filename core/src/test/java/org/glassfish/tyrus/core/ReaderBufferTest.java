@@ -0,0 +1,151 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.MessageHandler;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link ReaderBuffer}.
+ *
+ * @author agent (agent at local)
+ */
+public class ReaderBufferTest {
+
+    @Test
+    public void testStreamedMessages() throws Exception {
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final BlockingQueue<String> messages = new ArrayBlockingQueue<String>(2);
+            final ReaderBuffer buffer = new ReaderBuffer(new SessionTaskQueue(executorService));
+            buffer.setMessageHandler(new MessageHandler.Whole<Reader>() {
+                @Override
+                public void onMessage(Reader reader) {
+                    final StringBuilder sb = new StringBuilder();
+                    final char[] chars = new char[7];
+                    int read;
+                    try {
+                        while ((read = reader.read(chars)) != -1) {
+                            sb.append(chars, 0, read);
+                        }
+                    } catch (IOException e) {
+                        sb.append(e);
+                    }
+                    messages.offer(sb.toString());
+                }
+            });
+
+            // many more parts than the ring can hold.
+            final StringBuilder expected = new StringBuilder();
+            buffer.resetBuffer(Integer.MAX_VALUE);
+            for (int i = 0; i < 1000; i++) {
+                final String part = "part " + i + ";";
+                expected.append(part);
+                buffer.appendMessagePart(part, false);
+            }
+            buffer.appendMessagePart("", true);
+
+            buffer.resetBuffer(Integer.MAX_VALUE);
+            buffer.appendMessagePart("second ", false);
+            buffer.appendMessagePart("message", true);
+
+            assertEquals(expected.toString(), messages.poll(5, TimeUnit.SECONDS));
+            assertEquals("second message", messages.poll(5, TimeUnit.SECONDS));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHandlerNotReading() throws Exception {
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final BlockingQueue<String> messages = new ArrayBlockingQueue<String>(1);
+            final ReaderBuffer buffer = new ReaderBuffer(new SessionTaskQueue(executorService));
+            buffer.setMessageHandler(new MessageHandler.Whole<Reader>() {
+                @Override
+                public void onMessage(Reader reader) {
+                    messages.offer("called");
+                }
+            });
+
+            buffer.resetBuffer(Integer.MAX_VALUE);
+            buffer.appendMessagePart("first part", false);
+            assertEquals("called", messages.poll(5, TimeUnit.SECONDS));
+
+            // parts which were not read by the handler are discarded, appending does not block.
+            for (int i = 0; i < ChunkRing.DEFAULT_CAPACITY * 2; i++) {
+                buffer.appendMessagePart("part", false);
+            }
+            buffer.appendMessagePart("last", true);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(expected = MessageTooBigException.class)
+    public void testMessageTooBig() {
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final ReaderBuffer buffer = new ReaderBuffer(new SessionTaskQueue(executorService));
+            buffer.setMessageHandler(new MessageHandler.Whole<Reader>() {
+                @Override
+                public void onMessage(Reader reader) {
+                }
+            });
+
+            buffer.resetBuffer(5);
+            buffer.appendMessagePart("LON", false);
+            buffer.appendMessagePart("G--", true);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
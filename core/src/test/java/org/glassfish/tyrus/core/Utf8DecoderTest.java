@@ -0,0 +1,157 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link Utf8Decoder}.
+ *
+ * @author agent (agent at local)
+ */
+public class Utf8DecoderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testAscii() {
+        final byte[] data = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(UTF_8);
+        assertEquals("0123456789abcdefghijklmnopqrstuvwxyz", new Utf8Decoder().decode(data, 0, data.length, true));
+        assertEquals("345", new Utf8Decoder().decode(data, 3, 3, true));
+        assertEquals("", new Utf8Decoder().decode(data, 0, 0, true));
+    }
+
+    @Test
+    public void testMultiByte() {
+        final String text = "ascii prefix é€😀 and ascii suffix which is longer than 8 bytes ф";
+        final byte[] data = text.getBytes(UTF_8);
+        assertEquals(text, new Utf8Decoder().decode(data, 0, data.length, true));
+    }
+
+    @Test
+    public void testCodePointSplitBetweenFragments() {
+        final String text = "a€😀b";
+        final byte[] data = text.getBytes(UTF_8);
+
+        // every possible split into single byte fragments.
+        final Utf8Decoder decoder = new Utf8Decoder();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < data.length; i++) {
+            sb.append(decoder.decode(data, i, 1, i == data.length - 1));
+        }
+        assertEquals(text, sb.toString());
+
+        // carried bytes are completed by the following fragment, rest is decoded as usual.
+        sb.setLength(0);
+        sb.append(decoder.decode(data, 0, 3, false));
+        sb.append(decoder.decode(data, 3, data.length - 3, true));
+        assertEquals(text, sb.toString());
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testOverlong() {
+        decode(new byte[]{(byte) 0xc0, (byte) 0xaf});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testOverlongThreeBytes() {
+        decode(new byte[]{(byte) 0xe0, (byte) 0x80, (byte) 0xaf});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testSurrogate() {
+        decode(new byte[]{(byte) 0xed, (byte) 0xa0, (byte) 0x80});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testAboveMaxCodePoint() {
+        decode(new byte[]{(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testUnexpectedContinuation() {
+        decode(new byte[]{'a', (byte) 0x80});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testIncompleteLastFragment() {
+        decode(new byte[]{'a', (byte) 0xe2, (byte) 0x82});
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testInvalidIncompleteSequenceFailsFast() {
+        // fragment is not last, but the carried bytes can never be valid.
+        new Utf8Decoder().decode(new byte[]{(byte) 0xf4, (byte) 0x90}, 0, 2, false);
+    }
+
+    @Test
+    public void testValidateSharesCarryWithDecode() {
+        final String text = "a€😀b";
+        final byte[] data = text.getBytes(UTF_8);
+
+        final Utf8Decoder decoder = new Utf8Decoder();
+        for (int i = 0; i < data.length; i++) {
+            decoder.validate(data, i, 1, i == data.length - 1);
+        }
+
+        // "€" split between validated and decoded fragment.
+        decoder.validate(data, 0, 2, false);
+        assertEquals("€😀b", decoder.decode(data, 2, data.length - 2, true));
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testValidateSurrogate() {
+        new Utf8Decoder().validate(new byte[]{'a', (byte) 0xed, (byte) 0xa0, (byte) 0x80}, 0, 4, true);
+    }
+
+    @Test(expected = Utf8DecodingError.class)
+    public void testValidateIncompleteLastFragment() {
+        final Utf8Decoder decoder = new Utf8Decoder();
+        decoder.validate(new byte[]{'a', (byte) 0xe2}, 0, 2, false);
+        decoder.validate(new byte[]{(byte) 0x82}, 0, 1, true);
+    }
+
+    private static String decode(byte[] data) {
+        return new Utf8Decoder().decode(data, 0, data.length, true);
+    }
+}
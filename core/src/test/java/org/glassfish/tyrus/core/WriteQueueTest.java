@@ -0,0 +1,157 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent (agent at local)
+ */
+public class WriteQueueTest {
+
+    private static ByteBuffer frame(int firstByte) {
+        return ByteBuffer.wrap(new byte[]{(byte) firstByte, 0x00});
+    }
+
+    @Test
+    public void testControlFramesFirst() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("text1", frame(0x81), false);
+        queue.offer("text2", frame(0x81), false);
+        queue.offer("ping", frame(0x89), false);
+        queue.offer("pong", frame(0x8A), false);
+
+        assertEquals(4, queue.size());
+        assertEquals("ping", queue.poll());
+        assertEquals("pong", queue.poll());
+        assertEquals("text1", queue.poll());
+        assertEquals("text2", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testCloseKeepsDataOrder() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("text", frame(0x81), false);
+        assertTrue(queue.offer("close", frame(0x88), false));
+
+        // nothing can be sent after the close frame.
+        assertFalse(queue.offer("binary", frame(0x82), false));
+        assertFalse(queue.offer("priority", frame(0x81), true));
+        assertFalse(queue.offer("close", frame(0x88), false));
+        assertTrue(queue.offer("close-connection"));
+
+        assertEquals("text", queue.poll());
+        assertEquals("close", queue.poll());
+        assertEquals("close-connection", queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testControlFrameBetweenFragments() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("fragment1", frame(0x01), false);
+        queue.offer("fragment2", frame(0x80), false);
+
+        assertEquals("fragment1", queue.poll());
+        queue.offer("pong", frame(0x8A), false);
+        assertEquals("pong", queue.poll());
+        assertEquals("fragment2", queue.poll());
+    }
+
+    @Test
+    public void testPriorityOnMessageBoundary() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("fragment1", frame(0x02), false);
+        queue.offer("fragment2", frame(0x00), false);
+        queue.offer("fragment3", frame(0x80), false);
+        queue.offer("binary", frame(0x82), false);
+
+        assertEquals("fragment1", queue.poll());
+
+        queue.offer("priority", frame(0x81), true);
+        queue.offer("ping", frame(0x89), false);
+
+        assertEquals("ping", queue.poll());
+        assertEquals("fragment2", queue.poll());
+        assertEquals("fragment3", queue.poll());
+        assertEquals("priority", queue.poll());
+        assertEquals("binary", queue.poll());
+    }
+
+    @Test
+    public void testPriorityOnlyForWholeMessages() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("text", frame(0x81), false);
+        queue.offer("fragment", frame(0x01), true);
+        queue.offer("priority", frame(0x82), true);
+
+        assertEquals("priority", queue.poll());
+        assertEquals("text", queue.poll());
+        assertEquals("fragment", queue.poll());
+    }
+
+    @Test
+    public void testOfferWithoutFrame() {
+        final WriteQueue<String> queue = new WriteQueue<String>();
+
+        queue.offer("text", frame(0x81), false);
+        queue.offer("close-connection");
+        queue.offer("ping", frame(0x89), false);
+
+        assertEquals("ping", queue.peek());
+        assertEquals("ping", queue.poll());
+        assertEquals("text", queue.poll());
+        assertEquals("close-connection", queue.poll());
+        assertNull(queue.peek());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.extension;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.Frame;
+import org.glassfish.tyrus.core.TyrusExtensionContext;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent (agent at local)
+ */
+public class DeltaEncodingExtensionTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void negotiation() {
+        final DeltaEncodingExtension server = new DeltaEncodingExtension(1000);
+        final DeltaEncodingExtension client = new DeltaEncodingExtension(5000);
+
+        final List<Extension.Parameter> response = server.onExtensionNegotiation(new TyrusExtensionContext(), client.getParameters());
+        assertEquals("1000", response.get(0).getValue());
+    }
+
+    @Test
+    public void roundTrip() {
+        final DeltaEncodingExtension extension = new DeltaEncodingExtension();
+        final TyrusExtensionContext senderContext = new TyrusExtensionContext();
+        final TyrusExtensionContext receiverContext = new TyrusExtensionContext();
+
+        final List<Extension.Parameter> response = extension.onExtensionNegotiation(receiverContext, extension.getParameters());
+        extension.onHandshakeResponse(senderContext, response);
+
+        final String[] messages = {
+                "{\"id\":42,\"position\":{\"x\":10,\"y\":20},\"velocity\":{\"x\":1,\"y\":0},\"name\":\"player one\",\"score\":100}",
+                "{\"id\":42,\"position\":{\"x\":11,\"y\":20},\"velocity\":{\"x\":1,\"y\":0},\"name\":\"player one\",\"score\":100}",
+                "{\"id\":42,\"position\":{\"x\":12,\"y\":21},\"velocity\":{\"x\":1,\"y\":1},\"name\":\"player one\",\"score\":105}",
+                "completely different message, which is not similar to the previous one at all",
+                "completely different message, which is not similar to the previous one at all!"
+        };
+
+        boolean deltaSent = false;
+        for (String message : messages) {
+            final byte[] payload = message.getBytes(UTF8);
+            final Frame frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(payload).build();
+
+            final Frame encoded = extension.processOutgoing(senderContext, frame);
+            if (encoded.isRsv2()) {
+                deltaSent = true;
+                assertTrue(encoded.getPayloadLength() < payload.length);
+            }
+
+            final Frame decoded = extension.processIncoming(receiverContext, encoded);
+            assertFalse(decoded.isRsv2());
+            assertArrayEquals(payload, decoded.getPayloadData());
+        }
+
+        assertTrue(deltaSent);
+    }
+
+    @Test
+    public void fragmentsAndControlFramesAreNotEncoded() {
+        final DeltaEncodingExtension extension = new DeltaEncodingExtension();
+        final TyrusExtensionContext context = new TyrusExtensionContext();
+        extension.onHandshakeResponse(context, extension.getParameters());
+
+        final byte[] payload = "0123456789012345678901234567890123456789".getBytes(UTF8);
+        extension.processOutgoing(context, Frame.builder().fin(true).opcode((byte) 0x02).payloadData(payload).build());
+
+        final Frame fragment = Frame.builder().fin(false).opcode((byte) 0x02).payloadData(payload).build();
+        assertSame(fragment, extension.processOutgoing(context, fragment));
+
+        final Frame ping = Frame.builder().fin(true).opcode((byte) 0x09).payloadData(payload).build();
+        assertSame(ping, extension.processOutgoing(context, ping));
+    }
+
+    @Test
+    public void maxReferenceSize() {
+        final DeltaEncodingExtension extension = new DeltaEncodingExtension(16);
+        final TyrusExtensionContext context = new TyrusExtensionContext();
+        extension.onHandshakeResponse(context, extension.getParameters());
+
+        final byte[] payload = "0123456789012345678901234567890123456789".getBytes(UTF8);
+        final Frame frame = Frame.builder().fin(true).opcode((byte) 0x02).payloadData(payload).build();
+
+        assertSame(frame, extension.processOutgoing(context, frame));
+        assertSame(frame, extension.processOutgoing(context, frame));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.core.extension;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import javax.websocket.Extension;
+
+import org.glassfish.tyrus.core.Frame;
+import org.glassfish.tyrus.core.TyrusExtensionContext;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent (agent at local)
+ */
+public class PresetDictionaryDeflateExtensionTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte[] DICTIONARY_V1 = "{\"deviceId\":\"\",\"timestamp\":,\"temperature\":,\"humidity\":".getBytes(UTF8);
+    private static final byte[] DICTIONARY_V2 = "{\"deviceId\":\"\",\"timestamp\":,\"temperature\":,\"humidity\":,\"battery\":".getBytes(UTF8);
+
+    private static final byte[] MESSAGE = "{\"deviceId\":\"a1\",\"timestamp\":1390000000,\"temperature\":21,\"humidity\":40}".getBytes(UTF8);
+
+    @Test
+    public void roundTrip() {
+        final PresetDictionaryDeflateExtension server = new PresetDictionaryDeflateExtension(DICTIONARY_V2, DICTIONARY_V1);
+        final PresetDictionaryDeflateExtension client = new PresetDictionaryDeflateExtension(DICTIONARY_V1);
+
+        final TyrusExtensionContext serverContext = new TyrusExtensionContext();
+        final TyrusExtensionContext clientContext = new TyrusExtensionContext();
+
+        final List<Extension.Parameter> response = server.onExtensionNegotiation(serverContext, client.getParameters());
+        assertEquals(1, response.size());
+        assertEquals(client.getDictionaryId(), response.get(0).getValue());
+        client.onHandshakeResponse(clientContext, response);
+
+        final Frame frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(MESSAGE).payloadLength(MESSAGE.length).build();
+        final Frame compressed = client.processOutgoing(clientContext, frame);
+
+        assertTrue(compressed.isRsv1());
+        assertTrue(compressed.getPayloadLength() < MESSAGE.length);
+
+        final Frame decompressed = server.processIncoming(serverContext, compressed);
+        assertFalse(decompressed.isRsv1());
+        assertArrayEquals(MESSAGE, decompressed.getPayloadData());
+
+        // stateless - same message compresses to the same payload.
+        assertArrayEquals(compressed.getPayloadData(), client.processOutgoing(clientContext, frame).getPayloadData());
+    }
+
+    @Test
+    public void unknownDictionary() {
+        final PresetDictionaryDeflateExtension server = new PresetDictionaryDeflateExtension(DICTIONARY_V2);
+        final PresetDictionaryDeflateExtension client = new PresetDictionaryDeflateExtension(DICTIONARY_V1);
+
+        final TyrusExtensionContext serverContext = new TyrusExtensionContext();
+        final TyrusExtensionContext clientContext = new TyrusExtensionContext();
+
+        final List<Extension.Parameter> response = server.onExtensionNegotiation(serverContext, client.getParameters());
+        assertTrue(response.isEmpty());
+        client.onHandshakeResponse(clientContext, response);
+
+        final Frame frame = Frame.builder().fin(true).opcode((byte) 0x01).payloadData(MESSAGE).payloadLength(MESSAGE.length).build();
+        assertSame(frame, client.processOutgoing(clientContext, frame));
+        assertSame(frame, server.processOutgoing(serverContext, frame));
+    }
+
+    @Test
+    public void incompressible() {
+        final PresetDictionaryDeflateExtension extension = new PresetDictionaryDeflateExtension(DICTIONARY_V1);
+        final TyrusExtensionContext context = new TyrusExtensionContext();
+        extension.onHandshakeResponse(context, extension.getParameters());
+
+        final byte[] payload = {0x01, 0x7f, 0x55};
+        final Frame frame = Frame.builder().fin(true).opcode((byte) 0x02).payloadData(payload).payloadLength(payload.length).build();
+        assertSame(frame, extension.processOutgoing(context, frame));
+    }
+}
@@ -41,6 +41,8 @@ package org.glassfish.tyrus.server;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.websocket.Extension;
 import javax.websocket.HandshakeResponse;
@@ -49,6 +51,7 @@ import javax.websocket.server.ServerEndpointConfig;
 
 import org.glassfish.tyrus.core.ComponentProviderService;
 import org.glassfish.tyrus.core.ExtendedExtension;
+import org.glassfish.tyrus.core.ExtensionChain;
 import org.glassfish.tyrus.core.Frame;
 
 /**
@@ -58,6 +61,8 @@ import org.glassfish.tyrus.core.Frame;
  */
 public class TyrusServerEndpointConfigurator extends ServerEndpointConfig.Configurator {
 
+    private static final Logger LOGGER = Logger.getLogger(TyrusServerEndpointConfigurator.class.getName());
+
     private final ComponentProviderService componentProviderService;
 
     public TyrusServerEndpointConfigurator() {
@@ -82,6 +87,8 @@ public class TyrusServerEndpointConfigurator extends ServerEndpointConfig.Config
         installed = new ArrayList<Extension>(installed);
 
         List<Extension> result = new ArrayList<Extension>();
+        // reserved bits of the frame header used by already negotiated extensions.
+        int reservedBits = 0;
 
         if (requested != null) {
             for (final Extension requestedExtension : requested) {
@@ -89,6 +96,13 @@ public class TyrusServerEndpointConfigurator extends ServerEndpointConfig.Config
                     final String name = extension.getName();
                     // exception have the same name = are equal. Params should not be taken into account.
                     if (name != null && name.equals(requestedExtension.getName())) {
+                        final int extensionReservedBits = ExtensionChain.getReservedBits(extension);
+                        if ((reservedBits & extensionReservedBits) != 0) {
+                            LOGGER.log(Level.FINE, String.format("Extension '%s' not negotiated, it uses the same reserved bits as already negotiated extension.", name));
+                            continue;
+                        }
+                        reservedBits |= extensionReservedBits;
+
                         if (extension instanceof ExtendedExtension) {
                             final ExtendedExtension extendedExtension = (ExtendedExtension) extension;
                             result.add(new ExtendedExtension() {
@@ -59,6 +59,14 @@ public interface ClientContainer {
      */
     public static final String INCOMING_BUFFER_SIZE = "org.glassfish.tyrus.incomingBufferSize";
 
+    /**
+     * Property name for maximal payload size of outgoing frame. Bigger messages are sent as a sequence of
+     * continuation frames.
+     *
+     * Can be set in properties map (see {@link #openClientSocket(String, javax.websocket.ClientEndpointConfig, java.util.Map, ClientEngine)}).
+     */
+    public static final String MAX_OUTGOING_FRAME_SIZE = "org.glassfish.tyrus.maxOutgoingFrameSize";
+
     /**
      * Open client socket - connect to endpoint specified with {@code url} parameter.
      * <p/>
@@ -71,6 +71,30 @@ public interface ClientEngine {
      */
     public Connection processResponse(UpgradeResponse upgradeResponse, final Writer writer, final Connection.CloseListener closeListener);
 
+    /**
+     * Optional interface of {@link ClientEngine} implementations used by containers which open the connection
+     * asynchronously - {@link ClientContainer#openClientSocket(String, javax.websocket.ClientEndpointConfig, java.util.Map, ClientEngine)}
+     * returns before the connection is established.
+     */
+    public interface ConnectHandler {
+
+        /**
+         * Invoked before the connection is opened.
+         *
+         * @param timeoutHandler invoked when the handshake times out before
+         *                       {@link ClientEngine#createUpgradeRequest(URI, TimeoutHandler)} is called.
+         */
+        public void onConnecting(TimeoutHandler timeoutHandler);
+
+        /**
+         * Invoked when the connection cannot be established. Engine won't be used by the container any more.
+         *
+         * @param throwable reason of the failure, usually {@link java.io.IOException} or
+         *                  {@link javax.websocket.DeploymentException}.
+         */
+        public void onConnectFailed(Throwable throwable);
+    }
+
     /**
      * Indicates to container that handshake timeout was reached.
      */
@@ -0,0 +1,72 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.spi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link ReadHandler} which is able to consume data stored in multiple buffers at once.
+ * <p/>
+ * Transports which read data into composite (multi-segment) buffers can pass all segments in one call instead of
+ * merging them or calling {@link #handle(ByteBuffer)} for every segment. Tyrus runtime reads complete frames directly
+ * from passed buffers; only the incomplete frame at the end of the data is copied.
+ * <p/>
+ * Transport can check whether the handler returned by {@link Connection#getReadHandler()} implements this interface.
+ *
+ * @author agent (agent at local)
+ */
+public interface CompositeReadHandler extends ReadHandler {
+
+    /**
+     * A transport reads websocket data and invokes this method to handover websocket data for a connection to tyrus
+     * runtime. All data from passed buffers is consumed.
+     * <p/>
+     * Buffers must not be modified or reused by the transport until {@code releaseHandler} is notified. The handler
+     * is notified exactly once, {@link CompletionHandler#completed(Object)} is called when the data was consumed,
+     * {@link CompletionHandler#failed(Throwable)} when the processing failed. The runtime does not touch the buffers
+     * after the notification, so the transport can dispose them.
+     *
+     * @param data           websocket data of a connection.
+     * @param offset         index of the first buffer to be processed.
+     * @param length         number of buffers to be processed.
+     * @param releaseHandler handler notified when the buffers are not needed anymore, can be {@code null}.
+     */
+    void handle(ByteBuffer[] data, int offset, int length, CompletionHandler<ByteBuffer[]> releaseHandler);
+}
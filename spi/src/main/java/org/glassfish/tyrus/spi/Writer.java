@@ -65,4 +65,24 @@ public abstract class Writer implements Closeable {
      * @param completionHandler completion handler to know the write status.
      */
     public abstract void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler);
+
+    /**
+     * Tyrus runtime calls this method to handover the data for a connection to the transport with a hint, whether
+     * the data should be written before other data frames which were not written yet.
+     * <p/>
+     * Priority is requested only for frames containing whole message. Transports which queue outgoing frames may move
+     * such frame ahead of queued data frames, but never between fragments of another message. Ping and pong frames
+     * can be recognized from the frame header and may be written before queued data frames regardless of this hint.
+     * Close frame must keep its position, data frames written before it cannot be sent after it, and no data frame
+     * may follow it (see RFC 6455, chapter 5.5.1).
+     * <p/>
+     * Default implementation ignores the hint and calls {@link #write(ByteBuffer, CompletionHandler)}.
+     *
+     * @param buffer            bytes to write.
+     * @param completionHandler completion handler to know the write status.
+     * @param priority          {@code true} when the frame should be written with priority.
+     */
+    public void write(ByteBuffer buffer, CompletionHandler<ByteBuffer> completionHandler, boolean priority) {
+        write(buffer, completionHandler);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerEndpoint;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link ClientManager#asyncConnectToServer(Object, java.net.URI)} and handshake timeout.
+ *
+ * @author agent (agent at local)
+ */
+public class AsyncConnectTest extends TestContainer {
+
+    private static final int CONNECTIONS = 50;
+
+    @Test
+    public void testAsyncConnect() throws Exception {
+        final Server server = startServer(AsyncConnectEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            final List<Future<Session>> futures = new ArrayList<Future<Session>>();
+
+            for (int i = 0; i < CONNECTIONS; i++) {
+                futures.add(client.asyncConnectToServer(new Endpoint() {
+                    @Override
+                    public void onOpen(Session session, EndpointConfig config) {
+                    }
+                }, ClientEndpointConfig.Builder.create().build(), getURI(AsyncConnectEchoEndpoint.class)));
+            }
+
+            for (Future<Session> future : futures) {
+                final Session session = future.get(10, TimeUnit.SECONDS);
+                assertTrue(session.isOpen());
+                session.close();
+            }
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testHandshakeTimeout() throws Exception {
+        final Server server = startServer(SlowHandshakeEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(ClientManager.HANDSHAKE_TIMEOUT, 500);
+
+            final long start = System.currentTimeMillis();
+            final Future<Session> future = client.asyncConnectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(SlowHandshakeEndpoint.class));
+
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof DeploymentException);
+            }
+
+            assertTrue(System.currentTimeMillis() - start < SlowHandshakeConfigurator.DELAY);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @ServerEndpoint(value = "/asyncconnectecho")
+    public static class AsyncConnectEchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+
+    public static class SlowHandshakeConfigurator extends ServerEndpointConfig.Configurator {
+
+        static final long DELAY = 3000;
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+            try {
+                Thread.sleep(DELAY);
+            } catch (InterruptedException e) {
+                // do nothing.
+            }
+        }
+    }
+
+    @ServerEndpoint(value = "/slowhandshake", configurator = SlowHandshakeConfigurator.class)
+    public static class SlowHandshakeEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.websocket.ClientEndpoint;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.OnMessage;
+import javax.websocket.OnOpen;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerEndpoint;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.glassfish.tyrus.client.BulkConnector;
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link BulkConnector}.
+ *
+ * @author agent (agent at local)
+ */
+public class BulkConnectorTest extends TestContainer {
+
+    private static final int CONNECTIONS = 40;
+    private static final int MAX_CONCURRENT_HANDSHAKES = 5;
+
+    @Test
+    public void testBulkConnect() throws Exception {
+        final Server server = startServer(BulkEchoEndpoint.class);
+        BulkClientEndpoint.opened.set(0);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            final CountDownLatch completedLatch = new CountDownLatch(1);
+            final AtomicInteger connectedCallbacks = new AtomicInteger(0);
+
+            final BulkConnector connector = client.bulkConnector(BulkClientEndpoint.class)
+                    .uri(getURI(BulkEchoEndpoint.class))
+                    .connections(CONNECTIONS)
+                    .maxConcurrentHandshakes(MAX_CONCURRENT_HANDSHAKES)
+                    .listener(new BulkConnector.Listener() {
+                        @Override
+                        public void onConnected(URI uri, Session session) {
+                            connectedCallbacks.incrementAndGet();
+                        }
+
+                        @Override
+                        public void onFailed(URI uri, Throwable throwable) {
+                        }
+
+                        @Override
+                        public void onCompleted(BulkConnector connector) {
+                            completedLatch.countDown();
+                        }
+                    })
+                    .connect();
+
+            assertTrue(connector.await(30, TimeUnit.SECONDS));
+            assertTrue(completedLatch.await(1, TimeUnit.SECONDS));
+            assertTrue(connector.isDone());
+            assertEquals(CONNECTIONS, connector.getConnectedCount());
+            assertEquals(0, connector.getFailedCount());
+            assertEquals(0, connector.getPendingCount());
+            assertEquals(CONNECTIONS, connectedCallbacks.get());
+            assertEquals(CONNECTIONS, connector.getSessions().size());
+            assertTrue(BulkCountingConfigurator.maxConcurrent.get() <= MAX_CONCURRENT_HANDSHAKES);
+
+            // annotated class is instantiated per connection.
+            assertEquals(CONNECTIONS, BulkClientEndpoint.opened.get());
+
+            for (Session session : connector.getSessions()) {
+                assertTrue(session.isOpen());
+                session.close();
+            }
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        final Server server = startServer(BulkEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+
+            final long start = System.currentTimeMillis();
+            final BulkConnector connector = client.bulkConnector(BulkClientEndpoint.class)
+                    .uri(getURI(BulkEchoEndpoint.class))
+                    .connections(10)
+                    .connectionsPerSecond(20)
+                    .connect();
+
+            assertTrue(connector.await(30, TimeUnit.SECONDS));
+            assertEquals(10, connector.getConnectedCount());
+
+            // 10th connection cannot be started sooner than after 9 intervals of 50 ms.
+            assertTrue(System.currentTimeMillis() - start >= 400);
+
+            for (Session session : connector.getSessions()) {
+                session.close();
+            }
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        final Server server = startServer(BulkEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+
+            final BulkConnector connector = client.bulkConnector(BulkClientEndpoint.class)
+                    .uri(getURI(BulkEchoEndpoint.class))
+                    .uri(getURI("/nonexistent"))
+                    .connections(10)
+                    .connect();
+
+            assertTrue(connector.await(30, TimeUnit.SECONDS));
+            assertEquals(5, connector.getConnectedCount());
+            assertEquals(5, connector.getFailedCount());
+            assertEquals(5, connector.getFailures().size());
+
+            for (Session session : connector.getSessions()) {
+                session.close();
+            }
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @ClientEndpoint
+    public static class BulkClientEndpoint {
+
+        static final AtomicInteger opened = new AtomicInteger(0);
+
+        @OnOpen
+        public void onOpen(Session session) {
+            opened.incrementAndGet();
+        }
+    }
+
+    public static class BulkCountingConfigurator extends ServerEndpointConfig.Configurator {
+
+        static final AtomicInteger concurrent = new AtomicInteger(0);
+        static final AtomicInteger maxConcurrent = new AtomicInteger(0);
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+            final int current = concurrent.incrementAndGet();
+
+            int max;
+            do {
+                max = maxConcurrent.get();
+            } while (current > max && !maxConcurrent.compareAndSet(max, current));
+
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                // do nothing.
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+
+    @ServerEndpoint(value = "/bulkecho", configurator = BulkCountingConfigurator.class)
+    public static class BulkEchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+}
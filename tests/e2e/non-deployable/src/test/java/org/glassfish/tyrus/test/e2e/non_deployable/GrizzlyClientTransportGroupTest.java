@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.container.grizzly.client.GrizzlyClientContainer;
+import org.glassfish.tyrus.container.grizzly.client.GrizzlyClientSocket;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that connections created by one {@link ClientManager} share one transport.
+ *
+ * @author agent (agent at local)
+ */
+public class GrizzlyClientTransportGroupTest extends TestContainer {
+
+    private static final int CONNECTIONS = 20;
+    private static final int SELECTOR_THREADS = 2;
+    private static final int WORKER_THREADS = 4;
+
+    @Test
+    public void testSharedThreads() throws Exception {
+        if (System.getProperties().getProperty(GrizzlyClientContainer.SHARED_CONTAINER) != null) {
+            // test not valid with shared container.
+            return;
+        }
+
+        final Server server = startServer(TransportGroupEchoEndpoint.class);
+
+        try {
+            final List<Thread> selectorThreads = new CopyOnWriteArrayList<Thread>();
+            final List<Thread> workerThreads = new CopyOnWriteArrayList<Thread>();
+
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(GrizzlyClientSocket.SELECTOR_THREAD_POOL_CONFIG,
+                    ThreadPoolConfig.defaultConfig().setCorePoolSize(SELECTOR_THREADS).setMaxPoolSize(SELECTOR_THREADS)
+                            .setThreadFactory(new RecordingThreadFactory(selectorThreads)));
+            client.getProperties().put(GrizzlyClientSocket.WORKER_THREAD_POOL_CONFIG,
+                    ThreadPoolConfig.defaultConfig().setCorePoolSize(WORKER_THREADS).setMaxPoolSize(WORKER_THREADS)
+                            .setThreadFactory(new RecordingThreadFactory(workerThreads)));
+
+            final List<Session> sessions = connect(client, CONNECTIONS);
+
+            assertTrue(selectorThreads.size() > 0);
+            assertTrue(selectorThreads.size() <= SELECTOR_THREADS);
+            assertTrue(workerThreads.size() <= WORKER_THREADS);
+
+            for (Session session : sessions) {
+                session.close();
+            }
+
+            // transport is stopped when the last connection is closed.
+            for (Thread thread : selectorThreads) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+
+            // and started again for new connection.
+            final int selectorThreadsBefore = selectorThreads.size();
+            final List<Session> newSessions = connect(client, 1);
+            assertTrue(selectorThreads.size() > selectorThreadsBefore);
+            newSessions.get(0).close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private List<Session> connect(ClientManager client, int count) throws Exception {
+        final CountDownLatch messageLatch = new CountDownLatch(count);
+        final List<Session> sessions = new ArrayList<Session>();
+
+        for (int i = 0; i < count; i++) {
+            sessions.add(client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            messageLatch.countDown();
+                        }
+                    });
+
+                    try {
+                        session.getBasicRemote().sendText("ping");
+                    } catch (IOException e) {
+                        // do nothing.
+                    }
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(TransportGroupEchoEndpoint.class)));
+        }
+
+        assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+        return sessions;
+    }
+
+    private static class RecordingThreadFactory implements ThreadFactory {
+
+        private final List<Thread> threads;
+
+        private RecordingThreadFactory(List<Thread> threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            threads.add(thread);
+            return thread;
+        }
+    }
+
+    @ServerEndpoint(value = "/transportgroupecho")
+    public static class TransportGroupEchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+}
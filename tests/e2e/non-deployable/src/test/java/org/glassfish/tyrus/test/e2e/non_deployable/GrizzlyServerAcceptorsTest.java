@@ -0,0 +1,173 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.container.grizzly.server.GrizzlyServerContainer;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link GrizzlyServerContainer#ACCEPTOR_COUNT} and {@link GrizzlyServerContainer#SERVER_CONNECTION_BACKLOG}.
+ * <p/>
+ * Test is skipped when {@code SO_REUSEPORT} is not supported by the runtime, server falls back to single acceptor then.
+ *
+ * @author agent (agent at local)
+ */
+public class GrizzlyServerAcceptorsTest extends TestContainer {
+
+    private static final int CLIENTS = 20;
+    private static final int ACCEPTOR_COUNT = 4;
+
+    @Test
+    public void testMultipleAcceptors() throws Exception {
+        Assume.assumeTrue(isReusePortSupported());
+
+        getServerProperties().put(GrizzlyServerContainer.ACCEPTOR_COUNT, ACCEPTOR_COUNT);
+        getServerProperties().put(GrizzlyServerContainer.SERVER_CONNECTION_BACKLOG, 1024);
+
+        final Server server = startServer(AcceptorsEchoEndpoint.class);
+
+        try {
+            assertEquals(ACCEPTOR_COUNT, getStartedListenerCount(server));
+
+            final ClientManager client = ClientManager.createClient();
+            final CountDownLatch messageLatch = new CountDownLatch(CLIENTS);
+            final List<Session> sessions = new ArrayList<Session>();
+
+            for (int i = 0; i < CLIENTS; i++) {
+                final String message = "client" + i;
+                sessions.add(client.connectToServer(new Endpoint() {
+                    @Override
+                    public void onOpen(Session session, EndpointConfig config) {
+                        session.addMessageHandler(new MessageHandler.Whole<String>() {
+                            @Override
+                            public void onMessage(String m) {
+                                if (message.equals(m)) {
+                                    messageLatch.countDown();
+                                }
+                            }
+                        });
+
+                        try {
+                            session.getBasicRemote().sendText(message);
+                        } catch (IOException e) {
+                            // do nothing.
+                        }
+                    }
+                }, ClientEndpointConfig.Builder.create().build(), getURI(AcceptorsEchoEndpoint.class)));
+            }
+
+            assertTrue(messageLatch.await(10, TimeUnit.SECONDS));
+
+            for (Session session : sessions) {
+                session.close();
+            }
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    /**
+     * {@code ReusePortSelectorProvider} is internal to the Grizzly server container, it is accessed reflectively.
+     */
+    private static boolean isReusePortSupported() throws Exception {
+        final Method isSupported = Class.forName("org.glassfish.tyrus.container.grizzly.server.ReusePortSelectorProvider")
+                .getDeclaredMethod("isSupported", SelectorProvider.class);
+        isSupported.setAccessible(true);
+        return (Boolean) isSupported.invoke(null, SelectorProvider.provider());
+    }
+
+    /**
+     * Count started listeners of the {@link HttpServer} created by {@link GrizzlyServerContainer}, it is not exposed by
+     * {@link Server}.
+     */
+    private static int getStartedListenerCount(Server server) throws Exception {
+        final HttpServer httpServer = (HttpServer) getFieldValue(getFieldValue(server, "server"), "server");
+
+        int started = 0;
+        for (NetworkListener listener : httpServer.getListeners()) {
+            if (listener.isStarted()) {
+                started++;
+            }
+        }
+        return started;
+    }
+
+    private static Object getFieldValue(Object instance, String name) throws Exception {
+        final Field field = instance.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+
+    @ServerEndpoint(value = "/acceptorsecho")
+    public static class AcceptorsEchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+}
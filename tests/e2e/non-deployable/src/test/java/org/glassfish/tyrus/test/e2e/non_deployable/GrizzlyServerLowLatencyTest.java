@@ -0,0 +1,225 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.container.grizzly.server.GrizzlyServerContainer;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link GrizzlyServerContainer#LOW_LATENCY} mode.
+ * <p/>
+ * Comparison of round trip times of small echo messages with the default IO mode is not a functional test and runs
+ * only when system property {@value #BENCHMARK_PROPERTY} is set to {@code true}; number of measured round trips can
+ * be changed by system property {@value #ITERATIONS_PROPERTY}.
+ *
+ * @author agent (agent at local)
+ */
+public class GrizzlyServerLowLatencyTest extends TestContainer {
+
+    private static final String BENCHMARK_PROPERTY = "tyrus.test.lowLatency.benchmark";
+    private static final String ITERATIONS_PROPERTY = "tyrus.test.lowLatency.iterations";
+    private static final int WARM_UP = 200;
+    private static final String MESSAGE = "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789";
+
+    private static final Logger LOGGER = Logger.getLogger(GrizzlyServerLowLatencyTest.class.getName());
+
+    @Test
+    public void testLowLatencyEcho() throws Exception {
+        getServerProperties().put(GrizzlyServerContainer.LOW_LATENCY, true);
+        getServerProperties().put(GrizzlyServerContainer.SOCKET_RECEIVE_BUFFER_SIZE, 64 * 1024);
+        getServerProperties().put(GrizzlyServerContainer.SOCKET_SEND_BUFFER_SIZE, 64 * 1024);
+
+        final long[] roundTrips = measure(10);
+        assertEquals(10, roundTrips.length);
+    }
+
+    @Test
+    public void testLowLatencyStreamedMessage() throws Exception {
+        getServerProperties().put(GrizzlyServerContainer.LOW_LATENCY, true);
+
+        final Server server = startServer(StreamingEndpoint.class);
+
+        try {
+            final BlockingQueue<String> replies = new ArrayBlockingQueue<String>(1);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            replies.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(StreamingEndpoint.class));
+
+            // more parts than the server can hand over to the (slow) Reader without buffering.
+            final StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 64; i++) {
+                session.getBasicRemote().sendText(MESSAGE, i == 63);
+                expected.append(MESSAGE);
+            }
+
+            assertEquals(expected.toString(), replies.poll(10, TimeUnit.SECONDS));
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void compareRoundTripTimes() throws Exception {
+        if (!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+            return;
+        }
+
+        final int iterations = Integer.getInteger(ITERATIONS_PROPERTY, 1000);
+
+        getServerProperties().put(GrizzlyServerContainer.LOW_LATENCY, false);
+        final long[] workerThread = measure(iterations);
+
+        getServerProperties().put(GrizzlyServerContainer.LOW_LATENCY, true);
+        final long[] sameThread = measure(iterations);
+
+        LOGGER.info(String.format("Echo round trip of %d byte message, %d iterations [us]:%n" +
+                "  default:     p50=%d p99=%d max=%d%n" +
+                "  low latency: p50=%d p99=%d max=%d", MESSAGE.length(), iterations,
+                percentile(workerThread, 50), percentile(workerThread, 99), percentile(workerThread, 100),
+                percentile(sameThread, 50), percentile(sameThread, 99), percentile(sameThread, 100)));
+    }
+
+    /**
+     * Send messages one by one and measure time until the echo is received.
+     *
+     * @param iterations number of measured messages.
+     * @return sorted round trip times in microseconds.
+     */
+    private long[] measure(int iterations) throws DeploymentException, IOException, InterruptedException {
+        final Server server = startServer(EchoEndpoint.class);
+
+        try {
+            final BlockingQueue<String> replies = new ArrayBlockingQueue<String>(1);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            replies.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(EchoEndpoint.class));
+
+            final long[] result = new long[iterations];
+            for (int i = -WARM_UP; i < iterations; i++) {
+                final long start = System.nanoTime();
+                session.getBasicRemote().sendText(MESSAGE);
+                assertEquals(MESSAGE, replies.poll(5, TimeUnit.SECONDS));
+                if (i >= 0) {
+                    result[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                }
+            }
+
+            session.close();
+
+            Arrays.sort(result);
+            return result;
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        final int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    @ServerEndpoint(value = "/lowlatencystreaming")
+    public static class StreamingEndpoint {
+
+        @OnMessage
+        public String onMessage(Reader reader) throws IOException, InterruptedException {
+            final StringBuilder sb = new StringBuilder();
+            final char[] buffer = new char[MESSAGE.length()];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                // slower than the client.
+                Thread.sleep(5);
+                sb.append(buffer, 0, read);
+            }
+            return sb.toString();
+        }
+    }
+
+    @ServerEndpoint(value = "/lowlatencyecho")
+    public static class EchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message) {
+            return message;
+        }
+    }
+}
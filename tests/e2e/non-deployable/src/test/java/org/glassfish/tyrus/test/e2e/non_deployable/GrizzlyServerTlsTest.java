@@ -0,0 +1,141 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSessionContext;
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.container.grizzly.client.GrizzlyClientContainer;
+import org.glassfish.tyrus.container.grizzly.server.GrizzlyServerContainer;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.glassfish.grizzly.ssl.SSLContextConfigurator;
+import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link GrizzlyServerContainer#SSL_ENGINE_CONFIGURATOR} and TLS session cache configuration.
+ *
+ * @author agent (agent at local)
+ */
+public class GrizzlyServerTlsTest extends TestContainer {
+
+    private static final String KEYSTORE = "/tls-test-keystore.jks";
+    private static final String KEYSTORE_PASSWORD = "changeit";
+
+    @Test
+    public void testWss() throws Exception {
+        final SSLContextConfigurator serverContextConfigurator = new SSLContextConfigurator();
+        serverContextConfigurator.setKeyStoreFile(getClass().getResource(KEYSTORE).getFile());
+        serverContextConfigurator.setKeyStorePass(KEYSTORE_PASSWORD);
+        final SSLEngineConfigurator serverConfigurator = new SSLEngineConfigurator(serverContextConfigurator.createSSLContext(), false, false, false);
+
+        getServerProperties().put(GrizzlyServerContainer.SSL_ENGINE_CONFIGURATOR, serverConfigurator);
+        getServerProperties().put(GrizzlyServerContainer.SSL_SESSION_CACHE_SIZE, 1000);
+        getServerProperties().put(GrizzlyServerContainer.SSL_SESSION_TIMEOUT, 600);
+
+        final Server server = startServer(SecureEchoEndpoint.class);
+
+        try {
+            final SSLSessionContext sessionContext = serverConfigurator.getSslContext().getServerSessionContext();
+            assertEquals(1000, sessionContext.getSessionCacheSize());
+            assertEquals(600, sessionContext.getSessionTimeout());
+
+            final SSLContextConfigurator clientContextConfigurator = new SSLContextConfigurator();
+            clientContextConfigurator.setTrustStoreFile(getClass().getResource(KEYSTORE).getFile());
+            clientContextConfigurator.setTrustStorePass(KEYSTORE_PASSWORD);
+
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(GrizzlyClientContainer.SSL_ENGINE_CONFIGURATOR,
+                    new SSLEngineConfigurator(clientContextConfigurator.createSSLContext(), true, false, false));
+
+            final CountDownLatch messageLatch = new CountDownLatch(1);
+            final String[] received = new String[1];
+
+            client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            received[0] = message;
+                            messageLatch.countDown();
+                        }
+                    });
+
+                    try {
+                        session.getBasicRemote().sendText("secure?");
+                    } catch (IOException e) {
+                        // do nothing.
+                    }
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(SecureEchoEndpoint.class, "wss"));
+
+            assertTrue(messageLatch.await(5, TimeUnit.SECONDS));
+            assertEquals("secure? true", received[0]);
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @ServerEndpoint(value = "/secureecho")
+    public static class SecureEchoEndpoint {
+
+        @OnMessage
+        public String onMessage(String message, Session session) {
+            return message + " " + session.isSecure();
+        }
+    }
+}
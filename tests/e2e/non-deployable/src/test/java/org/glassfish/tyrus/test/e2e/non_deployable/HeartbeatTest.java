@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.PongMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.core.TyrusWebSocketEngine;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link TyrusWebSocketEngine#HEARTBEAT_INTERVAL}.
+ *
+ * @author agent (agent at local)
+ */
+public class HeartbeatTest extends TestContainer {
+
+    @Test
+    public void testServerHeartbeat() throws Exception {
+        getServerProperties().put(TyrusWebSocketEngine.HEARTBEAT_INTERVAL, 50);
+        final Server server = startServer(RttEndpoint.class);
+
+        try {
+            final BlockingQueue<String> replies = new ArrayBlockingQueue<String>(1);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            replies.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(RttEndpoint.class));
+
+            // few heartbeat intervals.
+            Thread.sleep(300);
+
+            session.getBasicRemote().sendText("rtt");
+            assertEquals("true", replies.poll(5, TimeUnit.SECONDS));
+            assertTrue(session.isOpen());
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testClientHeartbeat() throws Exception {
+        final Server server = startServer(RttEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(TyrusWebSocketEngine.HEARTBEAT_INTERVAL, 50);
+            client.getProperties().put(TyrusWebSocketEngine.HEARTBEAT_MAX_MISSED_PONGS, 2);
+
+            final CountDownLatch pongLatch = new CountDownLatch(1);
+
+            final Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<PongMessage>() {
+                        @Override
+                        public void onMessage(PongMessage message) {
+                            pongLatch.countDown();
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(RttEndpoint.class));
+
+            Thread.sleep(300);
+
+            final TyrusSession tyrusSession = (TyrusSession) session;
+            assertTrue(session.isOpen());
+            assertTrue(tyrusSession.getLastRoundTripTime(TimeUnit.MICROSECONDS) >= 0);
+            assertTrue(tyrusSession.getRoundTripTime(TimeUnit.MICROSECONDS) >= 0);
+
+            // heartbeat pongs are not passed to the application.
+            assertFalse(pongLatch.await(100, TimeUnit.MILLISECONDS));
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @ServerEndpoint(value = "/heartbeatrtt")
+    public static class RttEndpoint {
+
+        @OnMessage
+        public String onMessage(String message, Session session) {
+            final TyrusSession tyrusSession = (TyrusSession) session;
+            return String.valueOf(tyrusSession.getLastRoundTripTime(TimeUnit.MICROSECONDS) >= 0
+                    && tyrusSession.getRoundTripTime(TimeUnit.MICROSECONDS) >= 0);
+        }
+    }
+}
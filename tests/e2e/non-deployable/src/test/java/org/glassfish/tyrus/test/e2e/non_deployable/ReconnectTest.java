@@ -0,0 +1,249 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.CloseReason;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerEndpoint;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.client.ReconnectHandler;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ClientManager#RECONNECT_HANDLER} and {@link ClientManager#RESUME_TOKEN}.
+ *
+ * @author agent (agent at local)
+ */
+public class ReconnectTest extends TestContainer {
+
+    @Test
+    public void testReconnectAfterServerRestart() throws Exception {
+        Server server = startServer(ReconnectEchoEndpoint.class);
+        ResumeTokenConfigurator.tokens.clear();
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(ClientManager.RECONNECT_HANDLER, new ReconnectHandler(50, 200, -1));
+
+            final CountDownLatch firstOpen = new CountDownLatch(1);
+            final CountDownLatch secondOpen = new CountDownLatch(2);
+            final CountDownLatch echoLatch = new CountDownLatch(1);
+            final List<Object> tokensInOnOpen = new CopyOnWriteArrayList<Object>();
+            final List<Session> sessions = new CopyOnWriteArrayList<Session>();
+
+            client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    final Object token = session.getUserProperties().get(ClientManager.RESUME_TOKEN);
+                    tokensInOnOpen.add(token == null ? "none" : token);
+                    session.getUserProperties().put(ClientManager.RESUME_TOKEN, "token-" + tokensInOnOpen.size());
+
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            echoLatch.countDown();
+                        }
+                    });
+
+                    sessions.add(session);
+                    firstOpen.countDown();
+                    secondOpen.countDown();
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(ReconnectEchoEndpoint.class));
+
+            assertTrue(firstOpen.await(5, TimeUnit.SECONDS));
+
+            stopServer(server);
+            server = startServer(ReconnectEchoEndpoint.class);
+
+            assertTrue(secondOpen.await(10, TimeUnit.SECONDS));
+
+            // endpoint got the token of previous session before onOpen and the server got it in handshake.
+            assertEquals("none", tokensInOnOpen.get(0));
+            assertEquals("token-1", tokensInOnOpen.get(1));
+            assertEquals(2, ResumeTokenConfigurator.tokens.size());
+            assertEquals("none", ResumeTokenConfigurator.tokens.get(0));
+            assertEquals("token-1", ResumeTokenConfigurator.tokens.get(1));
+
+            // reconnected session is usable.
+            final Session reconnected = sessions.get(1);
+            reconnected.getBasicRemote().sendText("echo");
+            assertTrue(echoLatch.await(5, TimeUnit.SECONDS));
+            reconnected.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testNoReconnectAfterNormalClosure() throws Exception {
+        final Server server = startServer(ReconnectEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(ClientManager.RECONNECT_HANDLER, new ReconnectHandler(10, 10, -1));
+
+            final CountDownLatch openLatch = new CountDownLatch(2);
+
+            final Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    openLatch.countDown();
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(ReconnectEchoEndpoint.class));
+
+            session.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "bye"));
+
+            assertFalse(openLatch.await(1, TimeUnit.SECONDS));
+            assertEquals(1, openLatch.getCount());
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testNoReconnectAfterLocalClose() throws Exception {
+        final Server server = startServer(ReconnectEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(ClientManager.RECONNECT_HANDLER, new ReconnectHandler(10, 10, -1));
+
+            final CountDownLatch openLatch = new CountDownLatch(2);
+
+            final Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    openLatch.countDown();
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(ReconnectEchoEndpoint.class));
+
+            // handler would reconnect this close code if the server closed the session.
+            session.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "bye"));
+
+            assertFalse(openLatch.await(1, TimeUnit.SECONDS));
+            assertEquals(1, openLatch.getCount());
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testStopReconnecting() throws Exception {
+        final Server server = startServer(ReconnectEchoEndpoint.class);
+
+        try {
+            final ClientManager client = ClientManager.createClient();
+            client.getProperties().put(ClientManager.RECONNECT_HANDLER, new ReconnectHandler(10, 10, -1));
+
+            final CountDownLatch openLatch = new CountDownLatch(2);
+            final CountDownLatch closeLatch = new CountDownLatch(1);
+
+            final Session session = client.connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    openLatch.countDown();
+                }
+
+                @Override
+                public void onClose(Session session, CloseReason closeReason) {
+                    closeLatch.countDown();
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(ReconnectEchoEndpoint.class));
+
+            client.stopReconnecting(session);
+            session.getBasicRemote().sendText(ReconnectEchoEndpoint.CLOSE);
+
+            assertTrue(closeLatch.await(5, TimeUnit.SECONDS));
+            assertFalse(openLatch.await(1, TimeUnit.SECONDS));
+            assertEquals(1, openLatch.getCount());
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    public static class ResumeTokenConfigurator extends ServerEndpointConfig.Configurator {
+
+        static final List<String> tokens = new CopyOnWriteArrayList<String>();
+
+        @Override
+        public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+            final List<String> values = request.getHeaders().get(ClientManager.RESUME_TOKEN_HEADER);
+            tokens.add(values == null || values.isEmpty() ? "none" : values.get(0));
+        }
+    }
+
+    @ServerEndpoint(value = "/reconnectecho", configurator = ResumeTokenConfigurator.class)
+    public static class ReconnectEchoEndpoint {
+
+        static final String CLOSE = "close";
+
+        @OnMessage
+        public String onMessage(String message, Session session) throws IOException {
+            if (CLOSE.equals(message)) {
+                session.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "closed by server"));
+                return null;
+            }
+
+            return message;
+        }
+    }
+}
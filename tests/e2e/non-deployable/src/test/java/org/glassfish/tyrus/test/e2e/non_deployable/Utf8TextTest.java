@@ -0,0 +1,208 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright (c) 2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common Development
+ * and Distribution License("CDDL") (collectively, the "License").  You
+ * may not use this file except in compliance with the License.  You can
+ * obtain a copy of the License at
+ * http://glassfish.java.net/public/CDDL+GPL_1_1.html
+ * or packager/legal/LICENSE.txt.  See the License for the specific
+ * language governing permissions and limitations under the License.
+ *
+ * When distributing the software, include this License Header Notice in each
+ * file and include the License file at packager/legal/LICENSE.txt.
+ *
+ * GPL Classpath Exception:
+ * Oracle designates this particular file as subject to the "Classpath"
+ * exception as provided by Oracle in the GPL Version 2 section of the License
+ * file that accompanied this code.
+ *
+ * Modifications:
+ * If applicable, add the following below the License Header, with the fields
+ * enclosed by brackets [] replaced by your own identifying information:
+ * "Portions Copyright [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ * If you wish your version of this file to be governed by only the CDDL or
+ * only the GPL Version 2, indicate your decision by adding "[Contributor]
+ * elects to include this software in this distribution under the [CDDL or GPL
+ * Version 2] license."  If you don't indicate a single choice of license, a
+ * recipient has the option to distribute your version of this file under
+ * either the CDDL, the GPL Version 2 or to extend the choice of license to
+ * its licensees as provided above.  However, if you add GPL Version 2 code
+ * and therefore, elected the GPL Version 2 license, then the option applies
+ * only if the new code is made subject to such option by the copyright
+ * holder.
+ */
+package org.glassfish.tyrus.test.e2e.non_deployable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.ClientEndpointConfig;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.OnMessage;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpoint;
+
+import org.glassfish.tyrus.client.ClientManager;
+import org.glassfish.tyrus.core.TyrusSession;
+import org.glassfish.tyrus.core.Utf8Text;
+import org.glassfish.tyrus.server.Server;
+import org.glassfish.tyrus.test.tools.TestContainer;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests receiving and sending text messages as {@link Utf8Text}.
+ *
+ * @author agent (agent at local)
+ */
+public class Utf8TextTest extends TestContainer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String MESSAGE = "{\"name\":\"žluťoučký kůň\",\"price\":\"€10\"}";
+
+    @Test
+    public void testWholeMessage() throws Exception {
+        final Server server = startServer(Utf8TextEndpoint.class);
+
+        try {
+            final BlockingQueue<Utf8Text> messages = new ArrayBlockingQueue<Utf8Text>(1);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<Utf8Text>() {
+                        @Override
+                        public void onMessage(Utf8Text message) {
+                            messages.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(Utf8TextEndpoint.class));
+
+            session.getBasicRemote().sendText(MESSAGE);
+
+            final Utf8Text reply = messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(reply);
+            assertReply(reply);
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testPartialMessage() throws Exception {
+        final Server server = startServer(Utf8TextEndpoint.class);
+
+        try {
+            final BlockingQueue<Utf8Text> messages = new ArrayBlockingQueue<Utf8Text>(1);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<Utf8Text>() {
+                        @Override
+                        public void onMessage(Utf8Text message) {
+                            messages.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(Utf8TextEndpoint.class));
+
+            session.getBasicRemote().sendText(MESSAGE.substring(0, 10), false);
+            session.getBasicRemote().sendText(MESSAGE.substring(10, 20), false);
+            session.getBasicRemote().sendText(MESSAGE.substring(20), true);
+
+            final Utf8Text reply = messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(reply);
+            assertReply(reply);
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    @Test
+    public void testSendAndBroadcast() throws Exception {
+        final Server server = startServer(Utf8TextBroadcastEndpoint.class);
+
+        try {
+            final BlockingQueue<String> messages = new ArrayBlockingQueue<String>(2);
+
+            final Session session = ClientManager.createClient().connectToServer(new Endpoint() {
+                @Override
+                public void onOpen(Session session, EndpointConfig config) {
+                    session.addMessageHandler(new MessageHandler.Whole<String>() {
+                        @Override
+                        public void onMessage(String message) {
+                            messages.offer(message);
+                        }
+                    });
+                }
+            }, ClientEndpointConfig.Builder.create().build(), getURI(Utf8TextBroadcastEndpoint.class));
+
+            session.getAsyncRemote().sendObject(Utf8Text.wrap(MESSAGE.getBytes(UTF_8))).get(5, TimeUnit.SECONDS);
+            assertEquals(MESSAGE, messages.poll(5, TimeUnit.SECONDS));
+
+            session.getBasicRemote().sendObject(Utf8Text.wrapTrusted(ByteBuffer.wrap(MESSAGE.getBytes(UTF_8))));
+            assertEquals(MESSAGE, messages.poll(5, TimeUnit.SECONDS));
+
+            session.close();
+        } finally {
+            stopServer(server);
+        }
+    }
+
+    private static void assertReply(Utf8Text reply) {
+        final ByteBuffer bytes = reply.getBytes();
+        assertTrue(bytes.isReadOnly());
+        assertEquals(MESSAGE.getBytes(UTF_8).length, bytes.remaining());
+        assertEquals(MESSAGE.getBytes(UTF_8).length, reply.getByteLength());
+
+        final byte[] received = new byte[bytes.remaining()];
+        bytes.get(received);
+        assertEquals(MESSAGE, new String(received, UTF_8));
+        assertEquals(MESSAGE, reply.toString());
+        assertEquals(MESSAGE.length(), reply.length());
+    }
+
+    @ServerEndpoint(value = "/utf8text")
+    public static class Utf8TextEndpoint {
+
+        @OnMessage
+        public String onMessage(Utf8Text message) {
+            return new String(toArray(message.getBytes()), UTF_8);
+        }
+
+        private static byte[] toArray(ByteBuffer buffer) {
+            final byte[] result = new byte[buffer.remaining()];
+            buffer.get(result);
+            return result;
+        }
+    }
+
+    @ServerEndpoint(value = "/utf8textbroadcast")
+    public static class Utf8TextBroadcastEndpoint {
+
+        @OnMessage
+        public void onMessage(Utf8Text message, Session session) {
+            ((TyrusSession) session).broadcast(message);
+        }
+    }
+}